@@ -0,0 +1,223 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package LWJGLTools.GLDrawing;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import org.lwjgl.BufferUtils;
+import static org.lwjgl.opengl.GL11.*;
+import static org.lwjgl.opengl.GL12.GL_ALIASED_LINE_WIDTH_RANGE;
+import static org.lwjgl.opengl.GL15.*;
+import static org.lwjgl.opengl.GL20.*;
+import static org.lwjgl.opengl.GL30.*;
+
+/**
+ * A renderer which needs only an OpenGL 3.3 core profile.
+ * <p>
+ * Primitives are collected into a {@link GLDrawBatch} rather than drawn as they arrive, and are
+ * drawn when {@link #flush()} is called, or when a batch is submitted. Drawing streams the vertices
+ * into a vertex buffer, orphaning its previous contents so that the driver need not wait for earlier
+ * draws to finish with them, and issues one {@code glDrawArrays} call per run of the batch.
+ * <p>
+ * There are no fixed-function matrices in a core profile, so vertices are transformed by the projection
+ * matrix given to {@link #setProjection(float[])} or {@link #setOrtho(float, float, float, float)}.
+ * It starts as the identity.
+ * <p>
+ * Core profiles do not support lines wider than the driver's aliased line width range, which is often
+ * just 1, and wider lines are clamped to it. {@link GLDrawHelper#setExtrudedStrokes(boolean)} draws wide
+ * lines as triangles instead.
+ * <p>
+ * No OpenGL objects are created until the first draw, so a renderer may be constructed before a context exists.
+ *
+ * @author Murdock Grewar
+ */
+public final class CoreGLRenderer implements GLRenderer {
+
+    private static final String VERTEX_SHADER =
+            "#version 330 core\n" +
+            "uniform mat4 projection;\n" +
+            "in vec2 position;\n" +
+            "in vec4 color;\n" +
+            "out vec4 vertexColor;\n" +
+            "void main() {\n" +
+            "    gl_Position = projection * vec4(position, 0.0, 1.0);\n" +
+            "    vertexColor = color;\n" +
+            "}\n";
+
+    private static final String FRAGMENT_SHADER =
+            "#version 330 core\n" +
+            "in vec4 vertexColor;\n" +
+            "out vec4 fragColor;\n" +
+            "void main() {\n" +
+            "    fragColor = vertexColor;\n" +
+            "}\n";
+
+    private static final int POSITION = 0, COLOR = 1;
+
+    private final GLDrawBatch pending = new GLDrawBatch();
+    private final FloatBuffer projection = BufferUtils.createFloatBuffer(16);
+
+    private int program = 0;
+    private int projectionLocation = -1;
+    private int vertexArray = 0;
+    private int vertexBuffer = 0;
+    private float maxLineWidth = 1;
+
+    /**
+     * Returns a new renderer with the identity as its projection.
+     */
+    public CoreGLRenderer() {
+        setProjection(new float[] {1,0,0,0, 0,1,0,0, 0,0,1,0, 0,0,0,1});
+    }
+
+    /**
+     * Sets the matrix which transforms drawing coordinates to clip coordinates.
+     * Anything already collected is drawn with the new matrix.
+     *
+     * @param matrix    The 4x4 matrix, in column-major order.
+     */
+    public void setProjection(float[] matrix) {
+        if (matrix.length != 16)
+            throw new IllegalArgumentException("A projection matrix has 16 elements.");
+        projection.clear();
+        projection.put(matrix);
+        projection.flip();
+    }
+
+    /**
+     * Sets an orthographic projection, mapping the given rectangle of drawing coordinates onto the viewport.
+     * This is the equivalent of {@code glOrtho(left, right, bottom, top, -1, 1)}.
+     *
+     * @param left      The drawing x coordinate at the left edge of the viewport.
+     * @param right     The drawing x coordinate at the right edge of the viewport.
+     * @param bottom    The drawing y coordinate at the bottom edge of the viewport.
+     * @param top       The drawing y coordinate at the top edge of the viewport.
+     */
+    public void setOrtho(float left, float right, float bottom, float top) {
+        float w = right - left, h = top - bottom;
+        setProjection(new float[] {
+            2/w, 0, 0, 0,
+            0, 2/h, 0, 0,
+            0, 0, -1, 0,
+            -(right + left)/w, -(top + bottom)/h, 0, 1
+        });
+    }
+
+    @Override
+    public void begin(int mode) {
+        pending.begin(mode);
+    }
+
+    @Override
+    public void vertex(float x, float y) {
+        pending.vertex(x, y);
+    }
+
+    @Override
+    public void end() {
+        pending.end();
+    }
+
+    @Override
+    public void setColor(float red, float green, float blue, float alpha) {
+        pending.setColor(red, green, blue, alpha);
+    }
+
+    @Override
+    public void setColorRGBA(int rgba) {
+        pending.setColorRGBA(rgba);
+    }
+
+    @Override
+    public void setLineWidth(float width) {
+        pending.setStrokeWidth(width);
+    }
+
+    @Override
+    public void submit(GLDrawBatch batch) {
+        // Keep the order of drawing: whatever was collected before the batch goes first.
+        flush();
+        draw(batch);
+        batch.clear();
+    }
+
+    @Override
+    public void flush() {
+        draw(pending);
+        pending.clear();
+    }
+
+    private void draw(GLDrawBatch batch) {
+        int vertexCount = batch.getVertexCount();
+        if (vertexCount == 0)
+            return;
+        if (program == 0)
+            create();
+
+        glUseProgram(program);
+        glUniformMatrix4fv(projectionLocation, false, projection);
+        glBindVertexArray(vertexArray);
+        glBindBuffer(GL_ARRAY_BUFFER, vertexBuffer);
+
+        ByteBuffer data = batch.vertexBuffer().duplicate();
+        data.clear();
+        data.limit(vertexCount * GLDrawBatch.VERTEX_SIZE);
+        glBufferData(GL_ARRAY_BUFFER, data.remaining(), GL_STREAM_DRAW);
+        glBufferSubData(GL_ARRAY_BUFFER, 0, data);
+
+        for (int i = 0; i < batch.getRunCount(); i++) {
+            int count = batch.getRunVertexCount(i);
+            if (count == 0)
+                continue;
+            int mode = batch.getRunMode(i);
+            if (mode == GL_LINES)
+                glLineWidth(Math.max(1, Math.min(maxLineWidth, batch.getRunStrokeWidth(i))));
+            glDrawArrays(mode, batch.getRunFirst(i), count);
+        }
+
+        glBindBuffer(GL_ARRAY_BUFFER, 0);
+        glBindVertexArray(0);
+        glUseProgram(0);
+    }
+
+    private void create() {
+        program = ShaderPrograms.link(VERTEX_SHADER, FRAGMENT_SHADER, "position", "color");
+        projectionLocation = glGetUniformLocation(program, "projection");
+
+        vertexArray = glGenVertexArrays();
+        vertexBuffer = glGenBuffers();
+        glBindVertexArray(vertexArray);
+        glBindBuffer(GL_ARRAY_BUFFER, vertexBuffer);
+        glEnableVertexAttribArray(POSITION);
+        glVertexAttribPointer(POSITION, 2, GL_FLOAT, false, GLDrawBatch.VERTEX_SIZE, 0L);
+        glEnableVertexAttribArray(COLOR);
+        glVertexAttribPointer(COLOR, 4, GL_UNSIGNED_BYTE, true, GLDrawBatch.VERTEX_SIZE, 8L);
+        glBindVertexArray(0);
+        glBindBuffer(GL_ARRAY_BUFFER, 0);
+
+        FloatBuffer range = BufferUtils.createFloatBuffer(16);
+        glGetFloatv(GL_ALIASED_LINE_WIDTH_RANGE, range);
+        maxLineWidth = range.get(1);
+    }
+
+    /**
+     * Deletes the shader program, vertex array and buffer held by this renderer,
+     * and discards anything collected but not yet drawn.
+     * Must be called with a current GL context if anything has been drawn.
+     */
+    @Override
+    public void dispose() {
+        pending.clear();
+        if (program != 0) {
+            glDeleteProgram(program);
+            glDeleteVertexArrays(vertexArray);
+            glDeleteBuffers(vertexBuffer);
+            program = 0;
+            vertexArray = 0;
+            vertexBuffer = 0;
+        }
+    }
+}
@@ -0,0 +1,701 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package LWJGLTools.GLDrawing;
+
+import java.awt.Color;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * A list of shape descriptions, recorded cheaply and tessellated later, possibly in parallel.
+ * <p>
+ * Recording a shape stores only its parameters, along with the colour and stroke width current at the time.
+ * {@link #tessellate(GLDrawBatch, ForkJoinPool)} then splits the list into chunks and tessellates the
+ * chunks on the threads of a fork-join pool, each into a private batch. The sizes of the chunks give
+ * each one a disjoint region of the target batch, and the chunks are copied into their regions in parallel.
+ * The result is exactly what drawing the shapes into the target one after the other would have produced.
+ * <p>
+ * Only the final {@link GLDrawBatch#flush()} or {@link GLRenderer#submit(GLDrawBatch)} needs the GL thread.
+ * A command list may be recorded and tessellated on any single thread, but not on several at once.
+ * A {@link FrameRing} hands whole lists from a thread which records them to the thread which draws them.
+ *
+ * @author Murdock Grewar
+ * @see GLDrawBatch
+ */
+public final class DrawCommandList {
+
+    // Lists shorter than this are not worth splitting.
+    private static final int MIN_CHUNK_COMMANDS = 256;
+
+    private static final int LINE = 0, ELLIPSE_FILL_SECTOR = 1, ELLIPSE = 2, ELLIPSE_SECTOR = 3,
+            URCHIN = 4, URCHIN_FILL = 5, TEXT = 6;
+
+    // The number of floats of parameters stored for each command.
+    private static final int PARAMS = 7;
+
+    private int[] ops = new int[256];
+    private int[] colors = new int[256];
+    private float[] widths = new float[256];
+    private float[] params = new float[256 * PARAMS];
+    private String[] texts = new String[256];
+    private int size = 0;
+
+    private int color = 0xFFFFFFFF;
+    private float strokeWidth = 1;
+
+    // How many groups back sortByState() looks for one to join.
+    private static final int SORT_WINDOW = 64;
+
+    // The private batches of the chunks, kept between frames so that their buffers are reused.
+    private GLDrawBatch[] chunks = new GLDrawBatch[0];
+
+    /**
+     * Sets the colour of subsequently recorded shapes by the RGB components. Assumes 100% alpha.
+     *
+     * @param red       Red component, from 0 to 1.
+     * @param green     Green component, from 0 to 1.
+     * @param blue      Blue component, from 0 to 1.
+     */
+    public void setColor(float red, float green, float blue) {
+        setColor(red,green,blue,1);
+    }
+
+    /**
+     * Sets the colour of subsequently recorded shapes by the RGBA components.
+     *
+     * @param red       Red component, from 0 to 1.
+     * @param green     Green component, from 0 to 1.
+     * @param blue      Blue component, from 0 to 1.
+     * @param alpha     Alpha value, from 0 to 1.
+     */
+    public void setColor(float red, float green, float blue, float alpha) {
+        color = PackedColor.rgba(red,green,blue,alpha);
+    }
+
+    /**
+     * Sets the colour of subsequently recorded shapes by a {@link java.awt.Color} instance.
+     *
+     * @param c     The drawing colour.
+     */
+    public void setColor(Color c) {
+        color = PackedColor.fromARGB(c.getRGB());
+    }
+
+    /**
+     * Sets the colour of subsequently recorded shapes by a packed colour.
+     *
+     * @param rgba      The drawing colour, packed as {@code 0xRRGGBBAA}.
+     * @see PackedColor
+     */
+    public void setColorRGBA(int rgba) {
+        color = rgba;
+    }
+
+    /**
+     * Sets the stroke width, in pixels, of subsequently recorded lines and outlines.
+     *
+     * @param width     The stroke width.
+     */
+    public void setStrokeWidth(float width) {
+        strokeWidth = width;
+    }
+
+    /**
+     * Returns the number of commands recorded.
+     *
+     * @return  The size of the list.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Discards every recorded command. The current colour and stroke width are kept.
+     */
+    public void clear() {
+        Arrays.fill(texts, 0, size, null);
+        size = 0;
+    }
+
+    private int add(int op, float p0, float p1, float p2, float p3, float p4, float p5, float p6) {
+        if (size == ops.length) {
+            int capacity = size * 2;
+            ops = Arrays.copyOf(ops, capacity);
+            colors = Arrays.copyOf(colors, capacity);
+            widths = Arrays.copyOf(widths, capacity);
+            params = Arrays.copyOf(params, capacity * PARAMS);
+            texts = Arrays.copyOf(texts, capacity);
+        }
+        int i = size++;
+        ops[i] = op;
+        colors[i] = color;
+        widths[i] = strokeWidth;
+        int p = i * PARAMS;
+        params[p] = p0; params[p+1] = p1; params[p+2] = p2; params[p+3] = p3;
+        params[p+4] = p4; params[p+5] = p5; params[p+6] = p6;
+        return i;
+    }
+
+    /**
+     * Records a line segment.
+     *
+     * @param startX    x position of start vertex.
+     * @param startY    y position of start vertex.
+     * @param endX      x position of end vertex.
+     * @param endY      y position of end vertex.
+     * @see GLDrawHelper#line(float, float, float, float)
+     */
+    public void line(float startX, float startY, float endX, float endY) {
+        add(LINE,startX,startY,endX,endY,0,0,0);
+    }
+
+    /**
+     * Records a line segment stretched from its starting vertex by a given factor.
+     *
+     * @param startX    x position of start vertex.
+     * @param startY    y position of start vertex.
+     * @param endX      x position of end vertex before stretching.
+     * @param endY      y position of end vertex before stretching.
+     * @param stretch   Stretch factor.
+     * @see GLDrawHelper#line(float, float, float, float, float)
+     */
+    public void line(float startX, float startY, float endX, float endY, float stretch) {
+        line(startX,startY,startX + (endX-startX)*stretch,startY + (endY-startY)*stretch);
+    }
+
+    /**
+     * Records a line segment.
+     *
+     * @param startX    x position of start vertex.
+     * @param startY    y position of start vertex.
+     * @param angle     Angle from start vertex to end vertex (in radians). 0 = rightward, pi/2 = upward.
+     * @param length    Length of the line segment.
+     * @see GLDrawHelper#lineByAngle(float, float, float, float)
+     */
+    public void lineByAngle(float startX, float startY, float angle, float length) {
+        line(startX,startY,length*(float)Math.cos(angle) + startX,length*(float)Math.sin(angle) + startY);
+    }
+
+    /**
+     * Records a filled disk.
+     *
+     * @param x         Origin x coordinate.
+     * @param y         Origin y coordinate.
+     * @param radius    Disk radius.
+     * @see GLDrawHelper#disk(float, float, float)
+     */
+    public void disk(float x, float y, float radius) {
+        ellipseFillSector(x,y,radius,radius,0,0,(float)Shapes.TAU);
+    }
+
+    /**
+     * Records a sector of a filled disk.
+     *
+     * @param x                 Origin x coordinate.
+     * @param y                 Origin y coordinate.
+     * @param radius            Disk radius
+     * @param sectorStartAngle  Starting angle (in radians).
+     * @param sectorAngle       Subtended angle (in radians).
+     * @see GLDrawHelper#diskSector(float, float, float, float, float)
+     */
+    public void diskSector(float x, float y, float radius, float sectorStartAngle, float sectorAngle) {
+        ellipseFillSector(x,y,radius,radius,0,sectorStartAngle,sectorAngle);
+    }
+
+    /**
+     * Records a circle (a hollow disk).
+     *
+     * @param x         Origin x coordinate.
+     * @param y         Origin y coordinate.
+     * @param radius    Disk radius.
+     * @see GLDrawHelper#circle(float, float, float)
+     */
+    public void circle(float x, float y, float radius) {
+        ellipse(x,y,radius,radius,0);
+    }
+
+    /**
+     * Records a sector of a circle (hollow disk).
+     *
+     * @param x                 Origin x coordinate.
+     * @param y                 Origin y coordinate.
+     * @param radius            Disk radius
+     * @param sectorStartAngle  Starting angle (in radians).
+     * @param sectorAngle       Subtended angle (in radians).
+     * @see GLDrawHelper#circleSector(float, float, float, float, float)
+     */
+    public void circleSector(float x, float y, float radius, float sectorStartAngle, float sectorAngle) {
+        ellipseSector(x,y,radius,radius,0,sectorStartAngle,sectorAngle);
+    }
+
+    /**
+     * Records a filled ellipse.
+     *
+     * @param x         Origin x coordinate.
+     * @param y         Origin y coordinate.
+     * @param mrad      Minor radius.
+     * @param Mrad      Major radius
+     * @param angle     Angle of rotation of the ellispe.
+     * @see GLDrawHelper#ellipseFill(float, float, float, float, float)
+     */
+    public void ellipseFill(float x, float y, float mrad, float Mrad, float angle) {
+        ellipseFillSector(x,y,mrad,Mrad,angle,0,(float)Shapes.TAU);
+    }
+
+    /**
+     * Records a sector of a filled ellipse.
+     *
+     * @param x                     Origin x coordinate.
+     * @param y                     Origin y coordinate.
+     * @param mrad                  Minor radius.
+     * @param Mrad                  Major radius
+     * @param angle                 Angle of rotation of the ellispe.
+     * @param sectorStartAngle      Starting angle of sector (relative to ellispe rotation).
+     * @param sectorAngle           Subtended angle of sector.
+     * @see GLDrawHelper#ellipseFillSector(float, float, float, float, float, float, float)
+     */
+    public void ellipseFillSector(float x, float y, float mrad, float Mrad, float angle, float sectorStartAngle, float sectorAngle) {
+        add(ELLIPSE_FILL_SECTOR,x,y,mrad,Mrad,angle,sectorStartAngle,sectorAngle);
+    }
+
+    /**
+     * Records the outline of an ellipse.
+     *
+     * @param x         Origin x coordinate.
+     * @param y         Origin y coordinate.
+     * @param mrad      Minor radius.
+     * @param Mrad      Major radius
+     * @param angle     Angle of rotation of the ellispe.
+     * @see GLDrawHelper#ellipse(float, float, float, float, float)
+     */
+    public void ellipse(float x, float y, float mrad, float Mrad, float angle) {
+        add(ELLIPSE,x,y,mrad,Mrad,angle,0,0);
+    }
+
+    /**
+     * Records the outline of a sector of an ellipse.
+     *
+     * @param x                     Origin x coordinate.
+     * @param y                     Origin y coordinate.
+     * @param mrad                  Minor radius.
+     * @param Mrad                  Major radius
+     * @param angle                 Angle of rotation of the ellispe.
+     * @param sectorStartAngle      Starting angle of sector (relative to ellispe rotation).
+     * @param sectorAngle           Subtended angle of sector.
+     * @see GLDrawHelper#ellipseSector(float, float, float, float, float, float, float)
+     */
+    public void ellipseSector(float x, float y, float mrad, float Mrad, float angle, float sectorStartAngle, float sectorAngle) {
+        add(ELLIPSE_SECTOR,x,y,mrad,Mrad,angle,sectorStartAngle,sectorAngle);
+    }
+
+    /**
+     * Records the outline of an urchin; a star with the given number of spines.
+     *
+     * @param x         Origin x coordinate.
+     * @param y         Origin y coordinate.
+     * @param sRad      Radius of the troughs between the spines.
+     * @param bRad      Radius of the tips of the spines.
+     * @param spines    Number of spines.
+     * @param angle     Angle of rotation of the urchin.
+     * @see GLDrawHelper#urchin(float, float, float, float, int, float)
+     */
+    public void urchin(float x, float y, float sRad, float bRad, int spines, float angle) {
+        add(URCHIN,x,y,sRad,bRad,spines,angle,0);
+    }
+
+    /**
+     * Records a filled urchin; a star with the given number of spines.
+     *
+     * @param x         Origin x coordinate.
+     * @param y         Origin y coordinate.
+     * @param sRad      Radius of the troughs between the spines.
+     * @param bRad      Radius of the tips of the spines.
+     * @param spines    Number of spines.
+     * @param angle     Angle of rotation of the urchin.
+     * @see GLDrawHelper#urchinFill(float, float, float, float, int, float)
+     */
+    public void urchinFill(float x, float y, float sRad, float bRad, int spines, float angle) {
+        add(URCHIN_FILL,x,y,sRad,bRad,spines,angle,0);
+    }
+
+    /**
+     * Records a string, anchored at its top-left corner.
+     *
+     * @param x         x coordinate of the top-left corner of the text.
+     * @param y         y coordinate of the top-left corner of the text.
+     * @param text      The String representing the text to be drawn.
+     * @param scale     The size of the text to be drawn. Each character has a width approximately 5 times this quantity.
+     * @see GLDrawHelper#drawString(float, float, java.lang.String, float)
+     */
+    public void drawString(float x, float y, String text, float scale) {
+        drawString(x,y,text,scale,GLDrawHelper.TextAlignment.LEFT_TOP);
+    }
+
+    /**
+     * Records a string, with the specified {@link GLDrawHelper.TextAlignment} option.
+     *
+     * @param x         x coordinate of the text.
+     * @param y         y coordinate of the text.
+     * @param text      The String representing the text to be drawn.
+     * @param scale     The size of the text to be drawn. Each character has a width approximately 5 times this quantity.
+     * @param alignment The text alignment option.
+     * @see GLDrawHelper#drawString(float, float, java.lang.String, float, LWJGLTools.GLDrawing.GLDrawHelper.TextAlignment)
+     */
+    public void drawString(float x, float y, String text, float scale, GLDrawHelper.TextAlignment alignment) {
+        if (alignment == GLDrawHelper.TextAlignment.LEFT_TOP) {
+            texts[add(TEXT,x,y,scale,0,0,0,0)] = text;
+            return;
+        }
+        // Lists may be recorded off the GL thread, so the layout is not taken from the shared cache.
+        TextLayout layout = TextMetrics.easyFont().layout(text, Float.POSITIVE_INFINITY);
+        float top = y + alignment.yOffset(layout) * scale;
+        for (int i = 0; i < layout.getLineCount(); i++) {
+            if (layout.getLineStart(i) == layout.getLineEnd(i))
+                continue;
+            float left = x - alignment.xOffset(layout.getLineWidth(i)) * scale;
+            texts[add(TEXT,left,top - i * layout.getLineHeight() * scale,scale,0,0,0,0)] = layout.getLine(i);
+        }
+    }
+
+    /**
+     * Reorders the recorded commands so that those drawn with the same state are adjacent,
+     * while keeping the order of any two commands whose shapes may overlap.
+     * <p>
+     * Commands are grouped by the state they need: filled shapes, lines and outlines of each stroke
+     * width, and text. Each command joins the latest group of its kind unless a command in a later group
+     * might overlap it, judged by bounding boxes; otherwise it starts a new group. Within a group,
+     * commands keep their recorded order. The picture drawn is therefore unchanged, but
+     * the renderer sees fewer changes of primitive type and stroke width.
+     *
+     * @return  The number of groups; each is a run of commands sharing one state.
+     */
+    public int sortByState() {
+        int n = size;
+        if (n < 2)
+            return n;
+
+        int[] groupKinds = new int[16];
+        float[] groupWidths = new float[16];
+        float[] groupBounds = new float[16 * 4];
+        int[] groupHeads = new int[16], groupTails = new int[16];
+        int groupCount = 0;
+        int[] next = new int[n];
+        float[] b = new float[4];
+
+        for (int i = 0; i < n; i++) {
+            int kind = kind(ops[i]);
+            float width = (kind == LINE_KIND) ? widths[i] : 0;
+            bounds(i, b);
+
+            int target = -1;
+            for (int g = groupCount - 1; g >= Math.max(0, groupCount - SORT_WINDOW); g--) {
+                if (groupKinds[g] == kind && groupWidths[g] == width) {
+                    target = g;
+                    break;
+                }
+                if (overlaps(groupBounds, g, b))
+                    break;
+            }
+
+            next[i] = -1;
+            if (target == -1) {
+                if (groupCount == groupKinds.length) {
+                    int capacity = groupCount * 2;
+                    groupKinds = Arrays.copyOf(groupKinds, capacity);
+                    groupWidths = Arrays.copyOf(groupWidths, capacity);
+                    groupBounds = Arrays.copyOf(groupBounds, capacity * 4);
+                    groupHeads = Arrays.copyOf(groupHeads, capacity);
+                    groupTails = Arrays.copyOf(groupTails, capacity);
+                }
+                target = groupCount++;
+                groupKinds[target] = kind;
+                groupWidths[target] = width;
+                System.arraycopy(b, 0, groupBounds, target * 4, 4);
+                groupHeads[target] = i;
+            } else {
+                int o = target * 4;
+                groupBounds[o] = Math.min(groupBounds[o], b[0]);
+                groupBounds[o+1] = Math.min(groupBounds[o+1], b[1]);
+                groupBounds[o+2] = Math.max(groupBounds[o+2], b[2]);
+                groupBounds[o+3] = Math.max(groupBounds[o+3], b[3]);
+                next[groupTails[target]] = i;
+            }
+            groupTails[target] = i;
+        }
+
+        int[] order = new int[n];
+        int k = 0;
+        for (int g = 0; g < groupCount; g++) {
+            for (int i = groupHeads[g]; i != -1; i = next[i])
+                order[k++] = i;
+        }
+        permute(order);
+        return groupCount;
+    }
+
+    private static final int FILL_KIND = 0, LINE_KIND = 1, TEXT_KIND = 2;
+
+    private static int kind(int op) {
+        switch (op) {
+            case ELLIPSE_FILL_SECTOR:
+            case URCHIN_FILL:
+                return FILL_KIND;
+            case TEXT:
+                return TEXT_KIND;
+            default:
+                return LINE_KIND;
+        }
+    }
+
+    private static boolean overlaps(float[] groupBounds, int g, float[] b) {
+        int o = g * 4;
+        return b[0] <= groupBounds[o+2] && groupBounds[o] <= b[2]
+            && b[1] <= groupBounds[o+3] && groupBounds[o+1] <= b[3];
+    }
+
+    // Fills b with a box (minX, minY, maxX, maxY) certain to contain everything the command draws.
+    private void bounds(int i, float[] b) {
+        float[] p = params;
+        int o = i * PARAMS;
+        float x = p[o], y = p[o+1], r;
+        switch (ops[i]) {
+            case LINE:
+                b[0] = Math.min(x, p[o+2]); b[1] = Math.min(y, p[o+3]);
+                b[2] = Math.max(x, p[o+2]); b[3] = Math.max(y, p[o+3]);
+                break;
+            case TEXT:
+                // Characters of stb_easy_font advance by at most 7 units, and lines by 12.
+                String text = texts[i];
+                int lines = 1, longest = 0, current = 0;
+                for (int c = 0; c < text.length(); c++) {
+                    if (text.charAt(c) == '\n') {
+                        lines++;
+                        current = 0;
+                    } else {
+                        longest = Math.max(longest, ++current);
+                    }
+                }
+                float scale = Math.abs(p[o+2]);
+                b[0] = x; b[1] = y - (lines * 12 + 1) * scale;
+                b[2] = x + longest * 7 * scale; b[3] = y + scale;
+                return;
+            default:
+                // Every other shape fits within its larger radius of its origin.
+                r = Math.max(Math.abs(p[o+2]), Math.abs(p[o+3]));
+                b[0] = x - r; b[1] = y - r;
+                b[2] = x + r; b[3] = y + r;
+        }
+        if (kind(ops[i]) == LINE_KIND) {
+            // Wide strokes reach beyond the shape by half their width.
+            float half = widths[i] / 2 / LevelOfDetail.getPixelScale();
+            b[0] -= half; b[1] -= half;
+            b[2] += half; b[3] += half;
+        }
+    }
+
+    private void permute(int[] order) {
+        int n = size;
+        int[] newOps = new int[ops.length], newColors = new int[ops.length];
+        float[] newWidths = new float[ops.length], newParams = new float[params.length];
+        String[] newTexts = new String[ops.length];
+        for (int k = 0; k < n; k++) {
+            int i = order[k];
+            newOps[k] = ops[i];
+            newColors[k] = colors[i];
+            newWidths[k] = widths[i];
+            newTexts[k] = texts[i];
+            System.arraycopy(params, i * PARAMS, newParams, k * PARAMS, PARAMS);
+        }
+        ops = newOps;
+        colors = newColors;
+        widths = newWidths;
+        params = newParams;
+        texts = newTexts;
+    }
+
+    /**
+     * Tessellates every recorded command into the given batch, one after the other, on the calling thread.
+     *
+     * @param target    The batch to add the shapes to.
+     */
+    public void replay(GLDrawBatch target) {
+        replay(target, 0, size);
+    }
+
+    /**
+     * Tessellates every recorded command into the given batch, in parallel on the common fork-join pool.
+     *
+     * @param target    The batch to add the shapes to.
+     * @see #tessellate(GLDrawBatch, ForkJoinPool)
+     */
+    public void tessellate(GLDrawBatch target) {
+        tessellate(target, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Tessellates every recorded command into the given batch, in parallel on the threads of the given pool.
+     * <p>
+     * The batch ends up exactly as though the commands had been replayed into it in order.
+     * Lists too short to be worth splitting, or pools of a single thread, replay on the calling thread.
+     * The colour and stroke width of the batch are left unchanged.
+     *
+     * @param target    The batch to add the shapes to.
+     * @param pool      The pool to tessellate on.
+     */
+    public void tessellate(GLDrawBatch target, ForkJoinPool pool) {
+        int chunkCount = Math.min(size / MIN_CHUNK_COMMANDS, pool.getParallelism() * 4);
+        if (chunkCount < 2 || pool.getParallelism() < 2) {
+            replay(target);
+            return;
+        }
+        if (chunks.length < chunkCount) {
+            GLDrawBatch[] larger = Arrays.copyOf(chunks, chunkCount);
+            for (int i = chunks.length; i < chunkCount; i++)
+                larger[i] = new GLDrawBatch();
+            chunks = larger;
+        }
+        // Each chunk must stroke lines exactly as the target would have.
+        for (int i = 0; i < chunkCount; i++)
+            chunks[i].copyStrokeSettings(target);
+
+        pool.invoke(new ChunkTask(chunkCount, 0, chunkCount, true, null, null));
+
+        // Give each chunk its own region of the target, then fill the regions in parallel.
+        int[] firsts = new int[chunkCount];
+        for (int i = 0; i < chunkCount; i++)
+            firsts[i] = target.reserve(chunks[i]);
+        pool.invoke(new ChunkTask(chunkCount, 0, chunkCount, false, target, firsts));
+
+        for (int i = 0; i < chunkCount; i++)
+            chunks[i].clear();
+    }
+
+    // Either tessellates a range of chunks into their private batches, or copies them into the target.
+    private final class ChunkTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int chunkCount, from, to;
+        private final boolean tessellating;
+        private final GLDrawBatch target;
+        private final int[] firsts;
+
+        ChunkTask(int chunkCount, int from, int to, boolean tessellating, GLDrawBatch target, int[] firsts) {
+            this.chunkCount = chunkCount;
+            this.from = from;
+            this.to = to;
+            this.tessellating = tessellating;
+            this.target = target;
+            this.firsts = firsts;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new ChunkTask(chunkCount, from, mid, tessellating, target, firsts),
+                          new ChunkTask(chunkCount, mid, to, tessellating, target, firsts));
+                return;
+            }
+            GLDrawBatch chunk = chunks[from];
+            if (tessellating) {
+                chunk.clear();
+                replay(chunk, (int)((long)size * from / chunkCount), (int)((long)size * (from + 1) / chunkCount));
+            } else {
+                target.copyInto(chunk, firsts[from]);
+            }
+        }
+    }
+
+    /**
+     * Draws every recorded command through the static methods of {@link GLDrawHelper}, in order,
+     * so that its renderer, batch, transformation and stroke settings all apply.
+     * <p>
+     * This must be called on the thread with the OpenGL context. The list itself is left unchanged.
+     */
+    public void draw() {
+        int lastColor = 0;
+        float lastWidth = Float.NaN;
+        for (int i = 0; i < size; i++) {
+            if (i == 0 || colors[i] != lastColor) {
+                lastColor = colors[i];
+                GLDrawHelper.setColorRGBA(lastColor);
+            }
+            if (widths[i] != lastWidth) {
+                lastWidth = widths[i];
+                GLDrawHelper.setStrokeWidth(lastWidth);
+            }
+            float[] p = params;
+            int o = i * PARAMS;
+            switch (ops[i]) {
+                case LINE:
+                    GLDrawHelper.line(p[o],p[o+1],p[o+2],p[o+3]);
+                    break;
+                case ELLIPSE_FILL_SECTOR:
+                    GLDrawHelper.ellipseFillSector(p[o],p[o+1],p[o+2],p[o+3],p[o+4],p[o+5],p[o+6]);
+                    break;
+                case ELLIPSE:
+                    GLDrawHelper.ellipse(p[o],p[o+1],p[o+2],p[o+3],p[o+4]);
+                    break;
+                case ELLIPSE_SECTOR:
+                    GLDrawHelper.ellipseSector(p[o],p[o+1],p[o+2],p[o+3],p[o+4],p[o+5],p[o+6]);
+                    break;
+                case URCHIN:
+                    GLDrawHelper.urchin(p[o],p[o+1],p[o+2],p[o+3],(int)p[o+4],p[o+5]);
+                    break;
+                case URCHIN_FILL:
+                    GLDrawHelper.urchinFill(p[o],p[o+1],p[o+2],p[o+3],(int)p[o+4],p[o+5]);
+                    break;
+                case TEXT:
+                    GLDrawHelper.drawString(p[o],p[o+1],texts[i],p[o+2]);
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown command: " + ops[i]);
+            }
+        }
+    }
+
+    private void replay(GLDrawBatch b, int from, int to) {
+        int savedColor = b.getColor();
+        float savedWidth = b.getStrokeWidth();
+        for (int i = from; i < to; i++) {
+            b.setColorRGBA(colors[i]);
+            b.setStrokeWidth(widths[i]);
+            float[] p = params;
+            int o = i * PARAMS;
+            switch (ops[i]) {
+                case LINE:
+                    Shapes.line(b,p[o],p[o+1],p[o+2],p[o+3]);
+                    break;
+                case ELLIPSE_FILL_SECTOR:
+                    Shapes.ellipseFillSector(b,p[o],p[o+1],p[o+2],p[o+3],p[o+4],p[o+5],p[o+6]);
+                    break;
+                case ELLIPSE:
+                    Shapes.ellipse(b,p[o],p[o+1],p[o+2],p[o+3],p[o+4]);
+                    break;
+                case ELLIPSE_SECTOR:
+                    Shapes.ellipseSector(b,p[o],p[o+1],p[o+2],p[o+3],p[o+4],p[o+5],p[o+6]);
+                    break;
+                case URCHIN:
+                    Shapes.urchin(b,p[o],p[o+1],p[o+2],p[o+3],(int)p[o+4],p[o+5]);
+                    break;
+                case URCHIN_FILL:
+                    Shapes.urchinFill(b,p[o],p[o+1],p[o+2],p[o+3],(int)p[o+4],p[o+5]);
+                    break;
+                case TEXT:
+                    // The text cache is not thread-safe, so every thread tessellates into its own arena.
+                    TextArena arena = TextArena.get();
+                    int vertexCount = arena.print(texts[i]) * 4;
+                    Shapes.textQuads(b, arena.buffer(), 16, vertexCount, p[o], p[o+1], p[o+2]);
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown command: " + ops[i]);
+            }
+        }
+        b.setColorRGBA(savedColor);
+        b.setStrokeWidth(savedWidth);
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package LWJGLTools.GLDrawing;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A ring of two or three {@link DrawCommandList}s, through which one thread records frames
+ * while another draws them, without either thread ever waiting for the other.
+ * <p>
+ * The recording thread, typically running the simulation, calls {@link #beginFrame()},
+ * records the frame into the returned list, then calls {@link #publish()}.
+ * The drawing thread, which holds the GL context, calls {@link #latest()} to obtain the newest
+ * published frame, and {@link DrawCommandList#draw()} to draw it. The drawing thread keeps its frame
+ * until a newer one is published, so it may draw the same frame more than once.
+ * <p>
+ * Frames are handed over with compare-and-set operations on the state of each list.
+ * When the drawing thread falls behind, unread frames are overwritten rather than queued:
+ * with three lists, the recording thread is never made to reuse the frame being drawn;
+ * with two, it reuses its previous frame if that has not yet been picked up.
+ * Frames which are never drawn are counted by {@link #getDroppedFrames()}.
+ * <p>
+ * There must be only one recording thread and one drawing thread.
+ *
+ * @author Murdock Grewar
+ */
+public final class FrameRing {
+
+    private static final int FREE = 0, WRITING = 1, READY = 2, READING = 3;
+
+    private final DrawCommandList[] lists;
+    private final AtomicIntegerArray states;
+    // The order in which frames were published. Written before, and read after, the state of the list.
+    private final long[] sequences;
+
+    private final AtomicLong dropped = new AtomicLong();
+
+    // Owned by the recording thread.
+    private int writing = -1;
+    private long published = 0;
+
+    // Owned by the drawing thread.
+    private int reading = -1;
+
+    /**
+     * Returns a new ring of the given number of empty command lists.
+     *
+     * @param frames    The number of lists; 2 or 3.
+     */
+    public FrameRing(int frames) {
+        if (frames < 2 || frames > 3)
+            throw new IllegalArgumentException("A frame ring holds 2 or 3 frames.");
+        lists = new DrawCommandList[frames];
+        for (int i = 0; i < frames; i++)
+            lists[i] = new DrawCommandList();
+        states = new AtomicIntegerArray(frames);
+        sequences = new long[frames];
+    }
+
+    /**
+     * Returns an empty list to record the next frame into. Called on the recording thread.
+     *
+     * @return  The list for the next frame.
+     */
+    public DrawCommandList beginFrame() {
+        if (writing != -1)
+            throw new IllegalStateException("beginFrame() was called twice without a call to publish().");
+        while (true) {
+            for (int i = 0; i < lists.length; i++) {
+                if (states.compareAndSet(i, FREE, WRITING))
+                    return start(i);
+            }
+            // Every other list is published but unread, or being drawn; overwrite the oldest unread one.
+            int oldest = -1;
+            for (int i = 0; i < lists.length; i++) {
+                if (states.get(i) == READY && (oldest == -1 || sequences[i] < sequences[oldest]))
+                    oldest = i;
+            }
+            if (oldest != -1 && states.compareAndSet(oldest, READY, WRITING)) {
+                dropped.incrementAndGet();
+                return start(oldest);
+            }
+        }
+    }
+
+    private DrawCommandList start(int i) {
+        writing = i;
+        lists[i].clear();
+        return lists[i];
+    }
+
+    /**
+     * Hands the frame recorded since {@link #beginFrame()} over to the drawing thread.
+     * Called on the recording thread.
+     */
+    public void publish() {
+        if (writing == -1)
+            throw new IllegalStateException("publish() was called without a matching call to beginFrame().");
+        sequences[writing] = ++published;
+        states.set(writing, READY);
+        writing = -1;
+    }
+
+    /**
+     * Returns the newest published frame. Called on the drawing thread.
+     * <p>
+     * The returned list belongs to the drawing thread until the next call to this method,
+     * and is returned again if no newer frame has been published since.
+     *
+     * @return  The newest frame, or null if none has been published yet.
+     */
+    public DrawCommandList latest() {
+        while (true) {
+            int newest = -1;
+            long newestSequence = 0;
+            for (int i = 0; i < lists.length; i++) {
+                if (states.get(i) == READY) {
+                    long sequence = sequences[i];
+                    if (newest == -1 || sequence > newestSequence) {
+                        newest = i;
+                        newestSequence = sequence;
+                    }
+                }
+            }
+            if (newest == -1)
+                return reading == -1 ? null : lists[reading];
+            if (!states.compareAndSet(newest, READY, READING))
+                continue; // The recording thread took it back; look again.
+
+            if (reading != -1)
+                states.set(reading, FREE);
+            reading = newest;
+            // Older frames which were never picked up can now be reused.
+            for (int i = 0; i < lists.length; i++) {
+                if (i != newest && states.get(i) == READY && sequences[i] < newestSequence
+                        && states.compareAndSet(i, READY, FREE))
+                    dropped.incrementAndGet();
+            }
+            return lists[reading];
+        }
+    }
+
+    /**
+     * Returns the number of published frames which were overwritten before they could be drawn.
+     *
+     * @return  The dropped frame count.
+     */
+    public long getDroppedFrames() {
+        return dropped.get();
+    }
+
+    /**
+     * Returns the number of command lists in this ring.
+     *
+     * @return  2 or 3.
+     */
+    public int size() {
+        return lists.length;
+    }
+}
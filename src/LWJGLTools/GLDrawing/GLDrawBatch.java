@@ -0,0 +1,830 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package LWJGLTools.GLDrawing;
+
+import java.awt.Color;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import org.lwjgl.BufferUtils;
+import static org.lwjgl.opengl.GL11.*;
+
+/**
+ * A retained batch of primitives which is submitted to OpenGL in as few draw calls as possible.
+ * <p>
+ * Drawing into a batch does not touch OpenGL. Every primitive is converted to
+ * independent triangles or line segments and appended to a single off-heap vertex buffer,
+ * together with the colour that was current when the vertex was added.
+ * A call to {@link #flush()} then submits the whole buffer with one {@code glDrawArrays} call
+ * for every run of vertices that share a primitive type (and, for lines, a stroke width).
+ * <p>
+ * Each vertex occupies {@link #VERTEX_SIZE} bytes: the x and y coordinates as floats,
+ * followed by the red, green, blue and alpha components as unsigned bytes.
+ * The contents of the batch can be inspected through {@link #getVertexCount()},
+ * {@link #getVertexX(int)}, {@link #getRunCount()} and friends without a GL context.
+ * <p>
+ * With {@link #setExtrudedStrokes(boolean)}, line primitives are instead widened into triangles by a
+ * {@link Stroker}, so that every stroke of every width shares the single run of triangles.
+ * <p>
+ * A batch may also be installed behind the static methods of {@link GLDrawHelper}
+ * through {@link GLDrawHelper#beginBatch(LWJGLTools.GLDrawing.GLDrawBatch)}.
+ *
+ * @author Murdock Grewar
+ * @see GLDrawHelper
+ */
+public class GLDrawBatch implements PrimitiveSink {
+
+    /**
+     * The number of bytes occupied by a single vertex.
+     */
+    public static final int VERTEX_SIZE = 12;
+
+    private static final boolean LITTLE_ENDIAN = ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN;
+
+    private static final int NO_PRIMITIVE = -1;
+
+    private ByteBuffer vertices;
+    private int vertexCount;
+
+    private int[] runModes = new int[16];
+    private float[] runWidths = new float[16];
+    private int[] runFirsts = new int[16];
+    private int runCount;
+
+    private int color = 0xFFFFFFFF;
+    private int colorBits = 0xFFFFFFFF;
+    private float strokeWidth = 1;
+
+    // Widens line primitives into triangles when extruded strokes are on, or null when they are off.
+    private Stroker stroker = null;
+    private boolean stroking = false;
+
+    // State of the primitive currently being converted.
+    private int mode = NO_PRIMITIVE;
+    private int primitiveVertices;
+    private int primitiveStart;
+    private float firstX, firstY, prevX, prevY, prevPrevX, prevPrevY;
+    private int firstBits, prevBits, prevPrevBits;
+
+    /**
+     * Returns a new, empty batch with room for 1024 vertices before it needs to grow.
+     */
+    public GLDrawBatch() {
+        this(1024);
+    }
+
+    /**
+     * Returns a new, empty batch with room for the given number of vertices before it needs to grow.
+     *
+     * @param initialVertexCapacity     The number of vertices to allocate space for.
+     */
+    public GLDrawBatch(int initialVertexCapacity) {
+        vertices = BufferUtils.createByteBuffer(Math.max(initialVertexCapacity, 16) * VERTEX_SIZE);
+    }
+
+    /**
+     * Sets the colour of subsequently added vertices by the RGB components. Assumes 100% alpha.
+     *
+     * @param red       Red component, from 0 to 1.
+     * @param green     Green component, from 0 to 1.
+     * @param blue      Blue component, from 0 to 1.
+     */
+    public void setColor(float red, float green, float blue) {
+        setColor(red,green,blue,1);
+    }
+
+    /**
+     * Sets the colour of subsequently added vertices by the RGBA components.
+     *
+     * @param red       Red component, from 0 to 1.
+     * @param green     Green component, from 0 to 1.
+     * @param blue      Blue component, from 0 to 1.
+     * @param alpha     Alpha value, from 0 to 1.
+     */
+    public void setColor(float red, float green, float blue, float alpha) {
+        setColorRGBA(PackedColor.rgba(red,green,blue,alpha));
+    }
+
+    /**
+     * Sets the colour of subsequently added vertices by a {@link java.awt.Color} instance.
+     *
+     * @param c     The drawing colour.
+     */
+    public void setColor(Color c) {
+        setColorRGBA(PackedColor.fromARGB(c.getRGB()));
+    }
+
+    /**
+     * Sets the colour of subsequently added vertices.
+     *
+     * @param rgba      The colour packed as {@code 0xRRGGBBAA}.
+     * @see PackedColor
+     */
+    public void setColorRGBA(int rgba) {
+        color = rgba;
+        colorBits = toBits(rgba);
+    }
+
+    // The colour is stored as four bytes in R, G, B, A order, whatever the native byte order.
+    private static int toBits(int rgba) {
+        return LITTLE_ENDIAN ? Integer.reverseBytes(rgba) : rgba;
+    }
+
+    /**
+     * Sets the stroke width, in pixels, of subsequently added line segments.
+     *
+     * @param width     The stroke width.
+     */
+    public void setStrokeWidth(float width) {
+        strokeWidth = width;
+    }
+
+    /**
+     * Sets whether subsequently added line primitives are widened into triangles on the CPU,
+     * rather than drawn as lines of the stroke width with {@code glLineWidth}.
+     * <p>
+     * The width of extruded strokes is converted from pixels to drawing coordinates
+     * with the pixel scale of {@link LevelOfDetail}.
+     *
+     * @param extruded  Whether to extrude strokes.
+     * @see Stroker
+     */
+    public void setExtrudedStrokes(boolean extruded) {
+        if (stroking)
+            throw new IllegalStateException("The stroke mode cannot change between begin() and end().");
+        if (!extruded)
+            stroker = null;
+        else if (stroker == null)
+            stroker = new Stroker(new TriangleSink());
+    }
+
+    /**
+     * Sets the way the corners of extruded strokes are filled.
+     *
+     * @param join      The join style.
+     * @see #setExtrudedStrokes(boolean)
+     */
+    public void setStrokeJoin(Stroker.Join join) {
+        extrudedStroker().setJoin(join);
+    }
+
+    /**
+     * Sets the way the ends of open extruded strokes are finished.
+     *
+     * @param cap       The cap style.
+     * @see #setExtrudedStrokes(boolean)
+     */
+    public void setStrokeCap(Stroker.Cap cap) {
+        extrudedStroker().setCap(cap);
+    }
+
+    // Makes strokes added to this batch extrude, or not, with the same join, cap and miter limit as those of the given batch.
+    void copyStrokeSettings(GLDrawBatch source) {
+        setExtrudedStrokes(source.stroker != null);
+        if (stroker != null) {
+            stroker.setJoin(source.stroker.getJoin());
+            stroker.setCap(source.stroker.getCap());
+            stroker.setMiterLimit(source.stroker.getMiterLimit());
+        }
+    }
+
+    private Stroker extrudedStroker() {
+        if (stroker == null)
+            throw new IllegalStateException("Extruded strokes are not enabled.");
+        return stroker;
+    }
+
+    /**
+     * Returns whether line primitives are widened into triangles on the CPU.
+     *
+     * @return  Whether strokes are extruded.
+     */
+    public boolean isExtrudedStrokes() {
+        return stroker != null;
+    }
+
+    /**
+     * Returns the colour that will be given to subsequently added vertices.
+     *
+     * @return  The colour packed as {@code 0xRRGGBBAA}.
+     */
+    public int getColor() {
+        return color;
+    }
+
+    /**
+     * Returns the stroke width that will be given to subsequently added line segments.
+     *
+     * @return  The stroke width in pixels.
+     */
+    public float getStrokeWidth() {
+        return strokeWidth;
+    }
+
+    @Override
+    public void begin(int mode) {
+        if (this.mode != NO_PRIMITIVE || stroking)
+            throw new IllegalStateException("begin() was called twice without a call to end().");
+        if (stroker != null && (mode == GL_LINES || mode == GL_LINE_STRIP || mode == GL_LINE_LOOP)) {
+            stroking = true;
+            stroker.setWidth(strokeWidth / LevelOfDetail.getPixelScale());
+            stroker.begin(mode);
+            return;
+        }
+        beginTriangulated(mode);
+    }
+
+    private void beginTriangulated(int mode) {
+        switch (mode) {
+            case GL_TRIANGLES:
+            case GL_TRIANGLE_FAN:
+            case GL_TRIANGLE_STRIP:
+            case GL_QUADS:
+                startRun(GL_TRIANGLES);
+                break;
+            case GL_LINES:
+            case GL_LINE_STRIP:
+            case GL_LINE_LOOP:
+                startRun(GL_LINES);
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported primitive mode: " + mode);
+        }
+        this.mode = mode;
+        primitiveVertices = 0;
+        primitiveStart = vertexCount;
+    }
+
+    @Override
+    public void vertex(float x, float y) {
+        if (stroking) {
+            stroker.vertex(x, y);
+            return;
+        }
+        addVertex(x, y, colorBits);
+    }
+
+    /**
+     * Adds a vertex with its own colour to the current primitive, leaving the current colour unchanged.
+     * Colours are blended across each triangle or line segment.
+     *
+     * @param x         x coordinate of the vertex.
+     * @param y         y coordinate of the vertex.
+     * @param rgba      Colour of the vertex, packed as {@code 0xRRGGBBAA}.
+     */
+    public void vertex(float x, float y, int rgba) {
+        if (stroking)
+            throw new IllegalStateException("Vertices of extruded strokes cannot have their own colours.");
+        addVertex(x, y, toBits(rgba));
+    }
+
+    private void addVertex(float x, float y, int bits) {
+        int n = primitiveVertices;
+        switch (mode) {
+            case GL_TRIANGLES:
+            case GL_LINES:
+                put(x,y,bits);
+                break;
+            case GL_TRIANGLE_FAN:
+                if (n >= 2) {
+                    put(firstX,firstY,firstBits);
+                    put(prevX,prevY,prevBits);
+                    put(x,y,bits);
+                }
+                break;
+            case GL_TRIANGLE_STRIP:
+                if (n >= 2) {
+                    // Alternate the order so that every triangle keeps the winding of the strip.
+                    if (n % 2 == 0) {
+                        put(prevPrevX,prevPrevY,prevPrevBits);
+                        put(prevX,prevY,prevBits);
+                    } else {
+                        put(prevX,prevY,prevBits);
+                        put(prevPrevX,prevPrevY,prevPrevBits);
+                    }
+                    put(x,y,bits);
+                }
+                break;
+            case GL_QUADS:
+                if (n % 4 == 3) {
+                    put(firstX,firstY,firstBits);
+                    put(prevPrevX,prevPrevY,prevPrevBits);
+                    put(prevX,prevY,prevBits);
+                    put(firstX,firstY,firstBits);
+                    put(prevX,prevY,prevBits);
+                    put(x,y,bits);
+                }
+                break;
+            case GL_LINE_STRIP:
+            case GL_LINE_LOOP:
+                if (n >= 1) {
+                    put(prevX,prevY,prevBits);
+                    put(x,y,bits);
+                }
+                break;
+            default:
+                throw new IllegalStateException("vertex() was called outside of begin() and end().");
+        }
+        if (n == 0 || (mode == GL_QUADS && n % 4 == 0)) {
+            firstX = x;
+            firstY = y;
+            firstBits = bits;
+        }
+        prevPrevBits = prevBits;
+        prevBits = bits;
+        prevPrevX = prevX;
+        prevPrevY = prevY;
+        prevX = x;
+        prevY = y;
+        primitiveVertices = n + 1;
+    }
+
+    @Override
+    public void end() {
+        if (stroking) {
+            stroking = false;
+            stroker.end();
+            return;
+        }
+        switch (mode) {
+            case GL_LINE_LOOP:
+                if (primitiveVertices >= 2) {
+                    put(prevX,prevY,prevBits);
+                    put(firstX,firstY,firstBits);
+                }
+                break;
+            case GL_TRIANGLES:
+                // Drop an incomplete trailing triangle, as OpenGL would.
+                vertexCount -= (vertexCount - primitiveStart) % 3;
+                break;
+            case GL_LINES:
+                vertexCount -= (vertexCount - primitiveStart) % 2;
+                break;
+            case NO_PRIMITIVE:
+                throw new IllegalStateException("end() was called without a matching call to begin().");
+            default:
+                break;
+        }
+        mode = NO_PRIMITIVE;
+    }
+
+    // Receives the triangles of the stroker, bypassing the redirection of lines in begin().
+    private final class TriangleSink implements PrimitiveSink {
+        @Override
+        public void begin(int mode) {
+            beginTriangulated(mode);
+        }
+        @Override
+        public void vertex(float x, float y) {
+            GLDrawBatch.this.vertex(x, y);
+        }
+        @Override
+        public void end() {
+            GLDrawBatch.this.end();
+        }
+    }
+
+    private void startRun(int runMode) {
+        if (runCount > 0) {
+            int last = runCount - 1;
+            if (runModes[last] == runMode && (runMode != GL_LINES || runWidths[last] == strokeWidth))
+                return;
+            if (runFirsts[last] == vertexCount) {
+                // The last run never received any vertices, so it can simply be reused.
+                runModes[last] = runMode;
+                runWidths[last] = strokeWidth;
+                return;
+            }
+        }
+        if (runCount == runModes.length) {
+            runModes = Arrays.copyOf(runModes, runCount * 2);
+            runWidths = Arrays.copyOf(runWidths, runCount * 2);
+            runFirsts = Arrays.copyOf(runFirsts, runCount * 2);
+        }
+        runModes[runCount] = runMode;
+        runWidths[runCount] = strokeWidth;
+        runFirsts[runCount] = vertexCount;
+        runCount++;
+    }
+
+    private void put(float x, float y, int bits) {
+        int offset = vertexCount * VERTEX_SIZE;
+        if (offset + VERTEX_SIZE > vertices.capacity())
+            grow();
+        vertices.putFloat(offset, x);
+        vertices.putFloat(offset + 4, y);
+        vertices.putInt(offset + 8, bits);
+        vertexCount++;
+    }
+
+    /**
+     * Appends the contents of another batch to this one, keeping their colours, runs and stroke widths.
+     *
+     * @param other     The batch to copy from. It is left unchanged.
+     */
+    void append(GLDrawBatch other) {
+        copyInto(other, reserve(other));
+    }
+
+    /**
+     * Appends the runs of another batch to this one, and makes room for its vertices, without copying them.
+     * The vertices must then be copied with {@link #copyInto(GLDrawBatch, int)} before this batch is used.
+     *
+     * @param other     The batch whose contents will be copied.
+     * @return          The index in this batch of the first vertex of the other.
+     */
+    int reserve(GLDrawBatch other) {
+        if (mode != NO_PRIMITIVE || stroking)
+            throw new IllegalStateException("Vertices cannot be reserved between begin() and end().");
+        int first = vertexCount;
+        while ((long)(vertexCount + other.vertexCount) * VERTEX_SIZE > vertices.capacity())
+            grow();
+        float width = strokeWidth;
+        for (int i = 0; i < other.runCount; i++) {
+            int count = other.getRunVertexCount(i);
+            if (count == 0)
+                continue;
+            strokeWidth = other.runWidths[i];
+            startRun(other.runModes[i]);
+            vertexCount += count;
+        }
+        strokeWidth = width;
+        return first;
+    }
+
+    /**
+     * Copies every vertex of another batch into this one, starting at the given vertex.
+     * Copies into disjoint ranges of vertices may be made from several threads at once.
+     *
+     * @param other     The batch to copy from.
+     * @param first     The index of the vertex to copy to, as returned by {@link #reserve(GLDrawBatch)}.
+     */
+    void copyInto(GLDrawBatch other, int first) {
+        ByteBuffer source = other.vertices.duplicate();
+        source.clear();
+        source.limit(other.vertexCount * VERTEX_SIZE);
+        ByteBuffer dest = vertices.duplicate();
+        dest.clear();
+        dest.position(first * VERTEX_SIZE);
+        dest.put(source);
+    }
+
+    // The backing vertex buffer. Only the first vertexCount vertices are meaningful.
+    ByteBuffer vertexBuffer() {
+        return vertices;
+    }
+
+    private void grow() {
+        ByteBuffer larger = BufferUtils.createByteBuffer(vertices.capacity() * 2);
+        vertices.clear();
+        larger.put(vertices);
+        larger.clear();
+        vertices = larger;
+    }
+
+    /**
+     * Submits the contents of this batch to OpenGL, then empties it.
+     * <p>
+     * Afterwards, the current OpenGL colour and line width are those of this batch.
+     * This must be called on a thread with a current OpenGL context.
+     */
+    public void flush() {
+        if (mode != NO_PRIMITIVE || stroking)
+            throw new IllegalStateException("flush() was called between begin() and end().");
+        if (vertexCount > 0) {
+            glEnableClientState(GL_VERTEX_ARRAY);
+            glEnableClientState(GL_COLOR_ARRAY);
+            vertices.position(0);
+            glVertexPointer(2, GL_FLOAT, VERTEX_SIZE, vertices);
+            vertices.position(8);
+            glColorPointer(4, GL_UNSIGNED_BYTE, VERTEX_SIZE, vertices);
+            vertices.position(0);
+
+            for (int i = 0; i < runCount; i++) {
+                int count = getRunVertexCount(i);
+                if (count == 0)
+                    continue;
+                if (runModes[i] == GL_LINES)
+                    glLineWidth(runWidths[i]);
+                glDrawArrays(runModes[i], runFirsts[i], count);
+            }
+
+            glDisableClientState(GL_COLOR_ARRAY);
+            glDisableClientState(GL_VERTEX_ARRAY);
+        }
+        glColor4ub((byte)(color >>> 24), (byte)(color >>> 16), (byte)(color >>> 8), (byte)color);
+        glLineWidth(strokeWidth);
+        clear();
+    }
+
+    /**
+     * Discards the contents of this batch without drawing them.
+     * The current colour and stroke width are kept.
+     */
+    public void clear() {
+        vertexCount = 0;
+        runCount = 0;
+    }
+
+    /**
+     * Returns the number of vertices currently held by this batch.
+     *
+     * @return  The vertex count.
+     */
+    public int getVertexCount() {
+        return vertexCount;
+    }
+
+    /**
+     * Returns the x coordinate of a vertex in this batch.
+     *
+     * @param index     The index of the vertex.
+     * @return          Its x coordinate.
+     */
+    public float getVertexX(int index) {
+        return vertices.getFloat(checkVertex(index) * VERTEX_SIZE);
+    }
+
+    /**
+     * Returns the y coordinate of a vertex in this batch.
+     *
+     * @param index     The index of the vertex.
+     * @return          Its y coordinate.
+     */
+    public float getVertexY(int index) {
+        return vertices.getFloat(checkVertex(index) * VERTEX_SIZE + 4);
+    }
+
+    /**
+     * Returns the colour of a vertex in this batch.
+     *
+     * @param index     The index of the vertex.
+     * @return          Its colour packed as {@code 0xRRGGBBAA}.
+     */
+    public int getVertexColor(int index) {
+        int bits = vertices.getInt(checkVertex(index) * VERTEX_SIZE + 8);
+        return LITTLE_ENDIAN ? Integer.reverseBytes(bits) : bits;
+    }
+
+    private int checkVertex(int index) {
+        if (index < 0 || index >= vertexCount)
+            throw new IndexOutOfBoundsException("Vertex " + index + " of " + vertexCount);
+        return index;
+    }
+
+    /**
+     * Returns the number of runs in this batch. Each run is submitted with a single draw call.
+     *
+     * @return  The run count.
+     */
+    public int getRunCount() {
+        return runCount;
+    }
+
+    /**
+     * Returns the primitive mode of a run; either {@link org.lwjgl.opengl.GL11#GL_TRIANGLES}
+     * or {@link org.lwjgl.opengl.GL11#GL_LINES}.
+     *
+     * @param run       The index of the run.
+     * @return          Its primitive mode.
+     */
+    public int getRunMode(int run) {
+        return runModes[checkRun(run)];
+    }
+
+    /**
+     * Returns the stroke width of a run. This is only meaningful for runs of lines.
+     *
+     * @param run       The index of the run.
+     * @return          Its stroke width.
+     */
+    public float getRunStrokeWidth(int run) {
+        return runWidths[checkRun(run)];
+    }
+
+    /**
+     * Returns the index of the first vertex of a run.
+     *
+     * @param run       The index of the run.
+     * @return          The index of its first vertex.
+     */
+    public int getRunFirst(int run) {
+        return runFirsts[checkRun(run)];
+    }
+
+    /**
+     * Returns the number of vertices in a run.
+     *
+     * @param run       The index of the run.
+     * @return          Its vertex count.
+     */
+    public int getRunVertexCount(int run) {
+        checkRun(run);
+        int end = run + 1 < runCount ? runFirsts[run + 1] : vertexCount;
+        return end - runFirsts[run];
+    }
+
+    private int checkRun(int run) {
+        if (run < 0 || run >= runCount)
+            throw new IndexOutOfBoundsException("Run " + run + " of " + runCount);
+        return run;
+    }
+
+    /**
+     * Returns a read-only view of the vertex data of this batch, spanning
+     * {@link #getVertexCount()} * {@link #VERTEX_SIZE} bytes.
+     *
+     * @return  The vertex data.
+     */
+    public ByteBuffer getVertexData() {
+        ByteBuffer view = vertices.asReadOnlyBuffer().order(vertices.order());
+        view.clear();
+        view.limit(vertexCount * VERTEX_SIZE);
+        return view;
+    }
+
+    /**
+     * Adds a line segment.
+     *
+     * @param startX    x position of start vertex.
+     * @param startY    y position of start vertex.
+     * @param endX      x position of end vertex.
+     * @param endY      y position of end vertex.
+     * @see GLDrawHelper#line(float, float, float, float)
+     */
+    public void line(float startX, float startY, float endX, float endY) {
+        Shapes.line(this,startX,startY,endX,endY);
+    }
+
+    /**
+     * Adds a line segment stretched from its starting vertex by a given factor.
+     *
+     * @param startX    x position of start vertex.
+     * @param startY    y position of start vertex.
+     * @param endX      x position of end vertex before stretching.
+     * @param endY      y position of end vertex before stretching.
+     * @param stretch   Stretch factor.
+     * @see GLDrawHelper#line(float, float, float, float, float)
+     */
+    public void line(float startX, float startY, float endX, float endY, float stretch) {
+        Shapes.line(this,startX,startY,endX,endY,stretch);
+    }
+
+    /**
+     * Adds a line segment.
+     *
+     * @param startX    x position of start vertex.
+     * @param startY    y position of start vertex.
+     * @param angle     Angle from start vertex to end vertex (in radians). 0 = rightward, pi/2 = upward.
+     * @param length    Length of the line segment.
+     * @see GLDrawHelper#lineByAngle(float, float, float, float)
+     */
+    public void lineByAngle(float startX, float startY, float angle, float length) {
+        Shapes.lineByAngle(this,startX,startY,angle,length);
+    }
+
+    /**
+     * Adds a filled disk.
+     *
+     * @param x         Origin x coordinate.
+     * @param y         Origin y coordinate.
+     * @param radius    Disk radius.
+     * @see GLDrawHelper#disk(float, float, float)
+     */
+    public void disk(float x, float y, float radius) {
+        diskSector(x,y,radius,0,(float)Shapes.TAU);
+    }
+
+    /**
+     * Adds a sector of a filled disk.
+     *
+     * @param x                 Origin x coordinate.
+     * @param y                 Origin y coordinate.
+     * @param radius            Disk radius
+     * @param sectorStartAngle  Starting angle (in radians).
+     * @param sectorAngle       Subtended angle (in radians).
+     * @see GLDrawHelper#diskSector(float, float, float, float, float)
+     */
+    public void diskSector(float x, float y, float radius, float sectorStartAngle, float sectorAngle) {
+        ellipseFillSector(x,y,radius,radius,0,sectorStartAngle,sectorAngle);
+    }
+
+    /**
+     * Adds a circle (a hollow disk).
+     *
+     * @param x         Origin x coordinate.
+     * @param y         Origin y coordinate.
+     * @param radius    Disk radius.
+     * @see GLDrawHelper#circle(float, float, float)
+     */
+    public void circle(float x, float y, float radius) {
+        ellipse(x,y,radius,radius,0);
+    }
+
+    /**
+     * Adds a sector of a circle (hollow disk).
+     *
+     * @param x                 Origin x coordinate.
+     * @param y                 Origin y coordinate.
+     * @param radius            Disk radius
+     * @param sectorStartAngle  Starting angle (in radians).
+     * @param sectorAngle       Subtended angle (in radians).
+     * @see GLDrawHelper#circleSector(float, float, float, float, float)
+     */
+    public void circleSector(float x, float y, float radius, float sectorStartAngle, float sectorAngle) {
+        ellipseSector(x,y,radius,radius,0,sectorStartAngle,sectorAngle);
+    }
+
+    /**
+     * Adds a filled ellipse.
+     *
+     * @param x         Origin x coordinate.
+     * @param y         Origin y coordinate.
+     * @param mrad      Minor radius.
+     * @param Mrad      Major radius
+     * @param angle     Angle of rotation of the ellispe.
+     * @see GLDrawHelper#ellipseFill(float, float, float, float, float)
+     */
+    public void ellipseFill(float x, float y, float mrad, float Mrad, float angle) {
+        ellipseFillSector(x,y,mrad,Mrad,angle,0,(float)Shapes.TAU);
+    }
+
+    /**
+     * Adds a sector of a filled ellipse.
+     *
+     * @param x                     Origin x coordinate.
+     * @param y                     Origin y coordinate.
+     * @param mrad                  Minor radius.
+     * @param Mrad                  Major radius
+     * @param angle                 Angle of rotation of the ellispe.
+     * @param sectorStartAngle      Starting angle of sector (relative to ellispe rotation).
+     * @param sectorAngle           Subtended angle of sector.
+     * @see GLDrawHelper#ellipseFillSector(float, float, float, float, float, float, float)
+     */
+    public void ellipseFillSector(float x, float y, float mrad, float Mrad, float angle, float sectorStartAngle, float sectorAngle) {
+        Shapes.ellipseFillSector(this,x,y,mrad,Mrad,angle,sectorStartAngle,sectorAngle);
+    }
+
+    /**
+     * Adds the outline of an ellipse.
+     *
+     * @param x         Origin x coordinate.
+     * @param y         Origin y coordinate.
+     * @param mrad      Minor radius.
+     * @param Mrad      Major radius
+     * @param angle     Angle of rotation of the ellispe.
+     * @see GLDrawHelper#ellipse(float, float, float, float, float)
+     */
+    public void ellipse(float x, float y, float mrad, float Mrad, float angle) {
+        Shapes.ellipse(this,x,y,mrad,Mrad,angle);
+    }
+
+    /**
+     * Adds the outline of a sector of an ellipse.
+     *
+     * @param x                     Origin x coordinate.
+     * @param y                     Origin y coordinate.
+     * @param mrad                  Minor radius.
+     * @param Mrad                  Major radius
+     * @param angle                 Angle of rotation of the ellispe.
+     * @param sectorStartAngle      Starting angle of sector (relative to ellispe rotation).
+     * @param sectorAngle           Subtended angle of sector.
+     * @see GLDrawHelper#ellipseSector(float, float, float, float, float, float, float)
+     */
+    public void ellipseSector(float x, float y, float mrad, float Mrad, float angle, float sectorStartAngle, float sectorAngle) {
+        Shapes.ellipseSector(this,x,y,mrad,Mrad,angle,sectorStartAngle,sectorAngle);
+    }
+
+    /**
+     * Adds the outline of an urchin; a star with the given number of spines.
+     *
+     * @param x         Origin x coordinate.
+     * @param y         Origin y coordinate.
+     * @param sRad      Radius of the troughs between the spines.
+     * @param bRad      Radius of the tips of the spines.
+     * @param spines    Number of spines.
+     * @param angle     Angle of rotation of the urchin.
+     * @see GLDrawHelper#urchin(float, float, float, float, int, float)
+     */
+    public void urchin(float x, float y, float sRad, float bRad, int spines, float angle) {
+        Shapes.urchin(this,x,y,sRad,bRad,spines,angle);
+    }
+
+    /**
+     * Adds a filled urchin; a star with the given number of spines.
+     *
+     * @param x         Origin x coordinate.
+     * @param y         Origin y coordinate.
+     * @param sRad      Radius of the troughs between the spines.
+     * @param bRad      Radius of the tips of the spines.
+     * @param spines    Number of spines.
+     * @param angle     Angle of rotation of the urchin.
+     * @see GLDrawHelper#urchinFill(float, float, float, float, int, float)
+     */
+    public void urchinFill(float x, float y, float sRad, float bRad, int spines, float angle) {
+        Shapes.urchinFill(this,x,y,sRad,bRad,spines,angle);
+    }
+}
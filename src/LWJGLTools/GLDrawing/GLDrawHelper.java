@@ -7,33 +7,485 @@ package LWJGLTools.GLDrawing;
 
 import java.awt.Color;
 import java.nio.ByteBuffer;
-import java.nio.FloatBuffer;
-import org.lwjgl.BufferUtils;
 import static org.lwjgl.opengl.GL11.*;
-import static org.lwjgl.stb.STBEasyFont.stb_easy_font_print;
+import static org.lwjgl.opengl.GL15.GL_ARRAY_BUFFER;
+import static org.lwjgl.opengl.GL15.glBindBuffer;
 
 /**
  * A static class providing more user-friendly access to LWJGL3 drawing tools.
  * <p>
- * This class makes use of OpenGL 1.1
+ * By default, this class makes use of OpenGL 1.1. Other backends may be chosen with
+ * {@link #setRenderer(LWJGLTools.GLDrawing.GLRenderer)}.
  * 
  * @author Murdock Grewar
  */
 public class GLDrawHelper {
     
-    private static final double TAU = 2d * Math.PI;
+    private static final double TAU = Shapes.TAU;
     
-    //Number of segments per pixel size of the major axis
-    private static final float ELLIPSE_ACCURACY = 1.7f;
+    // The backend which everything is drawn through when no batch is installed.
+    private static GLRenderer renderer = new LegacyGLRenderer();
+    
+    // The batch installed by beginBatch(...), or null when drawing through the renderer.
+    private static GLDrawBatch batch = null;
+    private static PrimitiveSink sink = renderer;
+    
+    // The stroke width in pixels, and the stroker used to widen lines, or null to draw them with glLineWidth.
+    private static float strokeWidth = 1;
+    private static Stroker stroker = null;
+    
+    // The transformation applied on the CPU to every vertex drawn, and the sink which applies it.
+    private static final Transform2D transform = new Transform2D();
+    private static final Transform2D.Sink transformSink = new Transform2D.Sink(transform);
+    private static final float[] textMatrix = new float[16];
+    
+    // The rectangle, in transformed coordinates, outside of which shapes are skipped when culling is on.
+    private static boolean culling = false;
+    private static float cullLeft, cullBottom, cullRight, cullTop;
+    private static long cullTests = 0, culled = 0;
+    
+    // Geometry of recently drawn strings, or null to tessellate every string every time.
+    private static TextGeometryCache textCache = new TextGeometryCache(512, 1 << 21);
+    
+    // Lines and widths of recently laid out strings. Created on first use, as the metrics come from native code.
+    private static TextLayoutCache layoutCache = null;
+    
+    /**
+     * Sets the backend which everything is drawn through.
+     * This is typically called once, at startup, after the GL context has been created.
+     * <p>
+     * Anything held back by the previous renderer is flushed first.
+     * 
+     * @param r     The renderer to draw through.
+     * @see LegacyGLRenderer
+     * @see CoreGLRenderer
+     * @see RecordingRenderer
+     */
+    public static void setRenderer(GLRenderer r) {
+        if (r == null)
+            throw new IllegalArgumentException("The renderer must not be null.");
+        if (batch != null)
+            throw new IllegalStateException("The renderer cannot change while a batch is in progress.");
+        renderer.flush();
+        renderer = r;
+        sink = r;
+    }
+    
+    /**
+     * Returns the backend which everything is drawn through.
+     * 
+     * @return      The renderer.
+     */
+    public static GLRenderer getRenderer() {
+        return renderer;
+    }
+    
+    /**
+     * Draws anything the renderer is holding back. This should be called at the end of every frame.
+     * 
+     * @see GLRenderer#flush()
+     */
+    public static void flush() {
+        renderer.flush();
+    }
+    
+    /**
+     * Redirects every subsequent drawing call of this class into the given batch, until {@link #endBatch()} is called.
+     * <p>
+     * While a batch is installed, no OpenGL calls are made by this class; colour and stroke width
+     * changes are recorded into the batch along with the primitives.
+     * 
+     * @param b     The batch to draw into.
+     * @see GLDrawBatch
+     */
+    public static void beginBatch(GLDrawBatch b) {
+        if (batch != null)
+            throw new IllegalStateException("A batch is already in progress.");
+        batch = b;
+        sink = b;
+    }
+    
+    /**
+     * Submits the batch installed by {@link #beginBatch(LWJGLTools.GLDrawing.GLDrawBatch)} to the renderer,
+     * and returns this class to drawing through the renderer.
+     */
+    public static void endBatch() {
+        if (batch == null)
+            throw new IllegalStateException("No batch is in progress.");
+        GLDrawBatch b = batch;
+        batch = null;
+        sink = renderer;
+        renderer.submit(b);
+    }
+    
+    /**
+     * Sets whether lines and outlines are widened into triangles on the CPU,
+     * rather than drawn with {@code glLineWidth}.
+     * <p>
+     * Many drivers cap {@code glLineWidth}, and core profiles support no width but 1.
+     * Extruded strokes have no such limit, and are drawn with proper joins and caps.
+     * Their width is converted from pixels to drawing coordinates with the pixel scale of {@link LevelOfDetail}.
+     * 
+     * @param extruded  Whether to extrude strokes.
+     * @see Stroker
+     * @see #setStrokeWidth(float)
+     */
+    public static void setExtrudedStrokes(boolean extruded) {
+        if (!extruded)
+            stroker = null;
+        else if (stroker == null)
+            stroker = new Stroker(sink);
+    }
+    
+    /**
+     * Sets the way the corners of extruded strokes are filled.
+     * 
+     * @param join      The join style.
+     * @see #setExtrudedStrokes(boolean)
+     */
+    public static void setStrokeJoin(Stroker.Join join) {
+        if (stroker == null)
+            throw new IllegalStateException("Extruded strokes are not enabled.");
+        stroker.setJoin(join);
+    }
+    
+    /**
+     * Sets the way the ends of open extruded strokes are finished.
+     * 
+     * @param cap       The cap style.
+     * @see #setExtrudedStrokes(boolean)
+     */
+    public static void setStrokeCap(Stroker.Cap cap) {
+        if (stroker == null)
+            throw new IllegalStateException("Extruded strokes are not enabled.");
+        stroker.setCap(cap);
+    }
+    
+    // The sink which lines and outlines are drawn into. Strokes are widened after they are transformed.
+    private static PrimitiveSink strokeSink() {
+        PrimitiveSink target = sink;
+        if (stroker != null) {
+            stroker.setTarget(sink);
+            stroker.setWidth(strokeWidth / LevelOfDetail.getPixelScale());
+            target = stroker;
+        }
+        return transformed(target);
+    }
+    
+    // The sink which filled shapes and text are drawn into.
+    private static PrimitiveSink fillSink() {
+        return transformed(sink);
+    }
+    
+    private static PrimitiveSink transformed(PrimitiveSink target) {
+        if (transform.isIdentity())
+            return target;
+        transformSink.setTarget(target);
+        return transformSink;
+    }
+    
+    /**
+     * Saves a copy of the current transformation, to be restored by {@link #popTransform()}.
+     * <p>
+     * The transformation is applied to vertices on the CPU before they reach the renderer or batch,
+     * so primitives drawn under different transformations can still share a batch and a draw call.
+     * 
+     * @see Transform2D
+     */
+    public static void pushTransform() {
+        transform.push();
+    }
+    
+    /**
+     * Restores the transformation saved by the matching call to {@link #pushTransform()}.
+     */
+    public static void popTransform() {
+        transform.pop();
+    }
+    
+    /**
+     * Applies a translation before the current transformation.
+     * 
+     * @param x     The x translation.
+     * @param y     The y translation.
+     */
+    public static void translate(float x, float y) {
+        transform.translate(x,y);
+    }
+    
+    /**
+     * Applies a counter-clockwise rotation about the origin before the current transformation.
+     * 
+     * @param angle     The angle of rotation (in radians).
+     */
+    public static void rotate(float angle) {
+        transform.rotate(angle);
+    }
+    
+    /**
+     * Applies a scaling about the origin before the current transformation.
+     * 
+     * @param sx    The x scale factor.
+     * @param sy    The y scale factor.
+     */
+    public static void scale(float sx, float sy) {
+        transform.scale(sx,sy);
+    }
+    
+    /**
+     * Replaces the current transformation with the identity.
+     */
+    public static void resetTransform() {
+        transform.loadIdentity();
+    }
+    
+    /**
+     * Returns the transformation stack applied to everything drawn by this class.
+     * 
+     * @return      The transformation stack.
+     */
+    public static Transform2D getTransform() {
+        return transform;
+    }
+    
+    /**
+     * Turns on culling: shapes lying wholly outside of the given rectangle are skipped before they are tessellated.
+     * <p>
+     * The rectangle is in the coordinates reached after the current transformation, typically those of the visible
+     * viewport. Each shape is tested by a bounding circle or box, widened by half the stroke width for outlines,
+     * so a shape is only skipped when none of it could be seen; shapes which are partly visible are drawn whole.
+     * 
+     * @param left      The smallest visible x coordinate.
+     * @param bottom    The smallest visible y coordinate.
+     * @param right     The largest visible x coordinate.
+     * @param top       The largest visible y coordinate.
+     * @see #getCulledCount()
+     */
+    public static void setCullRect(float left, float bottom, float right, float top) {
+        culling = true;
+        cullLeft = Math.min(left, right);
+        cullRight = Math.max(left, right);
+        cullBottom = Math.min(bottom, top);
+        cullTop = Math.max(bottom, top);
+    }
+    
+    /**
+     * Turns off culling, so that every shape is tessellated and drawn. This is the default.
+     */
+    public static void disableCulling() {
+        culling = false;
+    }
+    
+    /**
+     * Returns whether shapes outside of the cull rectangle are being skipped.
+     * 
+     * @return      Whether culling is on.
+     * @see #setCullRect(float, float, float, float)
+     */
+    public static boolean isCulling() {
+        return culling;
+    }
+    
+    /**
+     * Returns the number of shapes tested against the cull rectangle since the statistics were last reset.
+     * 
+     * @return      The number of shapes tested.
+     */
+    public static long getCullTestCount() {
+        return cullTests;
+    }
+    
+    /**
+     * Returns the number of shapes skipped by culling since the statistics were last reset.
+     * 
+     * @return      The number of shapes skipped.
+     */
+    public static long getCulledCount() {
+        return culled;
+    }
+    
+    /**
+     * Resets the culling statistics. Call this once per frame to read them per frame.
+     */
+    public static void resetCullStatistics() {
+        cullTests = 0;
+        culled = 0;
+    }
+    
+    // Whether a circle about (x, y), before the transformation, is wholly outside of the cull rectangle.
+    private static boolean culled(float x, float y, float radius, boolean stroked) {
+        if (!culling)
+            return false;
+        cullTests++;
+        float cx = transform.transformX(x,y), cy = transform.transformY(x,y);
+        float r = Math.abs(radius) * transform.maxScale() + (stroked ? strokeMargin() : 0);
+        if (cx + r < cullLeft || cx - r > cullRight || cy + r < cullBottom || cy - r > cullTop) {
+            culled++;
+            return true;
+        }
+        return false;
+    }
+    
+    // Whether a box, before the transformation, is wholly outside of the cull rectangle.
+    private static boolean culled(float x0, float y0, float x1, float y1, boolean stroked) {
+        if (!culling)
+            return false;
+        cullTests++;
+        float ax = transform.transformX(x0,y0), ay = transform.transformY(x0,y0);
+        float bx = transform.transformX(x1,y0), by = transform.transformY(x1,y0);
+        float cx = transform.transformX(x0,y1), cy = transform.transformY(x0,y1);
+        float dx = transform.transformX(x1,y1), dy = transform.transformY(x1,y1);
+        float m = stroked ? strokeMargin() : 0;
+        if (Math.max(Math.max(ax,bx),Math.max(cx,dx)) + m < cullLeft
+                || Math.min(Math.min(ax,bx),Math.min(cx,dx)) - m > cullRight
+                || Math.max(Math.max(ay,by),Math.max(cy,dy)) + m < cullBottom
+                || Math.min(Math.min(ay,by),Math.min(cy,dy)) - m > cullTop) {
+            culled++;
+            return true;
+        }
+        return false;
+    }
+    
+    // Half the stroke width, in transformed coordinates.
+    private static float strokeMargin() {
+        return strokeWidth / LevelOfDetail.getPixelScale() / 2;
+    }
+    
+    /**
+     * Sets the cache used to avoid re-tessellating strings which are drawn repeatedly.
+     * <p>
+     * By default, the geometry of up to 512 strings, and up to 2 MiB of it, is cached.
+     * <p>
+     * The cache being replaced is disposed of, deleting its buffer objects. If it has drawn any strings,
+     * this must therefore be called with a current GL context.
+     * 
+     * @param cache     The cache to use, or null to tessellate every string every time it is drawn.
+     * @see TextGeometryCache
+     * @see TextGeometryCache#dispose()
+     */
+    public static void setTextCache(TextGeometryCache cache) {
+        TextGeometryCache old = textCache;
+        textCache = cache;
+        if (old != null && old != cache)
+            old.dispose();
+    }
+    
+    /**
+     * Returns the cache used to avoid re-tessellating strings which are drawn repeatedly.
+     * 
+     * @return      The cache in use, or null if there is none.
+     * @see #setTextCache(LWJGLTools.GLDrawing.TextGeometryCache)
+     */
+    public static TextGeometryCache getTextCache() {
+        return textCache;
+    }
     
     /**
      * An enum of text alignment options.
+     * <p>
+     * The first part of each name is the horizontal position of the anchor on each line: its left edge, middle or right edge.
+     * The second is the vertical position of the anchor on the whole text: the top of the first line, the middle
+     * of the text, the baseline of the first line, or the bottom of the last line.
      * 
      * @see #drawString(float, float, java.lang.String, float, LWJGLTools.GLDrawing.GLDrawHelper.TextAlignment)
      */
     public enum TextAlignment {
-        LEFT_TOP,
-        MIDDLE_TOP;
+        LEFT_TOP(0, 0),
+        MIDDLE_TOP(0.5f, 0),
+        RIGHT_TOP(1, 0),
+        LEFT_MIDDLE(0, 1),
+        MIDDLE_MIDDLE(0.5f, 1),
+        RIGHT_MIDDLE(1, 1),
+        LEFT_BASELINE(0, 2),
+        MIDDLE_BASELINE(0.5f, 2),
+        RIGHT_BASELINE(1, 2),
+        LEFT_BOTTOM(0, 3),
+        MIDDLE_BOTTOM(0.5f, 3),
+        RIGHT_BOTTOM(1, 3);
+        
+        private final float horizontal;
+        private final int vertical;
+        
+        private TextAlignment(float horizontal, int vertical) {
+            this.horizontal = horizontal;
+            this.vertical = vertical;
+        }
+        
+        /**
+         * Returns the distance from the anchor leftwards to the left edge of a line.
+         */
+        float xOffset(float lineWidth) {
+            return horizontal * lineWidth;
+        }
+        
+        /**
+         * Returns the distance from the anchor upwards to the top of the first line.
+         */
+        float yOffset(TextLayout layout) {
+            switch (vertical) {
+                case 1:
+                    return layout.getHeight() / 2f;
+                case 2:
+                    return layout.getBaseline();
+                case 3:
+                    return layout.getHeight();
+                default:
+                    return 0;
+            }
+        }
+    }
+    
+    /**
+     * Returns the cache of the layouts of strings drawn or measured by this class.
+     * It holds the layouts of up to 512 strings.
+     * 
+     * @return      The layout cache.
+     */
+    public static TextLayoutCache getTextLayoutCache() {
+        if (layoutCache == null)
+            layoutCache = new TextLayoutCache(TextMetrics.easyFont(), 512);
+        return layoutCache;
+    }
+    
+    /**
+     * Returns the width of the given text, as drawn by {@link #drawString(float, float, java.lang.String, float)}.
+     * This is the width of its longest line.
+     * <p>
+     * Measuring allocates nothing and makes no OpenGL calls.
+     * 
+     * @param text      The text, with lines separated by {@code '\n'}.
+     * @param scale     The size the text would be drawn at.
+     * @return          Its width.
+     * @see TextMetrics
+     */
+    public static float textWidth(String text, float scale) {
+        return TextMetrics.easyFont().width(text) * scale;
+    }
+    
+    /**
+     * Returns the height of the given text, as drawn by {@link #drawString(float, float, java.lang.String, float)}.
+     * This is its number of lines times the line height.
+     * 
+     * @param text      The text, with lines separated by {@code '\n'}.
+     * @param scale     The size the text would be drawn at.
+     * @return          Its height.
+     */
+    public static float textHeight(String text, float scale) {
+        return TextMetrics.easyFont().height(text) * scale;
+    }
+    
+    /**
+     * Breaks the given text into lines no wider than the given width, as drawn at the given scale.
+     * Layouts are cached, so laying out the same string to the same width again allocates nothing.
+     * 
+     * @param text      The text.
+     * @param scale     The size the text would be drawn at.
+     * @param maxWidth  The greatest width of a line, or {@link Float#POSITIVE_INFINITY} not to wrap.
+     * @return          The layout, measured in font units; multiply by the scale for drawing units.
+     * @see #getTextLayoutCache()
+     */
+    public static TextLayout layoutText(String text, float scale, float maxWidth) {
+        return getTextLayoutCache().get(text, maxWidth / scale);
     }
     
     /**
@@ -45,7 +497,7 @@ public class GLDrawHelper {
      * @param scale     The size of the text to be drawn. Each character has a width approximately 5 times this quantity.
      */
     public static void drawString(float x, float y, String text, float scale) {
-        drawString(x,y,text,scale,TextAlignment.LEFT_TOP);
+        drawLine(x,y,text,scale);
     }
     
     /**
@@ -60,41 +512,90 @@ public class GLDrawHelper {
      * @param scale     The size of the text to be drawn. Each character has a width approximately 5 times this quantity.
      * @param alignment The text alignment option.
      */
-    public static void drawString(float x, float y, String text, float scale, TextAlignment alignment) {	
-        
+    public static void drawString(float x, float y, String text, float scale, TextAlignment alignment) {
+        if (alignment == TextAlignment.LEFT_TOP)
+            drawLine(x,y,text,scale);
+        else
+            drawString(x,y,text,scale,alignment,Float.POSITIVE_INFINITY);
+    }
+    
+    /**
+     * Draws the given string wrapped to the given width, with the specified {@link GLDrawHelper.TextAlignment} option.
+     * <p>
+     * Each line is aligned on its own, so that, for instance, the lines of {@link TextAlignment#MIDDLE_TOP} text are centred.
+     * 
+     * @param x         x coordinate of the text.
+     * @param y         y coordinate of the text.
+     * @param text      The String representing the text to be drawn.
+     * @param scale     The size of the text to be drawn.
+     * @param alignment The text alignment option.
+     * @param maxWidth  The greatest width of a line, or {@link Float#POSITIVE_INFINITY} not to wrap.
+     * @see #layoutText(java.lang.String, float, float)
+     */
+    public static void drawString(float x, float y, String text, float scale, TextAlignment alignment, float maxWidth) {
+        TextLayout layout = layoutText(text, scale, maxWidth);
+        float top = y + alignment.yOffset(layout) * scale;
+        if (layout.getLineCount() == 1 && layout.getLineEnd(0) == text.length()) {
+            // Draw the whole string, so that its geometry is cached under the string itself.
+            drawLine(x - alignment.xOffset(layout.getLineWidth(0)) * scale, top, text, scale);
+            return;
+        }
+        for (int i = 0; i < layout.getLineCount(); i++) {
+            if (layout.getLineStart(i) == layout.getLineEnd(i))
+                continue;
+            float left = x - alignment.xOffset(layout.getLineWidth(i)) * scale;
+            // The lines of a cached layout are the same strings every frame, so their geometry is cached too.
+            drawLine(left, top - i * layout.getLineHeight() * scale, layout.getLine(i), scale);
+        }
+    }
+    
+    // Draws text with its top-left corner at (x, y).
+    private static void drawLine(float x, float y, String text, float scale) {
+        if (culling) {
+            TextMetrics metrics = TextMetrics.easyFont();
+            if (culled(x, y, x + metrics.width(text)*scale, y - metrics.height(text)*scale, false))
+                return;
+        }
+        ByteBuffer vertices;
+        int stride, vertexCount;
+        TextGeometryCache.Entry cached = (textCache == null) ? null : textCache.get(text);
+        if (cached != null) {
+            vertices = cached.vertices;
+            stride = 8;
+            vertexCount = cached.vertexCount;
+        } else {
+            TextArena arena = TextArena.get();
+            vertexCount = arena.print(text) * 4;
+            vertices = arena.buffer();
+            stride = 16;
+        }
         
-        int xoffset;
-        switch (alignment) {
-            case LEFT_TOP:
-                xoffset = 0;
-                break;
-            case MIDDLE_TOP:
-                xoffset = Math.round(text.length()*scale*5/2);
-                break;
-            default:
-                xoffset = 0;
+        // Only strings already uploaded to a buffer object are left for OpenGL to transform;
+        // anything else is transformed on the CPU, so that it can be merged with everything around it.
+        int vbo = (cached != null && sink instanceof LegacyGLRenderer) ? textCache.bufferObject(cached) : 0;
+        if (vbo == 0) {
+            Shapes.textQuads(fillSink(), vertices, stride, vertexCount, x, y, scale);
+            return;
         }
         
+        // Close any primitive the renderer is holding open before touching the matrices.
+        renderer.flush();
+        
         // For some reason, 'EasyFont' will draw the text reflected in the y axis.
         
         glPushMatrix();
-            glTranslatef(x-xoffset,y,0);
-            FloatBuffer fb = BufferUtils.createFloatBuffer(16);
-            BufferUtils.zeroBuffer(fb);
-            fb.put(0,scale);
-            fb.put(5,-scale);
-            fb.put(10,1);
-            fb.put(15,1);
-            glMultMatrixf(fb);
-
-            //270 bytes per character is the recommended amount. It is not enough.
-            //ByteBuffer charBuffer = BufferUtils.createByteBuffer(text.length() * 270);
-            ByteBuffer charBuffer = BufferUtils.createByteBuffer(text.length() * 540);
-            int quads = stb_easy_font_print(0, 0, text, null, charBuffer);
+            if (!transform.isIdentity()) {
+                transform.get4x4(textMatrix);
+                glMultMatrixf(textMatrix);
+            }
+            glTranslatef(x,y,0);
+            glScalef(scale,-scale,1);
 
             glEnableClientState(GL_VERTEX_ARRAY);
-            glVertexPointer(2, GL_FLOAT, 16, charBuffer);
-            glDrawArrays(GL_QUADS, 0, quads*4);
+            glBindBuffer(GL_ARRAY_BUFFER, vbo);
+            glVertexPointer(2, GL_FLOAT, stride, 0L);
+            glDrawArrays(GL_QUADS, 0, vertexCount);
+            glBindBuffer(GL_ARRAY_BUFFER, 0);
             glDisableClientState(GL_VERTEX_ARRAY);
         glPopMatrix();
     }
@@ -106,7 +607,10 @@ public class GLDrawHelper {
      * @param blue      Blue component, from 0 to 1.
      */
     public static void setColor(float red, float green, float blue) {
-        glColor3f(red,green,blue);
+        if (batch != null)
+            batch.setColor(red,green,blue);
+        else
+            renderer.setColor(red,green,blue,1);
     }
     
     /**
@@ -118,7 +622,10 @@ public class GLDrawHelper {
      * @param alpha      Alpha value, from 0 to 1.
      */
     public static void setColor(float red, float green, float blue, float alpha) {
-        glColor4f(red,green,blue,alpha);
+        if (batch != null)
+            batch.setColor(red,green,blue,alpha);
+        else
+            renderer.setColor(red,green,blue,alpha);
     }
     
     /**
@@ -127,7 +634,26 @@ public class GLDrawHelper {
      * @param c     The drawing colour.
      */
     public static void setColor(Color c) {
-        glColor4f(c.getRed()/255f,c.getGreen()/255f,c.getBlue()/255f,c.getAlpha()/255f);
+        if (batch != null)
+            batch.setColor(c);
+        else
+            renderer.setColorRGBA(PackedColor.fromARGB(c.getRGB()));
+    }
+    
+    /**
+     * Sets the drawing colour by a packed colour.
+     * <p>
+     * Unlike {@link #setColor(java.awt.Color)}, this needs no object to be allocated, and does not load AWT.
+     * 
+     * @param rgba  The drawing colour, packed as {@code 0xRRGGBBAA}.
+     * @see PackedColor
+     * @see Palette
+     */
+    public static void setColorRGBA(int rgba) {
+        if (batch != null)
+            batch.setColorRGBA(rgba);
+        else
+            renderer.setColorRGBA(rgba);
     }
     
     /**
@@ -136,9 +662,14 @@ public class GLDrawHelper {
      * Note that this stroke width does not affect drawing functions which fill regions;
      * it only affects those functions which produce line segments.
      * @param width 
+     * @see #setExtrudedStrokes(boolean)
      */
     public static void setStrokeWidth(float width) {
-        glLineWidth(width);
+        strokeWidth = width;
+        if (batch != null)
+            batch.setStrokeWidth(width);
+        else
+            renderer.setLineWidth(width);
     }
     
     /**
@@ -150,10 +681,9 @@ public class GLDrawHelper {
      * @param endY      y position of end vertex.
      */
     public static void line(float startX, float startY, float endX, float endY) {
-        glBegin(GL_LINES);
-            glVertex2f(startX,startY);
-            glVertex2f(endX,endY);
-        glEnd();
+        if (culled(startX,startY,endX,endY,true))
+            return;
+        Shapes.line(strokeSink(),startX,startY,endX,endY);
     }
     /**
      * Draw a line segment stretched from its starting vertex by a given factor.
@@ -165,9 +695,9 @@ public class GLDrawHelper {
      * @param stretch   Stretch factor.
      */
     public static void line(float startX, float startY, float endX, float endY, float stretch) {
-        float aendX = (endX - startX)*stretch + startX;
-        float aendY = (endY - startY)*stretch + startY;
-        line(startX,startY,aendX,aendY);
+        if (culled(startX,startY,startX+(endX-startX)*stretch,startY+(endY-startY)*stretch,true))
+            return;
+        Shapes.line(strokeSink(),startX,startY,endX,endY,stretch);
     }
     /**
      * Draw a line segment.
@@ -178,9 +708,9 @@ public class GLDrawHelper {
      * @param length    Length of the line segment.
      */
     public static void lineByAngle(float startX, float startY, float angle, float length) {
-        float endX = length*(float)Math.cos(angle) + startX;
-        float endY = length*(float)Math.sin(angle) + startY;
-        line(startX,startY,endX,endY);
+        if (culled(startX,startY,Math.abs(length),true))
+            return;
+        Shapes.lineByAngle(strokeSink(),startX,startY,angle,length);
     }
     
     /**
@@ -273,102 +803,29 @@ public class GLDrawHelper {
      * @param sectorAngle           Subtended angle of sector.
      */
     public static void ellipseFillSector(float x, float y, float mrad, float Mrad, float angle, float sectorStartAngle, float sectorAngle) {
-       
-        int sliceCount = (int)Math.ceil(ELLIPSE_ACCURACY*Mrad*Math.abs(sectorAngle)/TAU);
-        float cache,relX,relY;
-
-        glBegin(GL_TRIANGLE_FAN);
-            glVertex2f(x, y); // center of circle
-            for(int i = 0; i <= sliceCount ; i++) { 
-                cache = (float)(Mrad*Math.cos(i * sectorAngle / sliceCount + sectorStartAngle));
-                relY = (float)(mrad*Math.sin(i * sectorAngle / sliceCount + sectorStartAngle));
-                relX = (float)((Math.cos(-angle)*cache) + (Math.sin(-angle)*relY));
-                relY = (float)((-Math.sin(-angle)*cache) + (Math.cos(-angle)*relY));
-                
-                glVertex2f(
-                    x + relX,
-                    y + relY
-                );
-            }
-        glEnd();
+        if (culled(x,y,Math.max(Math.abs(mrad),Math.abs(Mrad)),false))
+            return;
+        Shapes.ellipseFillSector(fillSink(),x,y,mrad,Mrad,angle,sectorStartAngle,sectorAngle);
     }
     public static void ellipse(float x, float y, float mrad, float Mrad, float angle) {
-       
-        int sliceCount = (int)Math.ceil(ELLIPSE_ACCURACY*Mrad);
-        float cache,relX,relY;
-
-        glBegin(GL_LINE_LOOP);
-            for(int i = 0; i <= sliceCount ; i++) { 
-                cache = (float)(Mrad*Math.cos(i * TAU / sliceCount));
-                relY = (float)(mrad*Math.sin(i * TAU / sliceCount));
-                relX = (float)((Math.cos(-angle)*cache) + (Math.sin(-angle)*relY));
-                relY = (float)((-Math.sin(-angle)*cache) + (Math.cos(-angle)*relY));
-                
-                glVertex2f(
-                    x + relX,
-                    y + relY
-                );
-            }
-        glEnd();
+        if (culled(x,y,Math.max(Math.abs(mrad),Math.abs(Mrad)),true))
+            return;
+        Shapes.ellipse(strokeSink(),x,y,mrad,Mrad,angle);
     }
     public static void ellipseSector(float x, float y, float mrad, float Mrad, float angle, float sectorStartAngle, float sectorAngle) {
-        int sliceCount = (int)Math.ceil(ELLIPSE_ACCURACY*Mrad*Math.abs(sectorAngle)/TAU);
-        float cache,relX,relY;
-
-        glBegin(GL_LINE_STRIP);
-            for(int i = 0; i <= sliceCount ; i++) { 
-                cache = (float)(Mrad*Math.cos(i * sectorAngle / sliceCount + sectorStartAngle));
-                relY = (float)(mrad*Math.sin(i * sectorAngle / sliceCount + sectorStartAngle));
-                relX = (float)((Math.cos(-angle)*cache) + (Math.sin(-angle)*relY));
-                relY = (float)((-Math.sin(-angle)*cache) + (Math.cos(-angle)*relY));
-                
-                glVertex2f(
-                    x + relX,
-                    y + relY
-                );
-            }
-        glEnd();
+        if (culled(x,y,Math.max(Math.abs(mrad),Math.abs(Mrad)),true))
+            return;
+        Shapes.ellipseSector(strokeSink(),x,y,mrad,Mrad,angle,sectorStartAngle,sectorAngle);
     }
     public static void urchin(float x, float y, float sRad, float bRad, int spines, float angle) {
-        
-        int sliceCount = spines*2;
-        float cache,relX,relY;
-
-        glBegin(GL_LINE_LOOP);
-            for(int i = 0; i <= sliceCount ; i++) {
-                float rad = ((bRad - sRad)*(i % 2)) + sRad;
-                cache = rad *(float)Math.cos(i * TAU / sliceCount);
-                relY =  rad *(float)Math.sin(i * TAU / sliceCount);
-                relX =  (float)((Math.cos(-angle)*cache) + (Math.sin(-angle)*relY));
-                relY =  (float)((-Math.sin(-angle)*cache) + (Math.cos(-angle)*relY));
-                
-                glVertex2f(
-                    x + relX,
-                    y + relY
-                );
-            }
-        glEnd();
+        if (culled(x,y,Math.max(Math.abs(sRad),Math.abs(bRad)),true))
+            return;
+        Shapes.urchin(strokeSink(),x,y,sRad,bRad,spines,angle);
     }
     public static void urchinFill(float x, float y, float sRad, float bRad, int spines, float angle) {
-       
-        int sliceCount = spines*2;
-        float cache,relX,relY;
-
-        glBegin(GL_TRIANGLE_FAN);
-            glVertex2f(x, y); // center of circle
-            for(int i = 0; i <= sliceCount ; i++) { 
-                float rad = ((bRad - sRad)*(i % 2)) + sRad;
-                cache = rad *(float)Math.cos(i * TAU / sliceCount);
-                relY =  rad *(float)Math.sin(i * TAU / sliceCount);
-                relX =  (float)((Math.cos(-angle)*cache) + (Math.sin(-angle)*relY));
-                relY =  (float)((-Math.sin(-angle)*cache) + (Math.cos(-angle)*relY));
-                
-                glVertex2f(
-                    x + relX,
-                    y + relY
-                );
-            }
-        glEnd();
+        if (culled(x,y,Math.max(Math.abs(sRad),Math.abs(bRad)),false))
+            return;
+        Shapes.urchinFill(fillSink(),x,y,sRad,bRad,spines,angle);
     }
     
 }
@@ -0,0 +1,72 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package LWJGLTools.GLDrawing;
+
+/**
+ * A backend through which {@link GLDrawHelper} submits what it draws.
+ * <p>
+ * A renderer receives primitives through the {@link PrimitiveSink} methods, along with the
+ * colour and line width to draw them with. It may draw each primitive as it arrives, or hold
+ * them back until {@link #flush()} is called. Whole batches are submitted with {@link #submit(GLDrawBatch)}.
+ * <p>
+ * Four renderers are provided:
+ * <ul>
+ * <li>{@link LegacyGLRenderer}, which draws with OpenGL 1.1 immediate mode, and is the default;
+ * <li>{@link CoreGLRenderer}, which draws with vertex array objects, streamed vertex buffers
+ *     and a small shader, and needs only an OpenGL 3.3 core profile;
+ * <li>{@link RecordingRenderer}, which makes no OpenGL calls at all, and keeps what it
+ *     receives for inspection;
+ * <li>{@link SoftwareRenderer}, which makes no OpenGL calls either, and rasterises what it
+ *     receives into an image in memory.
+ * </ul>
+ *
+ * @author Murdock Grewar
+ * @see GLDrawHelper#setRenderer(LWJGLTools.GLDrawing.GLRenderer)
+ */
+public interface GLRenderer extends PrimitiveSink {
+
+    /**
+     * Sets the colour of subsequent primitives by the RGBA components.
+     *
+     * @param red       Red component, from 0 to 1.
+     * @param green     Green component, from 0 to 1.
+     * @param blue      Blue component, from 0 to 1.
+     * @param alpha     Alpha value, from 0 to 1.
+     */
+    void setColor(float red, float green, float blue, float alpha);
+
+    /**
+     * Sets the colour of subsequent primitives.
+     *
+     * @param rgba      The colour packed as {@code 0xRRGGBBAA}.
+     * @see PackedColor
+     */
+    void setColorRGBA(int rgba);
+
+    /**
+     * Sets the width, in pixels, of subsequent line primitives.
+     *
+     * @param width     The line width.
+     */
+    void setLineWidth(float width);
+
+    /**
+     * Draws the contents of a batch, then empties it.
+     *
+     * @param batch     The batch to draw.
+     */
+    void submit(GLDrawBatch batch);
+
+    /**
+     * Draws any primitives which are being held back.
+     */
+    void flush();
+
+    /**
+     * Releases any OpenGL objects held by this renderer.
+     */
+    void dispose();
+}
@@ -0,0 +1,314 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package LWJGLTools.GLDrawing;
+
+import java.nio.ByteBuffer;
+import org.lwjgl.BufferUtils;
+import static org.lwjgl.opengl.GL11.*;
+import static org.lwjgl.stb.STBEasyFont.stb_easy_font_width;
+
+/**
+ * A bitmap font whose glyphs are packed into a single texture, so that each character
+ * can be drawn as one textured quad of four vertices.
+ * <p>
+ * The glyphs of a contiguous range of characters occupy equal cells of a grid, left to right and then
+ * top to bottom. Each glyph has its own advance, the distance from its left edge to that of the next
+ * character. There is no kerning. {@link #fromEasyFont()} rasterises the printable ASCII characters of
+ * stb_easy_font, the font used by {@link GLDrawHelper#drawString(float, float, java.lang.String, float)};
+ * any other bitmap font may be supplied as an alpha bitmap to the constructor.
+ * <p>
+ * Laying text out into quads with {@link #layout(CharSequence, float, float, float, float[], int)} needs
+ * neither a GL context nor native code, and the texture is only uploaded on the first call to {@link #texture()}.
+ *
+ * @author Murdock Grewar
+ * @see GlyphTextRenderer
+ */
+public final class GlyphAtlas {
+
+    // The characters of stb_easy_font, its line height, and the cell each glyph is rasterised into.
+    private static final int EASY_FIRST = 32, EASY_COUNT = 95;
+    private static final int EASY_LINE_HEIGHT = 12;
+    private static final int EASY_CELL_WIDTH = 8, EASY_CELL_HEIGHT = 14;
+    private static final int EASY_COLUMNS = 16;
+
+    private final int firstChar;
+    private final int[] advances;
+    private final int cellWidth, cellHeight, lineHeight;
+    private final int columns;
+    private final int width, height;
+    // One byte of coverage per texel, rows from the top down.
+    private final byte[] alpha;
+    private final int fallback;
+    // Glyphs with no coverage at all, such as the space, which advance without producing a quad.
+    private final boolean[] blank;
+
+    private int texture = 0;
+
+    /**
+     * Returns a new atlas of a supplied bitmap font.
+     * <p>
+     * The glyph of character {@code firstChar + i} occupies the cell in column {@code i % (width / cellWidth)}
+     * and row {@code i / (width / cellWidth)} of the bitmap, with its top-left corner at the top-left of the cell.
+     * Characters outside of the range are drawn as a question mark, if there is one, and otherwise as nothing.
+     *
+     * @param firstChar     The first character of the font.
+     * @param advances      The advance of each character, in texels.
+     * @param cellWidth     The width of each cell, in texels.
+     * @param cellHeight    The height of each cell, in texels.
+     * @param lineHeight    The distance between the tops of consecutive lines, in texels.
+     * @param alpha         The coverage of each texel, from 0 to 255, row by row from the top.
+     * @param width         The width of the bitmap, in texels.
+     * @param height        The height of the bitmap, in texels.
+     */
+    public GlyphAtlas(int firstChar, int[] advances, int cellWidth, int cellHeight, int lineHeight,
+            byte[] alpha, int width, int height) {
+        if (cellWidth < 1 || cellHeight < 1 || width < cellWidth || height < cellHeight)
+            throw new IllegalArgumentException("The cells must be non-empty and fit within the bitmap.");
+        int columns = width / cellWidth;
+        if (advances.length > columns * (height / cellHeight))
+            throw new IllegalArgumentException("The bitmap has no room for " + advances.length + " glyphs.");
+        if (alpha.length < width * height)
+            throw new IllegalArgumentException("The bitmap holds fewer than " + width + "*" + height + " texels.");
+        this.firstChar = firstChar;
+        this.advances = advances.clone();
+        this.cellWidth = cellWidth;
+        this.cellHeight = cellHeight;
+        this.lineHeight = lineHeight;
+        this.columns = columns;
+        this.alpha = alpha.clone();
+        this.width = width;
+        this.height = height;
+        int question = '?' - firstChar;
+        this.fallback = (question >= 0 && question < advances.length) ? question : -1;
+        this.blank = new boolean[advances.length];
+        for (int g = 0; g < advances.length; g++)
+            blank[g] = isBlank(g);
+    }
+
+    private boolean isBlank(int g) {
+        int cellX = (g % columns) * cellWidth, cellY = (g / columns) * cellHeight;
+        for (int y = cellY; y < cellY + cellHeight; y++) {
+            for (int x = cellX; x < cellX + cellWidth; x++) {
+                if (alpha[y * width + x] != 0)
+                    return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns a new atlas of the printable ASCII characters of stb_easy_font, rasterised at one texel per unit.
+     * <p>
+     * Text laid out with this atlas matches that drawn by {@link GLDrawHelper#drawString(float, float, java.lang.String, float)}
+     * at the same position and scale. This needs the native STB library, but no GL context.
+     *
+     * @return  The atlas.
+     */
+    public static GlyphAtlas fromEasyFont() {
+        int rows = (EASY_COUNT + EASY_COLUMNS - 1) / EASY_COLUMNS;
+        int width = EASY_COLUMNS * EASY_CELL_WIDTH;
+        int height = Integer.highestOneBit(rows * EASY_CELL_HEIGHT - 1) << 1;
+        byte[] alpha = new byte[width * height];
+        int[] advances = new int[EASY_COUNT];
+
+        TextArena arena = TextArena.get();
+        for (int i = 0; i < EASY_COUNT; i++) {
+            String c = String.valueOf((char)(EASY_FIRST + i));
+            advances[i] = stb_easy_font_width(c);
+            int cellX = (i % EASY_COLUMNS) * EASY_CELL_WIDTH, cellY = (i / EASY_COLUMNS) * EASY_CELL_HEIGHT;
+
+            // Every quad of stb_easy_font is an axis-aligned rectangle on whole units.
+            int quads = arena.print(c);
+            ByteBuffer v = arena.buffer();
+            for (int q = 0; q < quads; q++) {
+                int o = q * TextArena.BYTES_PER_QUAD;
+                int x0 = Math.round(Math.min(v.getFloat(o), v.getFloat(o + 32)));
+                int x1 = Math.round(Math.max(v.getFloat(o), v.getFloat(o + 32)));
+                int y0 = Math.round(Math.min(v.getFloat(o + 4), v.getFloat(o + 36)));
+                int y1 = Math.round(Math.max(v.getFloat(o + 4), v.getFloat(o + 36)));
+                for (int y = Math.max(y0, 0); y < Math.min(y1, EASY_CELL_HEIGHT); y++) {
+                    for (int x = Math.max(x0, 0); x < Math.min(x1, EASY_CELL_WIDTH); x++)
+                        alpha[(cellY + y) * width + cellX + x] = (byte)0xFF;
+                }
+            }
+        }
+        return new GlyphAtlas(EASY_FIRST, advances, EASY_CELL_WIDTH, EASY_CELL_HEIGHT, EASY_LINE_HEIGHT,
+                alpha, width, height);
+    }
+
+    // The glyph index of a character, or -1 if it has none.
+    private int glyph(char c) {
+        int i = c - firstChar;
+        return (i >= 0 && i < advances.length) ? i : fallback;
+    }
+
+    /**
+     * Returns the number of quads that laying out the given text will produce.
+     * Line breaks and blank glyphs, such as spaces, produce no quad.
+     *
+     * @param text      The text.
+     * @return          The number of quads.
+     */
+    public int countQuads(CharSequence text) {
+        int count = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\n')
+                continue;
+            int g = glyph(c);
+            if (g != -1 && !blank[g])
+                count++;
+        }
+        return count;
+    }
+
+    /**
+     * Lays out the given text into textured quads, with its top-left corner at (x, y).
+     * As with {@link GLDrawHelper#drawString(float, float, java.lang.String, float)}, lines run downwards,
+     * towards decreasing y.
+     * <p>
+     * Each quad is written as four vertices of four floats: x, y, and the texture coordinates u and v.
+     * The vertices run from the top-left corner of the glyph, down, across, and back up.
+     *
+     * @param text      The text.
+     * @param x         x coordinate of the top-left corner of the text.
+     * @param y         y coordinate of the top-left corner of the text.
+     * @param scale     The number of drawing units per texel.
+     * @param out       The array to write to, with room for {@code 16 * countQuads(text)} floats.
+     * @param offset    The index of the first float to write.
+     * @return          The number of quads written.
+     */
+    public int layout(CharSequence text, float x, float y, float scale, float[] out, int offset) {
+        float penX = x, penY = y;
+        float quadWidth = cellWidth * scale, quadHeight = cellHeight * scale;
+        int quads = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\n') {
+                penX = x;
+                penY -= lineHeight * scale;
+                continue;
+            }
+            int g = glyph(c);
+            if (g == -1)
+                continue;
+            if (blank[g]) {
+                penX += advances[g] * scale;
+                continue;
+            }
+            float u0 = (g % columns) * cellWidth / (float)width, v0 = (g / columns) * cellHeight / (float)height;
+            float u1 = u0 + cellWidth / (float)width, v1 = v0 + cellHeight / (float)height;
+            float left = penX, right = penX + quadWidth, top = penY, bottom = penY - quadHeight;
+            int o = offset + quads * 16;
+            out[o]    = left;  out[o+1]  = top;    out[o+2]  = u0; out[o+3]  = v0;
+            out[o+4]  = left;  out[o+5]  = bottom; out[o+6]  = u0; out[o+7]  = v1;
+            out[o+8]  = right; out[o+9]  = bottom; out[o+10] = u1; out[o+11] = v1;
+            out[o+12] = right; out[o+13] = top;    out[o+14] = u1; out[o+15] = v0;
+            quads++;
+            penX += advances[g] * scale;
+        }
+        return quads;
+    }
+
+    /**
+     * Returns the width of the longest line of the given text, in texels.
+     *
+     * @param text      The text.
+     * @return          Its width.
+     */
+    public int width(CharSequence text) {
+        int longest = 0, current = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\n') {
+                current = 0;
+                continue;
+            }
+            int g = glyph(c);
+            if (g != -1)
+                current += advances[g];
+            longest = Math.max(longest, current);
+        }
+        return longest;
+    }
+
+    /**
+     * Returns the distance between the tops of consecutive lines, in texels.
+     *
+     * @return  The line height.
+     */
+    public int getLineHeight() {
+        return lineHeight;
+    }
+
+    /**
+     * Returns the coverage of a texel of the atlas.
+     *
+     * @param x     The column of the texel.
+     * @param y     The row of the texel, from the top.
+     * @return      Its coverage, from 0 to 255.
+     */
+    public int getAlpha(int x, int y) {
+        return alpha[y * width + x] & 0xFF;
+    }
+
+    /**
+     * Returns the width of the atlas, in texels.
+     *
+     * @return  The width.
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Returns the height of the atlas, in texels.
+     *
+     * @return  The height.
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Returns the texture holding the atlas, uploading it first if necessary.
+     * The texture is white, with the coverage of each texel as its alpha, and is sampled without filtering.
+     * Must be called with a current GL context.
+     *
+     * @return  The texture.
+     */
+    public int texture() {
+        if (texture == 0) {
+            ByteBuffer texels = BufferUtils.createByteBuffer(width * height * 4);
+            for (int i = 0; i < width * height; i++) {
+                texels.put(i * 4, (byte)0xFF);
+                texels.put(i * 4 + 1, (byte)0xFF);
+                texels.put(i * 4 + 2, (byte)0xFF);
+                texels.put(i * 4 + 3, alpha[i]);
+            }
+
+            texture = glGenTextures();
+            glBindTexture(GL_TEXTURE_2D, texture);
+            glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MIN_FILTER, GL_NEAREST);
+            glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MAG_FILTER, GL_NEAREST);
+            glPixelStorei(GL_UNPACK_ALIGNMENT, 4);
+            glTexImage2D(GL_TEXTURE_2D, 0, GL_RGBA8, width, height, 0, GL_RGBA, GL_UNSIGNED_BYTE, texels);
+            glBindTexture(GL_TEXTURE_2D, 0);
+        }
+        return texture;
+    }
+
+    /**
+     * Deletes the texture of this atlas, if it has been uploaded.
+     * It will be uploaded again if needed.
+     */
+    public void dispose() {
+        if (texture != 0) {
+            glDeleteTextures(texture);
+            texture = 0;
+        }
+    }
+}
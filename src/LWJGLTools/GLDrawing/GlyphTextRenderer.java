@@ -0,0 +1,193 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package LWJGLTools.GLDrawing;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import org.lwjgl.BufferUtils;
+import static org.lwjgl.opengl.GL11.*;
+
+/**
+ * Draws text as one textured quad per character, using the glyphs of a {@link GlyphAtlas}.
+ * <p>
+ * Strings are collected as they are drawn, and everything collected is drawn in a single
+ * {@code glDrawArrays} call when {@link #flush()} is called, typically once per frame. Each character
+ * takes four vertices, where {@link GLDrawHelper#drawString(float, float, java.lang.String, float)}
+ * takes four for every segment of the character. Each vertex holds its position, texture coordinates
+ * and colour, so strings of many colours share the call.
+ * <p>
+ * Collecting strings needs no GL context, and the collected vertices may be inspected with
+ * {@link #getVertexData()}. Drawing uses OpenGL 1.1 vertex arrays, and is transformed by the current
+ * fixed-function matrices.
+ *
+ * @author Murdock Grewar
+ * @see GlyphAtlas
+ */
+public final class GlyphTextRenderer {
+
+    /**
+     * The number of bytes occupied by a single vertex: x, y, u and v as floats, then an RGBA colour.
+     */
+    public static final int VERTEX_SIZE = 20;
+
+    private static final boolean LITTLE_ENDIAN = ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN;
+
+    private final GlyphAtlas atlas;
+    private ByteBuffer vertices;
+    private int vertexCount;
+    private float[] layout = new float[16 * 64];
+
+    private int colorBits = 0xFFFFFFFF;
+
+    /**
+     * Returns a new renderer drawing with the glyphs of the given atlas.
+     *
+     * @param atlas     The atlas to draw with.
+     */
+    public GlyphTextRenderer(GlyphAtlas atlas) {
+        this.atlas = atlas;
+        this.vertices = BufferUtils.createByteBuffer(1024 * VERTEX_SIZE);
+    }
+
+    /**
+     * Returns the atlas this renderer draws with.
+     *
+     * @return  The atlas.
+     */
+    public GlyphAtlas getAtlas() {
+        return atlas;
+    }
+
+    /**
+     * Sets the colour of subsequently drawn strings.
+     *
+     * @param rgba      The colour packed as {@code 0xRRGGBBAA}.
+     * @see PackedColor
+     */
+    public void setColorRGBA(int rgba) {
+        colorBits = LITTLE_ENDIAN ? Integer.reverseBytes(rgba) : rgba;
+    }
+
+    /**
+     * Collects the given string, with its top-left corner at (x, y), to be drawn on the next {@link #flush()}.
+     *
+     * @param x         x coordinate of the top-left corner of the text.
+     * @param y         y coordinate of the top-left corner of the text.
+     * @param text      The text to be drawn.
+     * @param scale     The size of the text, in drawing units per texel of the atlas.
+     */
+    public void drawString(float x, float y, CharSequence text, float scale) {
+        int quads = atlas.countQuads(text);
+        if (quads == 0)
+            return;
+        if (layout.length < quads * 16)
+            layout = new float[Integer.highestOneBit(quads * 16) << 1];
+        atlas.layout(text, x, y, scale, layout, 0);
+
+        int needed = (vertexCount + quads * 4) * VERTEX_SIZE;
+        if (needed > vertices.capacity())
+            grow(needed);
+        int offset = vertexCount * VERTEX_SIZE;
+        for (int i = 0; i < quads * 16; i += 4) {
+            vertices.putFloat(offset, layout[i]);
+            vertices.putFloat(offset + 4, layout[i + 1]);
+            vertices.putFloat(offset + 8, layout[i + 2]);
+            vertices.putFloat(offset + 12, layout[i + 3]);
+            vertices.putInt(offset + 16, colorBits);
+            offset += VERTEX_SIZE;
+        }
+        vertexCount += quads * 4;
+    }
+
+    private void grow(int needed) {
+        int capacity = vertices.capacity();
+        while (capacity < needed)
+            capacity *= 2;
+        ByteBuffer larger = BufferUtils.createByteBuffer(capacity);
+        vertices.clear();
+        vertices.limit(vertexCount * VERTEX_SIZE);
+        larger.put(vertices);
+        larger.clear();
+        vertices = larger;
+    }
+
+    /**
+     * Returns the number of vertices collected since the last flush.
+     *
+     * @return  The vertex count, four for each quad.
+     */
+    public int getVertexCount() {
+        return vertexCount;
+    }
+
+    /**
+     * Returns a read-only view of the vertices collected since the last flush,
+     * {@link #VERTEX_SIZE} bytes each, in native byte order.
+     *
+     * @return  The vertex data.
+     */
+    public ByteBuffer getVertexData() {
+        ByteBuffer data = vertices.duplicate();
+        data.clear();
+        data.limit(vertexCount * VERTEX_SIZE);
+        return data.slice().asReadOnlyBuffer().order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * Draws every string collected since the last flush, then discards them.
+     * <p>
+     * Blending and texturing are enabled for the draw, and restored afterwards, as is the current OpenGL colour.
+     * This must be called on a thread with a current OpenGL context.
+     */
+    public void flush() {
+        if (vertexCount == 0)
+            return;
+        int texture = atlas.texture();
+
+        // The colour array leaves the current colour undefined, so it is saved with GL_CURRENT_BIT.
+        glPushAttrib(GL_CURRENT_BIT | GL_ENABLE_BIT | GL_COLOR_BUFFER_BIT | GL_TEXTURE_BIT);
+            glEnable(GL_TEXTURE_2D);
+            glBindTexture(GL_TEXTURE_2D, texture);
+            glTexEnvi(GL_TEXTURE_ENV, GL_TEXTURE_ENV_MODE, GL_MODULATE);
+            glEnable(GL_BLEND);
+            glBlendFunc(GL_SRC_ALPHA, GL_ONE_MINUS_SRC_ALPHA);
+
+            glEnableClientState(GL_VERTEX_ARRAY);
+            glEnableClientState(GL_TEXTURE_COORD_ARRAY);
+            glEnableClientState(GL_COLOR_ARRAY);
+            vertices.position(0);
+            glVertexPointer(2, GL_FLOAT, VERTEX_SIZE, vertices);
+            vertices.position(8);
+            glTexCoordPointer(2, GL_FLOAT, VERTEX_SIZE, vertices);
+            vertices.position(16);
+            glColorPointer(4, GL_UNSIGNED_BYTE, VERTEX_SIZE, vertices);
+            vertices.position(0);
+
+            glDrawArrays(GL_QUADS, 0, vertexCount);
+
+            glDisableClientState(GL_COLOR_ARRAY);
+            glDisableClientState(GL_TEXTURE_COORD_ARRAY);
+            glDisableClientState(GL_VERTEX_ARRAY);
+        glPopAttrib();
+        clear();
+    }
+
+    /**
+     * Discards every string collected since the last flush without drawing them.
+     */
+    public void clear() {
+        vertexCount = 0;
+    }
+
+    /**
+     * Discards anything collected, and deletes the texture of the atlas.
+     * Must be called with a current GL context if anything has been drawn.
+     */
+    public void dispose() {
+        clear();
+        atlas.dispose();
+    }
+}
@@ -0,0 +1,272 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package LWJGLTools.GLDrawing;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import org.lwjgl.BufferUtils;
+import org.lwjgl.opengl.GL;
+import org.lwjgl.opengl.GLCapabilities;
+import static org.lwjgl.opengl.GL11.*;
+import static org.lwjgl.opengl.GL15.*;
+import static org.lwjgl.opengl.GL20.*;
+import static org.lwjgl.opengl.GL31.glDrawArraysInstanced;
+import static org.lwjgl.opengl.GL32.GL_CONTEXT_CORE_PROFILE_BIT;
+import static org.lwjgl.opengl.GL32.GL_CONTEXT_PROFILE_MASK;
+import static org.lwjgl.opengl.GL33.glVertexAttribDivisor;
+
+/**
+ * Draws many copies of one {@link StaticShape}, each with its own position, rotation,
+ * scale and colour, in a single instanced draw call.
+ * <p>
+ * The instances are described by packed primitive data. The transforms are given as
+ * {@link #TRANSFORM_STRIDE} floats per instance: x, y, angle (in radians) and scale.
+ * The colours are given as one int per instance, packed as {@code 0xRRGGBBAA}.
+ * Both may be supplied either as arrays or as buffers, and neither is copied into objects.
+ * <p>
+ * Instancing needs OpenGL 3.3. On older contexts, the instances are transformed on the CPU
+ * into a {@link GLDrawBatch} instead, which is then submitted to the renderer of {@link GLDrawHelper}.
+ * The instanced path relies on the fixed-function matrices, and so is only taken with a compatibility profile;
+ * core profiles also use the batch, as does any context whose driver fails to build the shader program.
+ * On a core profile, the renderer must therefore be a {@link CoreGLRenderer}.
+ *
+ * @author Murdock Grewar
+ * @see StaticShape
+ */
+public final class InstancedShapeRenderer {
+
+    /**
+     * The number of floats describing the transform of each instance.
+     */
+    public static final int TRANSFORM_STRIDE = 4;
+
+    // x, y, angle and scale as floats, followed by four bytes of colour.
+    private static final int INSTANCE_SIZE = 20;
+
+    private static final boolean LITTLE_ENDIAN = ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN;
+
+    private static final String VERTEX_SHADER =
+            "#version 120\n" +
+            "attribute vec2 position;\n" +
+            "attribute vec4 transform;\n" +
+            "attribute vec4 color;\n" +
+            "varying vec4 fragColor;\n" +
+            "void main() {\n" +
+            "    float c = cos(transform.z) * transform.w;\n" +
+            "    float s = sin(transform.z) * transform.w;\n" +
+            "    vec2 p = vec2(c*position.x - s*position.y, s*position.x + c*position.y) + transform.xy;\n" +
+            "    gl_Position = gl_ModelViewProjectionMatrix * vec4(p, 0.0, 1.0);\n" +
+            "    fragColor = color;\n" +
+            "}\n";
+
+    private static final String FRAGMENT_SHADER =
+            "#version 120\n" +
+            "varying vec4 fragColor;\n" +
+            "void main() {\n" +
+            "    gl_FragColor = fragColor;\n" +
+            "}\n";
+
+    private static final int POSITION = 0, TRANSFORM = 1, COLOR = 2;
+
+    private ByteBuffer instances = BufferUtils.createByteBuffer(1024 * INSTANCE_SIZE);
+    private int program = 0;
+    private int instanceBuffer = 0;
+    private boolean programFailed = false;
+    private GLDrawBatch fallback = null;
+
+    /**
+     * Returns whether the current GL context supports the instanced path.
+     * Must be called with a current GL context.
+     *
+     * @return  Whether instances will be drawn with a single draw call.
+     */
+    public static boolean isInstancingSupported() {
+        GLCapabilities caps = GL.getCapabilities();
+        if (!caps.OpenGL33 || caps.forwardCompatible)
+            return false;
+        // A core profile need not be forward-compatible, but still lacks the built-in matrices the shader reads.
+        return (glGetInteger(GL_CONTEXT_PROFILE_MASK) & GL_CONTEXT_CORE_PROFILE_BIT) == 0;
+    }
+
+    /**
+     * Draws {@code count} instances of the given shape.
+     *
+     * @param shape         The shape to draw.
+     * @param transforms    x, y, angle and scale of each instance, {@link #TRANSFORM_STRIDE} floats apart.
+     * @param colors        Colour of each instance, packed as {@code 0xRRGGBBAA}.
+     * @param count         The number of instances.
+     */
+    public void draw(StaticShape shape, float[] transforms, int[] colors, int count) {
+        if (transforms.length < count * TRANSFORM_STRIDE || colors.length < count)
+            throw new IndexOutOfBoundsException("Fewer than " + count + " instances were supplied.");
+        if (!isInstancingSupported() || !buildProgram()) {
+            drawFallback(shape, transforms, colors, count);
+            return;
+        }
+        ByteBuffer packed = reserve(count);
+        for (int i = 0; i < count; i++) {
+            int offset = i * INSTANCE_SIZE;
+            int t = i * TRANSFORM_STRIDE;
+            packed.putFloat(offset, transforms[t]);
+            packed.putFloat(offset + 4, transforms[t + 1]);
+            packed.putFloat(offset + 8, transforms[t + 2]);
+            packed.putFloat(offset + 12, transforms[t + 3]);
+            packed.putInt(offset + 16, colorBits(colors[i]));
+        }
+        drawInstanced(shape, count);
+    }
+
+    /**
+     * Draws {@code count} instances of the given shape, read from the positions of the given buffers.
+     * The positions of the buffers are not changed.
+     *
+     * @param shape         The shape to draw.
+     * @param transforms    x, y, angle and scale of each instance, {@link #TRANSFORM_STRIDE} floats apart.
+     * @param colors        Colour of each instance, packed as {@code 0xRRGGBBAA}.
+     * @param count         The number of instances.
+     */
+    public void draw(StaticShape shape, FloatBuffer transforms, IntBuffer colors, int count) {
+        if (transforms.remaining() < count * TRANSFORM_STRIDE || colors.remaining() < count)
+            throw new IndexOutOfBoundsException("Fewer than " + count + " instances were supplied.");
+        if (!isInstancingSupported() || !buildProgram()) {
+            drawFallback(shape, transforms, colors, count);
+            return;
+        }
+        int tBase = transforms.position(), cBase = colors.position();
+        ByteBuffer packed = reserve(count);
+        for (int i = 0; i < count; i++) {
+            int offset = i * INSTANCE_SIZE;
+            int t = tBase + i * TRANSFORM_STRIDE;
+            packed.putFloat(offset, transforms.get(t));
+            packed.putFloat(offset + 4, transforms.get(t + 1));
+            packed.putFloat(offset + 8, transforms.get(t + 2));
+            packed.putFloat(offset + 12, transforms.get(t + 3));
+            packed.putInt(offset + 16, colorBits(colors.get(cBase + i)));
+        }
+        drawInstanced(shape, count);
+    }
+
+    /**
+     * Transforms {@code count} instances of the given shape on the CPU and adds them to a batch.
+     * This is the path taken on contexts without instancing, and makes no OpenGL calls.
+     * <p>
+     * The colour of the batch is left at that of the last instance.
+     *
+     * @param batch         The batch to add the instances to.
+     * @param shape         The shape to draw.
+     * @param transforms    x, y, angle and scale of each instance, {@link #TRANSFORM_STRIDE} floats apart.
+     * @param colors        Colour of each instance, packed as {@code 0xRRGGBBAA}.
+     * @param count         The number of instances.
+     */
+    public static void addTo(GLDrawBatch batch, StaticShape shape, float[] transforms, int[] colors, int count) {
+        for (int i = 0; i < count; i++) {
+            int t = i * TRANSFORM_STRIDE;
+            batch.setColorRGBA(colors[i]);
+            shape.draw(batch, transforms[t], transforms[t + 1], transforms[t + 2], transforms[t + 3]);
+        }
+    }
+
+    private void drawFallback(StaticShape shape, float[] transforms, int[] colors, int count) {
+        GLDrawBatch batch = fallbackBatch();
+        addTo(batch, shape, transforms, colors, count);
+        GLDrawHelper.getRenderer().submit(batch);
+    }
+
+    private void drawFallback(StaticShape shape, FloatBuffer transforms, IntBuffer colors, int count) {
+        GLDrawBatch batch = fallbackBatch();
+        int tBase = transforms.position(), cBase = colors.position();
+        for (int i = 0; i < count; i++) {
+            int t = tBase + i * TRANSFORM_STRIDE;
+            batch.setColorRGBA(colors.get(cBase + i));
+            shape.draw(batch, transforms.get(t), transforms.get(t + 1), transforms.get(t + 2), transforms.get(t + 3));
+        }
+        GLDrawHelper.getRenderer().submit(batch);
+    }
+
+    private GLDrawBatch fallbackBatch() {
+        if (fallback == null)
+            fallback = new GLDrawBatch();
+        return fallback;
+    }
+
+    private ByteBuffer reserve(int count) {
+        if (instances.capacity() < count * INSTANCE_SIZE)
+            instances = BufferUtils.createByteBuffer(Math.max(count * INSTANCE_SIZE, instances.capacity() * 2));
+        instances.clear();
+        instances.limit(count * INSTANCE_SIZE);
+        return instances;
+    }
+
+    private static int colorBits(int rgba) {
+        // The colour is uploaded as four bytes in R, G, B, A order, whatever the native byte order.
+        return LITTLE_ENDIAN ? Integer.reverseBytes(rgba) : rgba;
+    }
+
+    // Links the program the first time it is needed. Returns false, now and for good, if the driver rejects it.
+    private boolean buildProgram() {
+        if (program != 0)
+            return true;
+        if (programFailed)
+            return false;
+        try {
+            program = ShaderPrograms.link(VERTEX_SHADER, FRAGMENT_SHADER, "position", "transform", "color");
+        } catch (IllegalStateException e) {
+            programFailed = true;
+            return false;
+        }
+        instanceBuffer = glGenBuffers();
+        return true;
+    }
+
+    private void drawInstanced(StaticShape shape, int count) {
+        if (count == 0)
+            return;
+
+        glUseProgram(program);
+
+        glBindBuffer(GL_ARRAY_BUFFER, shape.bufferObject());
+        glEnableVertexAttribArray(POSITION);
+        glVertexAttribPointer(POSITION, 2, GL_FLOAT, false, 8, 0L);
+
+        // Orphan the previous contents, so that the driver need not wait for the last draw to finish with them.
+        glBindBuffer(GL_ARRAY_BUFFER, instanceBuffer);
+        glBufferData(GL_ARRAY_BUFFER, count * INSTANCE_SIZE, GL_STREAM_DRAW);
+        glBufferSubData(GL_ARRAY_BUFFER, 0, instances);
+        glEnableVertexAttribArray(TRANSFORM);
+        glVertexAttribPointer(TRANSFORM, 4, GL_FLOAT, false, INSTANCE_SIZE, 0L);
+        glVertexAttribDivisor(TRANSFORM, 1);
+        glEnableVertexAttribArray(COLOR);
+        glVertexAttribPointer(COLOR, 4, GL_UNSIGNED_BYTE, true, INSTANCE_SIZE, 16L);
+        glVertexAttribDivisor(COLOR, 1);
+
+        glDrawArraysInstanced(shape.getMode(), 0, shape.getVertexCount(), count);
+
+        glVertexAttribDivisor(TRANSFORM, 0);
+        glVertexAttribDivisor(COLOR, 0);
+        glDisableVertexAttribArray(POSITION);
+        glDisableVertexAttribArray(TRANSFORM);
+        glDisableVertexAttribArray(COLOR);
+        glBindBuffer(GL_ARRAY_BUFFER, 0);
+        glUseProgram(0);
+    }
+
+    /**
+     * Deletes the shader program and buffers held by this renderer.
+     * Must be called with a current GL context if anything has been drawn.
+     */
+    public void dispose() {
+        if (program != 0) {
+            glDeleteProgram(program);
+            glDeleteBuffers(instanceBuffer);
+            program = 0;
+            instanceBuffer = 0;
+        }
+        programFailed = false;
+        fallback = null;
+    }
+}
@@ -0,0 +1,207 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package LWJGLTools.GLDrawing;
+
+import static org.lwjgl.opengl.GL11.*;
+
+/**
+ * A renderer which draws every primitive as it arrives with OpenGL 1.1 immediate mode,
+ * using the fixed-function matrices for its transformations.
+ * <p>
+ * This is the default renderer of {@link GLDrawHelper}. It needs a compatibility profile.
+ * <p>
+ * Optionally, the colour and line width last sent to OpenGL may be remembered, and calls which would not change
+ * them dropped, with {@link #setElideState(boolean)}. If anything else then changes the current colour or line width,
+ * {@link #invalidateState()} must be called before drawing through this renderer again.
+ * <p>
+ * Optionally, consecutive primitives of independent lines, triangles or quads may be merged into a single
+ * {@code glBegin}/{@code glEnd} pair, with {@link #setMergePrimitives(boolean)}. The final {@code glEnd} is then
+ * deferred, so {@link #flush()} (or {@link GLDrawHelper#flush()}) must be called before making any other
+ * OpenGL call.
+ * <p>
+ * The number of calls avoided in each way is counted, to help judge the benefit.
+ *
+ * @author Murdock Grewar
+ */
+public final class LegacyGLRenderer implements GLRenderer {
+
+    private static final int NO_PRIMITIVE = -1;
+
+    private boolean elideState = false;
+    private boolean colorKnown = false;
+    private int color;
+    private float lineWidth = Float.NaN;
+
+    private boolean mergePrimitives = false;
+    // The primitive begun but not yet ended in OpenGL, or NO_PRIMITIVE.
+    private int openMode = NO_PRIMITIVE;
+
+    private long elidedColors = 0, elidedLineWidths = 0, mergedPrimitives = 0;
+
+    /**
+     * Sets whether consecutive primitives of independent lines, triangles or quads are merged
+     * into a single {@code glBegin}/{@code glEnd} pair. This is off by default.
+     *
+     * @param merge     Whether to merge primitives.
+     */
+    public void setMergePrimitives(boolean merge) {
+        if (!merge)
+            close();
+        mergePrimitives = merge;
+    }
+
+    /**
+     * Sets whether colour and line width changes which would not change the OpenGL state are dropped.
+     * This is off by default, since any raw {@code glColor} or {@code glLineWidth} call made alongside this
+     * renderer must then be followed by {@link #invalidateState()}.
+     *
+     * @param elide     Whether to drop redundant state changes.
+     */
+    public void setElideState(boolean elide) {
+        elideState = elide;
+        invalidateState();
+    }
+
+    /**
+     * Returns whether colour and line width changes which would not change the OpenGL state are dropped.
+     *
+     * @return  Whether redundant state changes are dropped.
+     */
+    public boolean isElidingState() {
+        return elideState;
+    }
+
+    /**
+     * Forgets the colour and line width last sent to OpenGL, so that the next of each is sent regardless.
+     * This must be called whenever anything other than this renderer changes either of them.
+     */
+    public void invalidateState() {
+        colorKnown = false;
+        lineWidth = Float.NaN;
+    }
+
+    @Override
+    public void begin(int mode) {
+        if (openMode != NO_PRIMITIVE) {
+            if (openMode == mode) {
+                mergedPrimitives++;
+                return;
+            }
+            glEnd();
+        }
+        glBegin(mode);
+        openMode = mode;
+    }
+
+    @Override
+    public void vertex(float x, float y) {
+        glVertex2f(x, y);
+    }
+
+    @Override
+    public void end() {
+        if (mergePrimitives && isMergeable(openMode))
+            return;
+        glEnd();
+        openMode = NO_PRIMITIVE;
+    }
+
+    // Only independent primitives are unaffected by the vertices around them.
+    private static boolean isMergeable(int mode) {
+        return mode == GL_LINES || mode == GL_TRIANGLES || mode == GL_QUADS;
+    }
+
+    private void close() {
+        if (openMode != NO_PRIMITIVE) {
+            glEnd();
+            openMode = NO_PRIMITIVE;
+        }
+    }
+
+    @Override
+    public void setColor(float red, float green, float blue, float alpha) {
+        setColorRGBA(PackedColor.rgba(red, green, blue, alpha));
+    }
+
+    @Override
+    public void setColorRGBA(int rgba) {
+        if (elideState && colorKnown && rgba == color) {
+            elidedColors++;
+            return;
+        }
+        // The colour may change between glBegin() and glEnd(), so an open primitive is left open.
+        glColor4ub((byte)(rgba >>> 24), (byte)(rgba >>> 16), (byte)(rgba >>> 8), (byte)rgba);
+        color = rgba;
+        colorKnown = true;
+    }
+
+    @Override
+    public void setLineWidth(float width) {
+        if (elideState && width == lineWidth) {
+            elidedLineWidths++;
+            return;
+        }
+        close();
+        glLineWidth(width);
+        lineWidth = width;
+    }
+
+    @Override
+    public void submit(GLDrawBatch batch) {
+        close();
+        batch.flush();
+        // The batch leaves its own colour and stroke width current.
+        color = batch.getColor();
+        colorKnown = true;
+        lineWidth = batch.getStrokeWidth();
+    }
+
+    @Override
+    public void flush() {
+        close();
+    }
+
+    @Override
+    public void dispose() {
+        close();
+    }
+
+    /**
+     * Returns the number of colour changes dropped because they would not have changed the colour.
+     *
+     * @return  The elided colour change count.
+     */
+    public long getElidedColorCount() {
+        return elidedColors;
+    }
+
+    /**
+     * Returns the number of line width changes dropped because they would not have changed the line width.
+     *
+     * @return  The elided line width change count.
+     */
+    public long getElidedLineWidthCount() {
+        return elidedLineWidths;
+    }
+
+    /**
+     * Returns the number of primitives merged into the one before, saving a {@code glBegin}/{@code glEnd} pair each.
+     *
+     * @return  The merged primitive count.
+     */
+    public long getMergedPrimitiveCount() {
+        return mergedPrimitives;
+    }
+
+    /**
+     * Resets every counter to zero.
+     */
+    public void resetStatistics() {
+        elidedColors = 0;
+        elidedLineWidths = 0;
+        mergedPrimitives = 0;
+    }
+}
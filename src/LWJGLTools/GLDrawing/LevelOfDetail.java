@@ -0,0 +1,243 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package LWJGLTools.GLDrawing;
+
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import org.lwjgl.BufferUtils;
+import static org.lwjgl.opengl.GL11.*;
+
+/**
+ * A static class controlling how finely the curved primitives of {@link GLDrawHelper} are tessellated.
+ * <p>
+ * In the {@link Mode#FIXED} mode, which is the default, an ellipse receives a fixed number of segments
+ * per unit of its major radius, regardless of how large it appears on the screen.
+ * <p>
+ * In the {@link Mode#ADAPTIVE} mode, the number of segments is instead derived from the size the
+ * ellipse will have on the screen, so that no segment strays from the true curve by more than a
+ * given number of pixels. The size on screen is found from the `pixel scale': the number of pixels
+ * spanned by one unit of drawing coordinates. It may be set directly with {@link #setPixelScale(float)},
+ * or measured from the current OpenGL matrices and viewport with {@link #capturePixelScale()},
+ * typically once per frame after the projection has been set up.
+ *
+ * @author Murdock Grewar
+ */
+public final class LevelOfDetail {
+
+    /**
+     * An enum of tessellation modes.
+     */
+    public enum Mode {
+        FIXED,
+        ADAPTIVE;
+    }
+
+    private static final double TAU = 2d * Math.PI;
+
+    //Number of segments per pixel size of the major axis
+    static final float ELLIPSE_ACCURACY = 1.7f;
+
+    private static volatile Mode mode = Mode.FIXED;
+    private static volatile float maxChordError = 0.5f;
+    private static volatile int minSlices = 8;
+    private static volatile int maxSlices = 4096;
+    private static volatile float pixelScale = 1;
+
+    private static final FloatBuffer modelview = BufferUtils.createFloatBuffer(16);
+    private static final FloatBuffer projection = BufferUtils.createFloatBuffer(16);
+    private static final IntBuffer viewport = BufferUtils.createIntBuffer(16);
+
+    private LevelOfDetail() {
+    }
+
+    /**
+     * Switches to the {@link Mode#FIXED} mode, in which an ellipse receives 1.7 segments per unit of its major radius.
+     */
+    public static void setFixed() {
+        mode = Mode.FIXED;
+    }
+
+    /**
+     * Switches to the {@link Mode#ADAPTIVE} mode.
+     * <p>
+     * The segment counts are given for a whole turn; a sector receives its share of them.
+     *
+     * @param maxChordError     The furthest, in pixels, that a segment may stray from the true curve.
+     * @param minSlices         The least number of segments a whole ellipse may be divided into.
+     * @param maxSlices         The greatest number of segments a whole ellipse may be divided into.
+     */
+    public static void setAdaptive(float maxChordError, int minSlices, int maxSlices) {
+        if (!(maxChordError > 0))
+            throw new IllegalArgumentException("The chord error must be positive.");
+        if (minSlices < 3 || maxSlices < minSlices)
+            throw new IllegalArgumentException("Need 3 <= minSlices <= maxSlices.");
+        LevelOfDetail.maxChordError = maxChordError;
+        LevelOfDetail.minSlices = minSlices;
+        LevelOfDetail.maxSlices = maxSlices;
+        mode = Mode.ADAPTIVE;
+    }
+
+    /**
+     * Returns the current tessellation mode.
+     *
+     * @return  The mode.
+     */
+    public static Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * Returns the number of pixels spanned by one unit of drawing coordinates, as used by the adaptive mode.
+     *
+     * @return  The pixel scale.
+     */
+    public static float getPixelScale() {
+        return pixelScale;
+    }
+
+    /**
+     * Sets the number of pixels spanned by one unit of drawing coordinates, as used by the adaptive mode.
+     *
+     * @param pixelsPerUnit     The pixel scale.
+     */
+    public static void setPixelScale(float pixelsPerUnit) {
+        if (!(pixelsPerUnit > 0))
+            throw new IllegalArgumentException("The pixel scale must be positive.");
+        pixelScale = pixelsPerUnit;
+    }
+
+    /**
+     * Measures the pixel scale from the current modelview matrix, projection matrix and viewport.
+     * <p>
+     * Where the transformation stretches one direction more than another, the larger stretch is used.
+     * The projection is assumed to be orthographic, as it is for 2D drawing.
+     * This must be called on a thread with a current OpenGL context.
+     *
+     * @return  The measured pixel scale.
+     */
+    public static float capturePixelScale() {
+        synchronized (viewport) {
+            glGetFloatv(GL_MODELVIEW_MATRIX, modelview);
+            glGetFloatv(GL_PROJECTION_MATRIX, projection);
+            glGetIntegerv(GL_VIEWPORT, viewport);
+
+            // The 2x2 linear part of projection * modelview, in column-major order, then scaled to pixels.
+            float halfWidth = viewport.get(2) / 2f, halfHeight = viewport.get(3) / 2f;
+            float a = halfWidth  * (projection.get(0)*modelview.get(0) + projection.get(4)*modelview.get(1));
+            float b = halfWidth  * (projection.get(0)*modelview.get(4) + projection.get(4)*modelview.get(5));
+            float c = halfHeight * (projection.get(1)*modelview.get(0) + projection.get(5)*modelview.get(1));
+            float d = halfHeight * (projection.get(1)*modelview.get(4) + projection.get(5)*modelview.get(5));
+
+            float scale = largestStretch(a, b, c, d);
+            if (scale > 0)
+                pixelScale = scale;
+            return pixelScale;
+        }
+    }
+
+    // The largest singular value of the matrix [a b; c d].
+    static float largestStretch(float a, float b, float c, float d) {
+        double s1 = a*a + b*b + c*c + d*d;
+        double det = a*d - b*c;
+        double disc = Math.sqrt(Math.max(0, s1*s1 - 4*det*det));
+        return (float)Math.sqrt((s1 + disc) / 2);
+    }
+
+    /**
+     * Returns the furthest, in drawing coordinates, that a segment of a curve with the given
+     * largest radius may stray from the curve.
+     * <p>
+     * In the fixed mode, this is the error made by the segments of a circle of that radius.
+     *
+     * @param radius    The largest radius of the curve, in drawing coordinates.
+     * @return          The chord error.
+     */
+    static double chordError(float radius) {
+        return chordError(radius, 1);
+    }
+
+    /**
+     * Returns the chord error for a curve which is stretched by a further CPU transformation
+     * before the OpenGL matrices apply. The adaptive mode accounts for the stretch; the fixed mode does not.
+     *
+     * @param radius    The largest radius of the curve, in drawing coordinates before the stretch.
+     * @param scale     The largest stretch of the transformation.
+     * @return          The chord error, in drawing coordinates before the stretch.
+     */
+    static double chordError(float radius, float scale) {
+        if (mode == Mode.FIXED) {
+            int perTurn = sliceCount(radius, (float)TAU);
+            return Math.abs(radius) * (1 - Math.cos(Math.PI / Math.max(perTurn, 3)));
+        }
+        return maxChordError / (pixelScale * scale);
+    }
+
+    /**
+     * Returns the greatest number of segments a whole curve may be divided into.
+     */
+    static int maxSlices() {
+        return maxSlices;
+    }
+
+    /**
+     * Returns the number of segments to divide an arc of a circle into.
+     *
+     * @param radius    Radius of the circle, in drawing coordinates.
+     * @param sweep     Angle subtended by the arc.
+     * @return          The number of segments, at least 1.
+     */
+    static int sliceCount(float radius, float sweep) {
+        return sliceCount(radius, sweep, 1);
+    }
+
+    /**
+     * Returns the number of segments to divide an arc of a circle into, where the circle is stretched
+     * by a further CPU transformation before the OpenGL matrices apply.
+     * The adaptive mode accounts for the stretch; the fixed mode does not.
+     *
+     * @param radius    Radius of the circle, in drawing coordinates before the stretch.
+     * @param sweep     Angle subtended by the arc.
+     * @param scale     The largest stretch of the transformation.
+     * @return          The number of segments, at least 1.
+     */
+    static int sliceCount(float radius, float sweep, float scale) {
+        double turns = Math.abs(sweep) / TAU;
+        boolean wholeTurn = turns > 0.999 && turns < 1.001;
+        if (mode == Mode.FIXED) {
+            // The same float arithmetic as ever, so that a whole turn given as (float)TAU is not rounded up.
+            double segments = wholeTurn ? ELLIPSE_ACCURACY*radius : ELLIPSE_ACCURACY*radius*Math.abs(sweep)/TAU;
+            return Math.max((int)Math.ceil(segments), 1);
+        }
+
+        double radiusPixels = Math.abs(radius) * pixelScale * scale;
+        double error = maxChordError;
+        double perTurn;
+        if (radiusPixels <= error) {
+            perTurn = minSlices;
+        } else {
+            // A chord spanning an angle t strays from its arc by r(1 - cos(t/2)).
+            perTurn = TAU / (2 * Math.acos(1 - error / radiusPixels));
+            perTurn = Math.max(minSlices, Math.min(maxSlices, perTurn));
+        }
+        int slices = Math.max((int)Math.ceil(wholeTurn ? perTurn : perTurn * turns), 1);
+        // Rounding up never takes a whole turn below minSlices, but may take it past maxSlices.
+        return wholeTurn ? Math.min(quantise(slices), maxSlices) : slices;
+    }
+
+    /**
+     * Rounds the slice count of a whole turn above 8 up to the next of 12, 16, 24, 32, 48, ..., that is to
+     * a power of two or one and a half times one. This adds at most half as many segments again, and keeps
+     * the number of distinct unit circle tables to two per doubling of the radius.
+     * Counts of 8 or fewer are returned as they are.
+     */
+    static int quantise(int slices) {
+        if (slices <= 8)
+            return slices;
+        int power = Integer.highestOneBit(slices - 1) << 1;
+        int threeQuarters = power - (power >> 2);
+        return slices <= threeQuarters ? threeQuarters : power;
+    }
+}
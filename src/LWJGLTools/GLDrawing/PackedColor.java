@@ -0,0 +1,157 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package LWJGLTools.GLDrawing;
+
+/**
+ * A static class for colours packed into a single int as {@code 0xRRGGBBAA}.
+ * <p>
+ * Packed colours are what {@link GLDrawBatch} stores with every vertex, and can be passed to
+ * {@link GLDrawHelper#setColorRGBA(int)} and friends without allocating anything or loading AWT.
+ * Frequently used colours are best packed once, for instance into a {@link Palette}.
+ *
+ * @author Murdock Grewar
+ */
+public final class PackedColor {
+
+    /**
+     * Opaque white.
+     */
+    public static final int WHITE = 0xFFFFFFFF;
+
+    /**
+     * Opaque black.
+     */
+    public static final int BLACK = 0x000000FF;
+
+    /**
+     * Fully transparent black.
+     */
+    public static final int TRANSPARENT = 0x00000000;
+
+    private PackedColor() {
+    }
+
+    /**
+     * Packs a colour from its RGBA components.
+     *
+     * @param red       Red component, from 0 to 255.
+     * @param green     Green component, from 0 to 255.
+     * @param blue      Blue component, from 0 to 255.
+     * @param alpha     Alpha value, from 0 to 255.
+     * @return          The colour packed as {@code 0xRRGGBBAA}.
+     */
+    public static int rgba(int red, int green, int blue, int alpha) {
+        return (red & 0xFF) << 24 | (green & 0xFF) << 16 | (blue & 0xFF) << 8 | (alpha & 0xFF);
+    }
+
+    /**
+     * Packs an opaque colour from its RGB components.
+     *
+     * @param red       Red component, from 0 to 255.
+     * @param green     Green component, from 0 to 255.
+     * @param blue      Blue component, from 0 to 255.
+     * @return          The colour packed as {@code 0xRRGGBBAA}.
+     */
+    public static int rgb(int red, int green, int blue) {
+        return rgba(red, green, blue, 0xFF);
+    }
+
+    /**
+     * Packs a colour from its RGBA components. Components outside of [0, 1] are clamped.
+     *
+     * @param red       Red component, from 0 to 1.
+     * @param green     Green component, from 0 to 1.
+     * @param blue      Blue component, from 0 to 1.
+     * @param alpha     Alpha value, from 0 to 1.
+     * @return          The colour packed as {@code 0xRRGGBBAA}.
+     */
+    public static int rgba(float red, float green, float blue, float alpha) {
+        return toByte(red) << 24 | toByte(green) << 16 | toByte(blue) << 8 | toByte(alpha);
+    }
+
+    private static int toByte(float component) {
+        return Math.round(Math.max(0, Math.min(1, component)) * 255);
+    }
+
+    /**
+     * Converts a colour packed as {@code 0xAARRGGBB}, as used by {@link java.awt.Color#getRGB()}.
+     *
+     * @param argb      The colour packed as {@code 0xAARRGGBB}.
+     * @return          The colour packed as {@code 0xRRGGBBAA}.
+     */
+    public static int fromARGB(int argb) {
+        return argb << 8 | argb >>> 24;
+    }
+
+    /**
+     * Returns the red component of a packed colour.
+     *
+     * @param rgba      The colour packed as {@code 0xRRGGBBAA}.
+     * @return          The red component, from 0 to 255.
+     */
+    public static int red(int rgba) {
+        return rgba >>> 24;
+    }
+
+    /**
+     * Returns the green component of a packed colour.
+     *
+     * @param rgba      The colour packed as {@code 0xRRGGBBAA}.
+     * @return          The green component, from 0 to 255.
+     */
+    public static int green(int rgba) {
+        return rgba >>> 16 & 0xFF;
+    }
+
+    /**
+     * Returns the blue component of a packed colour.
+     *
+     * @param rgba      The colour packed as {@code 0xRRGGBBAA}.
+     * @return          The blue component, from 0 to 255.
+     */
+    public static int blue(int rgba) {
+        return rgba >>> 8 & 0xFF;
+    }
+
+    /**
+     * Returns the alpha value of a packed colour.
+     *
+     * @param rgba      The colour packed as {@code 0xRRGGBBAA}.
+     * @return          The alpha value, from 0 to 255.
+     */
+    public static int alpha(int rgba) {
+        return rgba & 0xFF;
+    }
+
+    /**
+     * Returns a packed colour with its alpha value replaced.
+     *
+     * @param rgba      The colour packed as {@code 0xRRGGBBAA}.
+     * @param alpha     The new alpha value, from 0 to 255.
+     * @return          The colour with the new alpha value.
+     */
+    public static int withAlpha(int rgba, int alpha) {
+        return (rgba & 0xFFFFFF00) | (alpha & 0xFF);
+    }
+
+    /**
+     * Blends linearly between two packed colours, component by component.
+     *
+     * @param from      The colour at t = 0.
+     * @param to        The colour at t = 1.
+     * @param t         The position between the colours, from 0 to 1.
+     * @return          The blended colour.
+     */
+    public static int lerp(int from, int to, float t) {
+        t = Math.max(0, Math.min(1, t));
+        int result = 0;
+        for (int shift = 0; shift < 32; shift += 8) {
+            int a = from >>> shift & 0xFF, b = to >>> shift & 0xFF;
+            result |= Math.round(a + (b - a) * t) << shift;
+        }
+        return result;
+    }
+}
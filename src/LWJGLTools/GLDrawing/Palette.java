@@ -0,0 +1,99 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package LWJGLTools.GLDrawing;
+
+import java.util.Arrays;
+
+/**
+ * An immutable, indexed table of colours packed as {@code 0xRRGGBBAA}.
+ * <p>
+ * A palette is built once, and looking a colour up in it is an array read, so
+ * changing colour every frame costs no allocation and no arithmetic.
+ *
+ * @author Murdock Grewar
+ * @see PackedColor
+ */
+public final class Palette {
+
+    private final int[] colors;
+
+    /**
+     * Returns a palette of the given colours.
+     *
+     * @param colors    The colours, packed as {@code 0xRRGGBBAA}. The array is copied.
+     */
+    public Palette(int... colors) {
+        if (colors.length == 0)
+            throw new IllegalArgumentException("A palette needs at least one colour.");
+        this.colors = colors.clone();
+    }
+
+    /**
+     * Returns a palette of evenly spaced colours blended linearly between two ends, both included.
+     *
+     * @param from      The first colour.
+     * @param to        The last colour.
+     * @param size      The number of colours, at least 2.
+     * @return          The palette.
+     */
+    public static Palette gradient(int from, int to, int size) {
+        if (size < 2)
+            throw new IllegalArgumentException("A gradient needs at least 2 colours.");
+        int[] colors = new int[size];
+        for (int i = 0; i < size; i++)
+            colors[i] = PackedColor.lerp(from, to, i / (float)(size - 1));
+        return new Palette(colors);
+    }
+
+    /**
+     * Returns a colour of this palette.
+     *
+     * @param index     The index of the colour.
+     * @return          The colour packed as {@code 0xRRGGBBAA}.
+     */
+    public int get(int index) {
+        return colors[index];
+    }
+
+    /**
+     * Returns the colour of this palette nearest to a position between its first and last colours.
+     *
+     * @param t     The position, from 0 (the first colour) to 1 (the last colour). Clamped to that range.
+     * @return      The colour packed as {@code 0xRRGGBBAA}.
+     */
+    public int sample(float t) {
+        int last = colors.length - 1;
+        return colors[Math.round(Math.max(0, Math.min(1, t)) * last)];
+    }
+
+    /**
+     * Returns the number of colours in this palette.
+     *
+     * @return  The size of the palette.
+     */
+    public int size() {
+        return colors.length;
+    }
+
+    /**
+     * Returns a copy of the colours of this palette.
+     *
+     * @return  The colours, packed as {@code 0xRRGGBBAA}.
+     */
+    public int[] toArray() {
+        return colors.clone();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Palette && Arrays.equals(colors, ((Palette)o).colors);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(colors);
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package LWJGLTools.GLDrawing;
+
+/**
+ * A receiver of 2D vertices grouped into primitives, modelled on the OpenGL 1.1
+ * {@code glBegin}/{@code glVertex2f}/{@code glEnd} calls.
+ * <p>
+ * The `mode' passed to {@link #begin(int)} is one of the primitive constants found in
+ * {@link org.lwjgl.opengl.GL11}, such as {@link org.lwjgl.opengl.GL11#GL_LINES},
+ * {@link org.lwjgl.opengl.GL11#GL_LINE_LOOP} or {@link org.lwjgl.opengl.GL11#GL_TRIANGLE_FAN}.
+ * <p>
+ * Implementations need not touch OpenGL at all. This is what allows the shapes
+ * of {@link GLDrawHelper} to be generated separately from their submission.
+ *
+ * @author Murdock Grewar
+ * @see GLDrawBatch
+ */
+public interface PrimitiveSink {
+
+    /**
+     * Starts a new primitive.
+     *
+     * @param mode      The primitive mode, as a {@link org.lwjgl.opengl.GL11} constant.
+     */
+    void begin(int mode);
+
+    /**
+     * Adds a vertex to the current primitive.
+     *
+     * @param x     x coordinate of the vertex.
+     * @param y     y coordinate of the vertex.
+     */
+    void vertex(float x, float y);
+
+    /**
+     * Ends the current primitive.
+     */
+    void end();
+}
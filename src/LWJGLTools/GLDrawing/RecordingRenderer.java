@@ -0,0 +1,149 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package LWJGLTools.GLDrawing;
+
+/**
+ * A renderer which makes no OpenGL calls, and instead keeps everything it receives in a {@link GLDrawBatch}.
+ * <p>
+ * This allows code built on {@link GLDrawHelper} to be tested or measured without a GPU or a
+ * GL context: what would have been drawn can be inspected through {@link #getRecording()},
+ * and the number of draw calls a GPU renderer would have made through {@link #getDrawCallCount()}.
+ * <p>
+ * Note that drawing text still needs the native STB library of LWJGL to be loadable.
+ *
+ * @author Murdock Grewar
+ */
+public final class RecordingRenderer implements GLRenderer {
+
+    private final GLDrawBatch recording = new GLDrawBatch();
+
+    // The number of vertices of the recording which had been counted into draw calls by the last flush.
+    private int countedVertices = 0;
+    private long drawCalls = 0;
+    private long flushes = 0;
+    private long submits = 0;
+    private long primitives = 0;
+
+    @Override
+    public void begin(int mode) {
+        recording.begin(mode);
+    }
+
+    @Override
+    public void vertex(float x, float y) {
+        recording.vertex(x, y);
+    }
+
+    @Override
+    public void end() {
+        recording.end();
+        primitives++;
+    }
+
+    @Override
+    public void setColor(float red, float green, float blue, float alpha) {
+        recording.setColor(red, green, blue, alpha);
+    }
+
+    @Override
+    public void setColorRGBA(int rgba) {
+        recording.setColorRGBA(rgba);
+    }
+
+    @Override
+    public void setLineWidth(float width) {
+        recording.setStrokeWidth(width);
+    }
+
+    @Override
+    public void submit(GLDrawBatch batch) {
+        flush();
+        recording.append(batch);
+        countRuns();
+        batch.clear();
+        submits++;
+    }
+
+    @Override
+    public void flush() {
+        countRuns();
+        flushes++;
+    }
+
+    // Counts one draw call for every run which has received vertices since they were last counted.
+    private void countRuns() {
+        for (int i = 0; i < recording.getRunCount(); i++) {
+            int end = recording.getRunFirst(i) + recording.getRunVertexCount(i);
+            if (end > countedVertices && recording.getRunVertexCount(i) > 0)
+                drawCalls++;
+        }
+        countedVertices = recording.getVertexCount();
+    }
+
+    /**
+     * Returns everything received since this renderer was created or last reset.
+     * The returned batch must not be modified.
+     *
+     * @return  The recording.
+     */
+    public GLDrawBatch getRecording() {
+        return recording;
+    }
+
+    /**
+     * Returns the number of draw calls a renderer which collects its primitives into runs,
+     * such as {@link CoreGLRenderer}, would have made for everything flushed or submitted so far.
+     *
+     * @return  The draw call count.
+     */
+    public long getDrawCallCount() {
+        return drawCalls;
+    }
+
+    /**
+     * Returns the number of primitives received through {@link #begin(int)} and {@link #end()}.
+     *
+     * @return  The primitive count.
+     */
+    public long getPrimitiveCount() {
+        return primitives;
+    }
+
+    /**
+     * Returns the number of times {@link #flush()} has been called.
+     *
+     * @return  The flush count.
+     */
+    public long getFlushCount() {
+        return flushes;
+    }
+
+    /**
+     * Returns the number of batches submitted.
+     *
+     * @return  The submit count.
+     */
+    public long getSubmitCount() {
+        return submits;
+    }
+
+    /**
+     * Discards the recording and resets every counter to zero.
+     */
+    public void reset() {
+        recording.clear();
+        countedVertices = 0;
+        drawCalls = 0;
+        flushes = 0;
+        submits = 0;
+        primitives = 0;
+    }
+
+    @Override
+    public void dispose() {
+        reset();
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package LWJGLTools.GLDrawing;
+
+import static org.lwjgl.opengl.GL11.GL_FALSE;
+import static org.lwjgl.opengl.GL20.*;
+
+/**
+ * Compiles and links the small shader programs used by the drawing backends.
+ *
+ * @author Murdock Grewar
+ */
+final class ShaderPrograms {
+
+    private ShaderPrograms() {
+    }
+
+    /**
+     * Compiles and links a program from the given sources.
+     * <p>
+     * The named vertex attributes are bound to locations 0, 1, 2, ... in the order given.
+     *
+     * @param vertexSource      Source of the vertex shader.
+     * @param fragmentSource    Source of the fragment shader.
+     * @param attributes        Names of the vertex attributes.
+     * @return                  The program.
+     * @throws IllegalStateException if either shader fails to compile, or the program fails to link.
+     */
+    static int link(String vertexSource, String fragmentSource, String... attributes) {
+        int vertex = compile(GL_VERTEX_SHADER, vertexSource);
+        int fragment = compile(GL_FRAGMENT_SHADER, fragmentSource);
+
+        int program = glCreateProgram();
+        glAttachShader(program, vertex);
+        glAttachShader(program, fragment);
+        for (int i = 0; i < attributes.length; i++)
+            glBindAttribLocation(program, i, attributes[i]);
+        glLinkProgram(program);
+
+        // The shaders are no longer needed once linked.
+        glDetachShader(program, vertex);
+        glDetachShader(program, fragment);
+        glDeleteShader(vertex);
+        glDeleteShader(fragment);
+
+        if (glGetProgrami(program, GL_LINK_STATUS) == GL_FALSE) {
+            String log = glGetProgramInfoLog(program);
+            glDeleteProgram(program);
+            throw new IllegalStateException("Could not link shader program: " + log);
+        }
+        return program;
+    }
+
+    private static int compile(int type, String source) {
+        int shader = glCreateShader(type);
+        glShaderSource(shader, source);
+        glCompileShader(shader);
+        if (glGetShaderi(shader, GL_COMPILE_STATUS) == GL_FALSE) {
+            String log = glGetShaderInfoLog(shader);
+            glDeleteShader(shader);
+            throw new IllegalStateException("Could not compile shader: " + log);
+        }
+        return shader;
+    }
+}
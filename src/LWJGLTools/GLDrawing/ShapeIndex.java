@@ -0,0 +1,563 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package LWJGLTools.GLDrawing;
+
+import java.util.Arrays;
+
+/**
+ * A retained set of shapes, indexed by a uniform grid so that the shapes under a point
+ * or overlapping a rectangle can be found without testing every shape.
+ * <p>
+ * Shapes are described by the same parameters as the methods of {@link GLDrawHelper} which draw them, and are
+ * hit-tested against the same geometry: a point is under an ellipse sector or an urchin when it lies within the
+ * area that {@link GLDrawHelper#ellipseFillSector(float, float, float, float, float, float, float) ellipseFillSector}
+ * or {@link GLDrawHelper#urchinFill(float, float, float, float, int, float) urchinFill} would fill, and under text when
+ * it lies within the box measured by {@link TextMetrics}. Outlines are hit-tested as the area they enclose.
+ * <p>
+ * Each shape is identified by the id returned when it is added, which stays valid until it is removed, and may then be
+ * reused. Shapes are registered in every grid cell their bounding box touches; shapes which would touch a great many
+ * cells are instead kept in a separate list which every query checks. Moving or removing a shape only updates the cells
+ * it touches. Queries allocate nothing.
+ * <p>
+ * An index is not thread-safe.
+ *
+ * @author Murdock Grewar
+ */
+public final class ShapeIndex {
+
+    private static final double TAU = Shapes.TAU;
+
+    private static final int ELLIPSE = 0, URCHIN = 1, BOX = 2;
+
+    // Shapes touching more cells than this are kept in the list of large shapes instead.
+    private static final int MAX_CELLS_PER_SHAPE = 64;
+
+    private static final int PARAMS = 7;
+
+    private final float cellSize;
+    private final int bucketMask;
+
+    // Cells are hashed into buckets; shapes from distinct cells may share a bucket, so every candidate is tested exactly.
+    private final int[][] buckets;
+    private final int[] bucketSizes;
+    private int[] large = new int[16];
+    private int largeCount = 0;
+
+    // Shapes, by id.
+    private int[] kinds = new int[64];
+    private float[] params = new float[64 * PARAMS];
+    private float[] bounds = new float[64 * 4];
+    private long[] orders = new long[64];
+    private boolean[] live = new boolean[64];
+    private int[] stamps = new int[64];
+    private int capacity = 0;
+    private int count = 0;
+
+    private int[] freeIds = new int[16];
+    private int freeCount = 0;
+    private long nextOrder = 0;
+    private int stamp = 0;
+
+    /**
+     * Returns a new, empty index whose grid has cells of the given size, and 4096 buckets.
+     * <p>
+     * Cells are best a little larger than a typical shape, so that most shapes touch few cells.
+     *
+     * @param cellSize  The width and height of each cell of the grid.
+     */
+    public ShapeIndex(float cellSize) {
+        this(cellSize, 4096);
+    }
+
+    /**
+     * Returns a new, empty index whose grid has cells of the given size.
+     *
+     * @param cellSize      The width and height of each cell of the grid.
+     * @param bucketCount   The number of buckets that cells are hashed into, rounded up to a power of two.
+     */
+    public ShapeIndex(float cellSize, int bucketCount) {
+        if (!(cellSize > 0))
+            throw new IllegalArgumentException("The cell size must be positive.");
+        int n = Integer.highestOneBit(Math.max(bucketCount - 1, 1)) << 1;
+        this.cellSize = cellSize;
+        this.bucketMask = n - 1;
+        this.buckets = new int[n][];
+        this.bucketSizes = new int[n];
+    }
+
+    /**
+     * Adds a filled disk.
+     *
+     * @param x         Origin x coordinate.
+     * @param y         Origin y coordinate.
+     * @param radius    Disk radius.
+     * @return          The id of the shape.
+     * @see GLDrawHelper#disk(float, float, float)
+     */
+    public int addDisk(float x, float y, float radius) {
+        return addEllipseSector(x,y,radius,radius,0,0,(float)TAU);
+    }
+
+    /**
+     * Adds a sector of a filled disk.
+     *
+     * @param x                 Origin x coordinate.
+     * @param y                 Origin y coordinate.
+     * @param radius            Disk radius.
+     * @param sectorStartAngle  Starting angle (in radians).
+     * @param sectorAngle       Subtended angle (in radians).
+     * @return                  The id of the shape.
+     * @see GLDrawHelper#diskSector(float, float, float, float, float)
+     */
+    public int addDiskSector(float x, float y, float radius, float sectorStartAngle, float sectorAngle) {
+        return addEllipseSector(x,y,radius,radius,0,sectorStartAngle,sectorAngle);
+    }
+
+    /**
+     * Adds a filled ellipse.
+     *
+     * @param x         Origin x coordinate.
+     * @param y         Origin y coordinate.
+     * @param mrad      Minor radius.
+     * @param Mrad      Major radius.
+     * @param angle     Angle of rotation of the ellipse.
+     * @return          The id of the shape.
+     * @see GLDrawHelper#ellipseFill(float, float, float, float, float)
+     */
+    public int addEllipse(float x, float y, float mrad, float Mrad, float angle) {
+        return addEllipseSector(x,y,mrad,Mrad,angle,0,(float)TAU);
+    }
+
+    /**
+     * Adds a sector of a filled ellipse.
+     *
+     * @param x                     Origin x coordinate.
+     * @param y                     Origin y coordinate.
+     * @param mrad                  Minor radius.
+     * @param Mrad                  Major radius.
+     * @param angle                 Angle of rotation of the ellipse.
+     * @param sectorStartAngle      Starting angle of sector (relative to ellipse rotation).
+     * @param sectorAngle           Subtended angle of sector.
+     * @return                      The id of the shape.
+     * @see GLDrawHelper#ellipseFillSector(float, float, float, float, float, float, float)
+     */
+    public int addEllipseSector(float x, float y, float mrad, float Mrad, float angle, float sectorStartAngle, float sectorAngle) {
+        return add(ELLIPSE,x,y,mrad,Mrad,angle,sectorStartAngle,sectorAngle);
+    }
+
+    /**
+     * Adds a filled urchin.
+     *
+     * @param x         Origin x coordinate.
+     * @param y         Origin y coordinate.
+     * @param sRad      Radius of the points between the spines.
+     * @param bRad      Radius of the tips of the spines.
+     * @param spines    Number of spines.
+     * @param angle     Angle of rotation of the urchin.
+     * @return          The id of the shape.
+     * @see GLDrawHelper#urchinFill(float, float, float, float, int, float)
+     */
+    public int addUrchin(float x, float y, float sRad, float bRad, int spines, float angle) {
+        return add(URCHIN,x,y,sRad,bRad,spines,angle,0);
+    }
+
+    /**
+     * Adds the box covered by a string drawn with its top-left corner at (x, y).
+     *
+     * @param x         x coordinate of the top-left corner of the text.
+     * @param y         y coordinate of the top-left corner of the text.
+     * @param text      The text.
+     * @param scale     The size the text is drawn at.
+     * @return          The id of the shape.
+     * @see GLDrawHelper#drawString(float, float, java.lang.String, float)
+     */
+    public int addText(float x, float y, String text, float scale) {
+        TextMetrics metrics = TextMetrics.easyFont();
+        return addBox(x, y - metrics.height(text)*scale, x + metrics.width(text)*scale, y);
+    }
+
+    /**
+     * Adds an axis-aligned rectangle.
+     *
+     * @param left      The smallest x coordinate.
+     * @param bottom    The smallest y coordinate.
+     * @param right     The largest x coordinate.
+     * @param top       The largest y coordinate.
+     * @return          The id of the shape.
+     */
+    public int addBox(float left, float bottom, float right, float top) {
+        return add(BOX,Math.min(left,right),Math.min(bottom,top),Math.max(left,right),Math.max(bottom,top),0,0,0);
+    }
+
+    private int add(int kind, float a, float b, float c, float d, float e, float f, float g) {
+        int id;
+        if (freeCount > 0) {
+            id = freeIds[--freeCount];
+        } else {
+            if (capacity == kinds.length)
+                grow();
+            id = capacity++;
+        }
+        kinds[id] = kind;
+        int o = id * PARAMS;
+        params[o] = a; params[o+1] = b; params[o+2] = c;
+        params[o+3] = d; params[o+4] = e; params[o+5] = f; params[o+6] = g;
+        orders[id] = nextOrder++;
+        live[id] = true;
+        count++;
+        computeBounds(id);
+        insert(id);
+        return id;
+    }
+
+    private void grow() {
+        int n = kinds.length * 2;
+        kinds = Arrays.copyOf(kinds, n);
+        params = Arrays.copyOf(params, n * PARAMS);
+        bounds = Arrays.copyOf(bounds, n * 4);
+        orders = Arrays.copyOf(orders, n);
+        live = Arrays.copyOf(live, n);
+        stamps = Arrays.copyOf(stamps, n);
+    }
+
+    /**
+     * Moves a shape so that its origin is at the given point. A box or text is moved by its bottom-left corner.
+     *
+     * @param id    The id of the shape.
+     * @param x     The new x coordinate.
+     * @param y     The new y coordinate.
+     */
+    public void move(int id, float x, float y) {
+        check(id);
+        int o = id * PARAMS, b = id * 4;
+        float dx = x - params[o], dy = y - params[o+1];
+        int left = cell(bounds[b]), bottom = cell(bounds[b+1]), right = cell(bounds[b+2]), top = cell(bounds[b+3]);
+        params[o] = x;
+        params[o+1] = y;
+        if (kinds[id] == BOX) {
+            params[o+2] += dx;
+            params[o+3] += dy;
+        }
+        computeBounds(id);
+        // Nothing needs re-indexing if the bounding box stays within the same cells.
+        if (left == cell(bounds[b]) && bottom == cell(bounds[b+1]) && right == cell(bounds[b+2]) && top == cell(bounds[b+3]))
+            return;
+        unindex(id, left, bottom, right, top);
+        insert(id);
+    }
+
+    /**
+     * Removes a shape. Its id may be returned again by a later addition.
+     *
+     * @param id    The id of the shape.
+     */
+    public void remove(int id) {
+        check(id);
+        int b = id * 4;
+        unindex(id, cell(bounds[b]), cell(bounds[b+1]), cell(bounds[b+2]), cell(bounds[b+3]));
+        live[id] = false;
+        count--;
+        if (freeCount == freeIds.length)
+            freeIds = Arrays.copyOf(freeIds, freeCount * 2);
+        freeIds[freeCount++] = id;
+    }
+
+    /**
+     * Removes every shape.
+     */
+    public void clear() {
+        Arrays.fill(bucketSizes, 0);
+        Arrays.fill(live, 0, capacity, false);
+        largeCount = 0;
+        capacity = 0;
+        count = 0;
+        freeCount = 0;
+    }
+
+    /**
+     * Returns the number of shapes in this index.
+     *
+     * @return  The shape count.
+     */
+    public int size() {
+        return count;
+    }
+
+    private void check(int id) {
+        if (id < 0 || id >= capacity || !live[id])
+            throw new IllegalArgumentException("There is no shape with id " + id + ".");
+    }
+
+    private void computeBounds(int id) {
+        int o = id * PARAMS, b = id * 4;
+        float x = params[o], y = params[o+1];
+        switch (kinds[id]) {
+            case ELLIPSE: {
+                double cos = Math.cos(params[o+4]), sin = Math.sin(params[o+4]);
+                double M = params[o+3], m = params[o+2];
+                float hx = (float)Math.sqrt(M*M*cos*cos + m*m*sin*sin);
+                float hy = (float)Math.sqrt(M*M*sin*sin + m*m*cos*cos);
+                bounds[b] = x - hx; bounds[b+1] = y - hy;
+                bounds[b+2] = x + hx; bounds[b+3] = y + hy;
+                break;
+            }
+            case URCHIN: {
+                float r = Math.max(Math.abs(params[o+2]), Math.abs(params[o+3]));
+                bounds[b] = x - r; bounds[b+1] = y - r;
+                bounds[b+2] = x + r; bounds[b+3] = y + r;
+                break;
+            }
+            default:
+                bounds[b] = x; bounds[b+1] = y;
+                bounds[b+2] = params[o+2]; bounds[b+3] = params[o+3];
+        }
+    }
+
+    private int cell(float coordinate) {
+        return (int)Math.floor(coordinate / cellSize);
+    }
+
+    private int bucket(int cx, int cy) {
+        return (cx * 73856093 ^ cy * 19349663) & bucketMask;
+    }
+
+    private static boolean isLarge(int left, int bottom, int right, int top) {
+        return (long)(right - left + 1) * (top - bottom + 1) > MAX_CELLS_PER_SHAPE;
+    }
+
+    // Registers a shape in the cells touched by its current bounding box.
+    private void insert(int id) {
+        int b = id * 4;
+        int left = cell(bounds[b]), bottom = cell(bounds[b+1]), right = cell(bounds[b+2]), top = cell(bounds[b+3]);
+        if (isLarge(left, bottom, right, top)) {
+            if (largeCount == large.length)
+                large = Arrays.copyOf(large, largeCount * 2);
+            large[largeCount++] = id;
+            return;
+        }
+        for (int cy = bottom; cy <= top; cy++) {
+            for (int cx = left; cx <= right; cx++) {
+                int k = bucket(cx, cy);
+                int[] list = buckets[k];
+                if (list == null)
+                    list = buckets[k] = new int[4];
+                else if (bucketSizes[k] == list.length)
+                    list = buckets[k] = Arrays.copyOf(list, list.length * 2);
+                list[bucketSizes[k]++] = id;
+            }
+        }
+    }
+
+    // Removes a shape from the given range of cells, which it was registered in.
+    private void unindex(int id, int left, int bottom, int right, int top) {
+        if (isLarge(left, bottom, right, top)) {
+            removeFrom(large, largeCount, id);
+            largeCount--;
+            return;
+        }
+        for (int cy = bottom; cy <= top; cy++) {
+            for (int cx = left; cx <= right; cx++) {
+                int k = bucket(cx, cy);
+                removeFrom(buckets[k], bucketSizes[k], id);
+                bucketSizes[k]--;
+            }
+        }
+    }
+
+    // Removes one occurrence of the id from the first n elements of the list, moving the last element into its place.
+    private static void removeFrom(int[] list, int n, int id) {
+        for (int i = 0; i < n; i++) {
+            if (list[i] == id) {
+                list[i] = list[n - 1];
+                return;
+            }
+        }
+        throw new IllegalStateException("The index is inconsistent.");
+    }
+
+    /**
+     * Finds the shapes under the given point.
+     *
+     * @param x     x coordinate of the point.
+     * @param y     y coordinate of the point.
+     * @param out   The array to write the ids of the shapes to, in no particular order.
+     * @return      The number of shapes under the point. Only as many as fit are written to the array.
+     */
+    public int queryPoint(float x, float y, int[] out) {
+        int found = 0;
+        stamp++;
+        int k = bucket(cell(x), cell(y));
+        int[] list = buckets[k];
+        for (int i = 0; i < bucketSizes[k]; i++) {
+            int id = list[i];
+            if (visit(id) && contains(id, x, y)) {
+                if (found < out.length)
+                    out[found] = id;
+                found++;
+            }
+        }
+        for (int i = 0; i < largeCount; i++) {
+            int id = large[i];
+            if (contains(id, x, y)) {
+                if (found < out.length)
+                    out[found] = id;
+                found++;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Finds the topmost shape under the given point: the one added most recently, as it would be drawn last.
+     *
+     * @param x     x coordinate of the point.
+     * @param y     y coordinate of the point.
+     * @return      The id of the shape, or -1 if there is none.
+     */
+    public int pick(float x, float y) {
+        int best = -1;
+        stamp++;
+        int k = bucket(cell(x), cell(y));
+        int[] list = buckets[k];
+        for (int i = 0; i < bucketSizes[k]; i++) {
+            int id = list[i];
+            if (visit(id) && (best == -1 || orders[id] > orders[best]) && contains(id, x, y))
+                best = id;
+        }
+        for (int i = 0; i < largeCount; i++) {
+            int id = large[i];
+            if ((best == -1 || orders[id] > orders[best]) && contains(id, x, y))
+                best = id;
+        }
+        return best;
+    }
+
+    /**
+     * Finds the shapes whose bounding boxes overlap the given rectangle. This is also the way to find the shapes
+     * near a point: every shape within a distance d of it overlaps the square of side 2d centred on it.
+     *
+     * @param left      The smallest x coordinate of the rectangle.
+     * @param bottom    The smallest y coordinate of the rectangle.
+     * @param right     The largest x coordinate of the rectangle.
+     * @param top       The largest y coordinate of the rectangle.
+     * @param out       The array to write the ids of the shapes to, in no particular order.
+     * @return          The number of shapes found. Only as many as fit are written to the array.
+     */
+    public int queryRange(float left, float bottom, float right, float top, int[] out) {
+        int found = 0;
+        stamp++;
+        int x0 = cell(left), x1 = cell(right), y0 = cell(bottom), y1 = cell(top);
+        if ((long)(x1 - x0 + 1) * (y1 - y0 + 1) > bucketSizes.length) {
+            // The rectangle touches more cells than there are buckets, so visit every bucket once instead.
+            for (int k = 0; k < bucketSizes.length; k++)
+                found = collect(k, left, bottom, right, top, out, found);
+        } else {
+            for (int cy = y0; cy <= y1; cy++) {
+                for (int cx = x0; cx <= x1; cx++)
+                    found = collect(bucket(cx, cy), left, bottom, right, top, out, found);
+            }
+        }
+        for (int i = 0; i < largeCount; i++) {
+            int id = large[i];
+            if (overlaps(id, left, bottom, right, top)) {
+                if (found < out.length)
+                    out[found] = id;
+                found++;
+            }
+        }
+        return found;
+    }
+
+    private int collect(int k, float left, float bottom, float right, float top, int[] out, int found) {
+        int[] list = buckets[k];
+        for (int i = 0; i < bucketSizes[k]; i++) {
+            int id = list[i];
+            if (visit(id) && overlaps(id, left, bottom, right, top)) {
+                if (found < out.length)
+                    out[found] = id;
+                found++;
+            }
+        }
+        return found;
+    }
+
+    // Marks a shape as seen by the current query, returning false if it already was.
+    private boolean visit(int id) {
+        if (stamps[id] == stamp)
+            return false;
+        stamps[id] = stamp;
+        return true;
+    }
+
+    private boolean overlaps(int id, float left, float bottom, float right, float top) {
+        int b = id * 4;
+        return bounds[b] <= right && bounds[b+2] >= left && bounds[b+1] <= top && bounds[b+3] >= bottom;
+    }
+
+    /**
+     * Returns whether the given point lies within a shape.
+     *
+     * @param id    The id of the shape.
+     * @param x     x coordinate of the point.
+     * @param y     y coordinate of the point.
+     * @return      Whether the point is within the shape.
+     */
+    public boolean contains(int id, float x, float y) {
+        if (!overlaps(id, x, y, x, y))
+            return false;
+        int o = id * PARAMS;
+        switch (kinds[id]) {
+            case ELLIPSE:
+                return ellipseSectorContains(x - params[o], y - params[o+1],
+                        params[o+2], params[o+3], params[o+4], params[o+5], params[o+6]);
+            case URCHIN:
+                return urchinContains(x - params[o], y - params[o+1],
+                        params[o+2], params[o+3], (int)params[o+4], params[o+5]);
+            default:
+                return true;
+        }
+    }
+
+    // Whether (dx, dy), relative to the origin, is within the sector filled by Shapes.ellipseFillSector.
+    private static boolean ellipseSectorContains(float dx, float dy, float mrad, float Mrad, float angle,
+            float sectorStartAngle, float sectorAngle) {
+        if (mrad == 0 || Mrad == 0)
+            return false;
+        double cos = Math.cos(angle), sin = Math.sin(angle);
+        // Undo the rotation, then the stretch, leaving the parametric angle of the point.
+        double u = ( dx*cos + dy*sin) / Mrad;
+        double v = (-dx*sin + dy*cos) / mrad;
+        if (u*u + v*v > 1)
+            return false;
+        if (Math.abs(sectorAngle) >= TAU)
+            return true;
+        double t = Math.atan2(v, u);
+        double d = (sectorAngle >= 0) ? t - sectorStartAngle : sectorStartAngle - t;
+        d -= Math.floor(d / TAU) * TAU;
+        return d <= Math.abs(sectorAngle);
+    }
+
+    // Whether (dx, dy), relative to the origin, is within the star filled by Shapes.urchinFill.
+    private static boolean urchinContains(float dx, float dy, float sRad, float bRad, int spines, float angle) {
+        int sliceCount = Math.max(spines*2, 1);
+        double cos = Math.cos(angle), sin = Math.sin(angle);
+        double u = dx*cos + dy*sin, v = -dx*sin + dy*cos;
+        double step = TAU / sliceCount;
+        double phi = Math.atan2(v, u);
+        if (phi < 0)
+            phi += TAU;
+        int k = Math.min((int)(phi / step), sliceCount - 1);
+
+        // The point is within the triangle between the origin and the edge from vertex k to vertex k + 1.
+        double r0 = (k % 2 == 0) ? sRad : bRad, r1 = ((k + 1) % 2 == 0) ? sRad : bRad;
+        double ax = Math.cos(k*step)*r0, ay = Math.sin(k*step)*r0;
+        double bx = Math.cos((k+1)*step)*r1, by = Math.sin((k+1)*step)*r1;
+        double ex = bx - ax, ey = by - ay;
+        double origin = ex*(-ay) - ey*(-ax);
+        double point = ex*(v - ay) - ey*(u - ax);
+        return origin != 0 && point * origin >= 0;
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package LWJGLTools.GLDrawing;
+
+import java.nio.ByteBuffer;
+import static org.lwjgl.opengl.GL11.*;
+
+/**
+ * The vertex generation behind the primitives of {@link GLDrawHelper} and {@link GLDrawBatch}.
+ * <p>
+ * Every method here describes its shape to a {@link PrimitiveSink} and makes no OpenGL calls itself.
+ *
+ * @author Murdock Grewar
+ */
+final class Shapes {
+
+    static final double TAU = 2d * Math.PI;
+
+    private Shapes() {
+    }
+
+    static void line(PrimitiveSink s, float startX, float startY, float endX, float endY) {
+        s.begin(GL_LINES);
+            s.vertex(startX,startY);
+            s.vertex(endX,endY);
+        s.end();
+    }
+
+    static void line(PrimitiveSink s, float startX, float startY, float endX, float endY, float stretch) {
+        float aendX = (endX - startX)*stretch + startX;
+        float aendY = (endY - startY)*stretch + startY;
+        line(s,startX,startY,aendX,aendY);
+    }
+
+    static void lineByAngle(PrimitiveSink s, float startX, float startY, float angle, float length) {
+        float endX = length*(float)Math.cos(angle) + startX;
+        float endY = length*(float)Math.sin(angle) + startY;
+        line(s,startX,startY,endX,endY);
+    }
+
+    static void ellipseFillSector(PrimitiveSink s, float x, float y, float mrad, float Mrad, float angle, float sectorStartAngle, float sectorAngle) {
+
+        s.begin(GL_TRIANGLE_FAN);
+            s.vertex(x, y); // center of circle
+            Tessellator.ellipse(s,x,y,mrad,Mrad,angle,sectorStartAngle,sectorAngle);
+        s.end();
+    }
+
+    static void ellipse(PrimitiveSink s, float x, float y, float mrad, float Mrad, float angle) {
+
+        s.begin(GL_LINE_LOOP);
+            Tessellator.ellipse(s,x,y,mrad,Mrad,angle,0,(float)TAU);
+        s.end();
+    }
+
+    static void ellipseSector(PrimitiveSink s, float x, float y, float mrad, float Mrad, float angle, float sectorStartAngle, float sectorAngle) {
+        s.begin(GL_LINE_STRIP);
+            Tessellator.ellipse(s,x,y,mrad,Mrad,angle,sectorStartAngle,sectorAngle);
+        s.end();
+    }
+
+    static void urchin(PrimitiveSink s, float x, float y, float sRad, float bRad, int spines, float angle) {
+        s.begin(GL_LINE_LOOP);
+            Tessellator.star(s,x,y,sRad,bRad,spines,angle);
+        s.end();
+    }
+
+    static void urchinFill(PrimitiveSink s, float x, float y, float sRad, float bRad, int spines, float angle) {
+        s.begin(GL_TRIANGLE_FAN);
+            s.vertex(x, y); // center of circle
+            Tessellator.star(s,x,y,sRad,bRad,spines,angle);
+        s.end();
+    }
+
+    // Feeds text quads, such as those written by stb_easy_font_print, to the sink with the given
+    // translation and scale. Easy font text is reflected in the y axis, so the scale is negated for y.
+    static void textQuads(PrimitiveSink s, ByteBuffer vertices, int stride, int vertexCount, float x, float y, float scale) {
+        s.begin(GL_QUADS);
+            for (int i = 0; i < vertexCount; i++) {
+                s.vertex(
+                    x + vertices.getFloat(i*stride)*scale,
+                    y - vertices.getFloat(i*stride + 4)*scale
+                );
+            }
+        s.end();
+    }
+}
@@ -0,0 +1,377 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package LWJGLTools.GLDrawing;
+
+import java.awt.image.BufferedImage;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import static org.lwjgl.opengl.GL11.GL_LINES;
+
+/**
+ * A renderer which draws into an image in memory, entirely in Java, without OpenGL or a GPU.
+ * <p>
+ * Primitives are collected into a {@link GLDrawBatch}, as with {@link CoreGLRenderer}, and are rasterised into an
+ * {@code int[]} of ARGB pixels when {@link #flush()} is called or a batch is submitted. Triangles, and therefore
+ * filled shapes and text, are filled scanline by scanline, sampling each pixel at its centre; lines are filled as
+ * rectangles of the line width. Colours are blended across each primitive, and, by default, blended onto the
+ * image by their alpha. Every pixel is written at most once per primitive, so edges shared by adjacent triangles
+ * are not blended twice.
+ * <p>
+ * The image is divided into bands of rows, which are rasterised in parallel on a fork-join pool when the image and
+ * the batch are large enough. Each band draws every primitive in order, so the result is exactly that of
+ * drawing on a single thread.
+ * <p>
+ * Drawing coordinates are mapped onto the image by {@link #setOrtho(float, float, float, float)}, which defaults
+ * to [-1, 1] in both directions, as with an identity projection. Row 0 of the image is its top.
+ * The pixel scale of {@link LevelOfDetail} should be set to match, if it is used.
+ *
+ * @author Murdock Grewar
+ */
+public final class SoftwareRenderer implements GLRenderer {
+
+    // The number of rows in each band of the image rasterised as a unit.
+    private static final int BAND_ROWS = 32;
+
+    // Batches with fewer vertices than this, or images with fewer pixels, are rasterised on the calling thread.
+    private static final int MIN_PARALLEL_VERTICES = 768;
+    private static final int MIN_PARALLEL_PIXELS = 256 * 256;
+
+    private final int width, height;
+    private final int[] pixels;
+
+    private final GLDrawBatch pending = new GLDrawBatch();
+    private ForkJoinPool pool = ForkJoinPool.commonPool();
+    private boolean blending = true;
+
+    private float left = -1, right = 1, bottom = -1, top = 1;
+
+    // The batch being rasterised, with its vertices in pixel coordinates.
+    private float[] xs = new float[1024], ys = new float[1024];
+    private int[] argbs = new int[1024];
+    private GLDrawBatch current;
+
+    /**
+     * Returns a new renderer drawing into a transparent image of the given size.
+     *
+     * @param width     The width of the image, in pixels.
+     * @param height    The height of the image, in pixels.
+     */
+    public SoftwareRenderer(int width, int height) {
+        if (width < 1 || height < 1)
+            throw new IllegalArgumentException("The image must be at least one pixel in size.");
+        this.width = width;
+        this.height = height;
+        this.pixels = new int[width * height];
+    }
+
+    /**
+     * Sets the rectangle of drawing coordinates which is mapped onto the image.
+     * This is the equivalent of {@code glOrtho(left, right, bottom, top, -1, 1)} with a viewport covering the image.
+     * Anything already collected is drawn with the new mapping.
+     *
+     * @param left      The drawing x coordinate at the left edge of the image.
+     * @param right     The drawing x coordinate at the right edge of the image.
+     * @param bottom    The drawing y coordinate at the bottom edge of the image.
+     * @param top       The drawing y coordinate at the top edge of the image.
+     */
+    public void setOrtho(float left, float right, float bottom, float top) {
+        this.left = left;
+        this.right = right;
+        this.bottom = bottom;
+        this.top = top;
+    }
+
+    /**
+     * Sets whether colours are blended onto the image by their alpha, as with
+     * {@code glBlendFunc(GL_SRC_ALPHA, GL_ONE_MINUS_SRC_ALPHA)}, or simply replace it. Blending is on by default.
+     *
+     * @param blend     Whether to blend.
+     */
+    public void setBlending(boolean blend) {
+        blending = blend;
+    }
+
+    /**
+     * Sets the pool which large images are rasterised on. By default, this is the common pool.
+     *
+     * @param pool      The pool to rasterise on.
+     */
+    public void setPool(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Fills the whole image with one colour, as with {@code glClear}. Anything collected is discarded.
+     *
+     * @param rgba      The colour packed as {@code 0xRRGGBBAA}.
+     */
+    public void clear(int rgba) {
+        pending.clear();
+        Arrays.fill(pixels, toARGB(rgba));
+    }
+
+    /**
+     * Returns the pixels of the image, row by row from the top, each packed as {@code 0xAARRGGBB}.
+     * The array is the image itself, not a copy. Anything collected should be flushed first.
+     *
+     * @return  The pixels.
+     */
+    public int[] getPixels() {
+        return pixels;
+    }
+
+    /**
+     * Returns a single pixel of the image.
+     *
+     * @param x     The column of the pixel.
+     * @param y     The row of the pixel, from the top.
+     * @return      The pixel packed as {@code 0xAARRGGBB}.
+     */
+    public int getPixel(int x, int y) {
+        return pixels[y * width + x];
+    }
+
+    /**
+     * Returns a copy of the image.
+     *
+     * @return  The image, of type {@link BufferedImage#TYPE_INT_ARGB}.
+     */
+    public BufferedImage toImage() {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        image.setRGB(0, 0, width, height, pixels, 0, width);
+        return image;
+    }
+
+    /**
+     * Returns the width of the image.
+     *
+     * @return  The width, in pixels.
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Returns the height of the image.
+     *
+     * @return  The height, in pixels.
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    @Override
+    public void begin(int mode) {
+        pending.begin(mode);
+    }
+
+    @Override
+    public void vertex(float x, float y) {
+        pending.vertex(x, y);
+    }
+
+    @Override
+    public void end() {
+        pending.end();
+    }
+
+    @Override
+    public void setColor(float red, float green, float blue, float alpha) {
+        pending.setColor(red, green, blue, alpha);
+    }
+
+    @Override
+    public void setColorRGBA(int rgba) {
+        pending.setColorRGBA(rgba);
+    }
+
+    @Override
+    public void setLineWidth(float width) {
+        pending.setStrokeWidth(width);
+    }
+
+    @Override
+    public void submit(GLDrawBatch batch) {
+        // Keep the order of drawing: whatever was collected before the batch goes first.
+        flush();
+        rasterize(batch);
+        batch.clear();
+    }
+
+    @Override
+    public void flush() {
+        rasterize(pending);
+        pending.clear();
+    }
+
+    /**
+     * Discards anything collected. The image is kept.
+     */
+    @Override
+    public void dispose() {
+        pending.clear();
+    }
+
+    private static int toARGB(int rgba) {
+        return rgba << 24 | rgba >>> 8;
+    }
+
+    private void rasterize(GLDrawBatch batch) {
+        int n = batch.getVertexCount();
+        if (n == 0)
+            return;
+        if (xs.length < n) {
+            int capacity = Integer.highestOneBit(n) << 1;
+            xs = new float[capacity];
+            ys = new float[capacity];
+            argbs = new int[capacity];
+        }
+
+        // Map every vertex into pixel coordinates once, before any band needs it.
+        float sx = width / (right - left), sy = height / (top - bottom);
+        ByteBuffer v = batch.vertexBuffer();
+        for (int i = 0; i < n; i++) {
+            int o = i * GLDrawBatch.VERTEX_SIZE;
+            xs[i] = (v.getFloat(o) - left) * sx;
+            ys[i] = (top - v.getFloat(o + 4)) * sy;
+            argbs[i] = (v.get(o + 11) & 0xFF) << 24 | (v.get(o + 8) & 0xFF) << 16
+                     | (v.get(o + 9) & 0xFF) << 8 | (v.get(o + 10) & 0xFF);
+        }
+
+        current = batch;
+        int bands = (height + BAND_ROWS - 1) / BAND_ROWS;
+        if (pool.getParallelism() < 2 || bands < 2 || n < MIN_PARALLEL_VERTICES || width * height < MIN_PARALLEL_PIXELS)
+            rasterizeRows(0, height);
+        else
+            pool.invoke(new BandTask(0, bands));
+        current = null;
+    }
+
+    // Rasterises a range of bands of the image.
+    private final class BandTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int from, to;
+
+        BandTask(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new BandTask(from, mid), new BandTask(mid, to));
+                return;
+            }
+            rasterizeRows(from * BAND_ROWS, Math.min(height, (from + 1) * BAND_ROWS));
+        }
+    }
+
+    // Draws every primitive of the current batch, in order, into rows y0 to y1 - 1 only.
+    private void rasterizeRows(int y0, int y1) {
+        GLDrawBatch batch = current;
+        for (int r = 0; r < batch.getRunCount(); r++) {
+            int first = batch.getRunFirst(r), end = first + batch.getRunVertexCount(r);
+            if (batch.getRunMode(r) == GL_LINES) {
+                float halfWidth = Math.max(1, batch.getRunStrokeWidth(r)) / 2;
+                for (int i = first; i + 1 < end; i += 2)
+                    line(i, i + 1, halfWidth, y0, y1);
+            } else {
+                for (int i = first; i + 2 < end; i += 3)
+                    triangle(xs[i], ys[i], argbs[i], xs[i+1], ys[i+1], argbs[i+1], xs[i+2], ys[i+2], argbs[i+2], y0, y1);
+            }
+        }
+    }
+
+    // Fills a line segment as a rectangle extending the given distance to either side of it.
+    private void line(int a, int b, float halfWidth, int y0, int y1) {
+        float ax = xs[a], ay = ys[a], bx = xs[b], by = ys[b];
+        float dx = bx - ax, dy = by - ay;
+        float length = (float)Math.sqrt(dx*dx + dy*dy);
+        if (length == 0)
+            return;
+        float nx = -dy / length * halfWidth, ny = dx / length * halfWidth;
+        int ca = argbs[a], cb = argbs[b];
+        triangle(ax + nx, ay + ny, ca, ax - nx, ay - ny, ca, bx - nx, by - ny, cb, y0, y1);
+        triangle(ax + nx, ay + ny, ca, bx - nx, by - ny, cb, bx + nx, by + ny, cb, y0, y1);
+    }
+
+    // Fills the pixels of rows y0 to y1 - 1 whose centres lie within a triangle.
+    // Spans are half-open on both axes, so triangles sharing an edge never both cover a pixel on it.
+    private void triangle(float ax, float ay, int ca, float bx, float by, int cb, float cx, float cy, int cc, int y0, int y1) {
+        float area = (bx - ax)*(cy - ay) - (by - ay)*(cx - ax);
+        if (area == 0 || Float.isNaN(area))
+            return;
+        float minY = Math.min(ay, Math.min(by, cy)), maxY = Math.max(ay, Math.max(by, cy));
+        int rowFirst = Math.max(y0, (int)Math.ceil(minY - 0.5f));
+        int rowLast = Math.min(y1 - 1, (int)Math.ceil(maxY - 0.5f) - 1);
+        boolean flat = ca == cb && cb == cc;
+
+        for (int row = rowFirst; row <= rowLast; row++) {
+            float yc = row + 0.5f;
+            float xl = Float.POSITIVE_INFINITY, xr = Float.NEGATIVE_INFINITY;
+            if ((ay <= yc) != (by <= yc)) {
+                float x = ax + (yc - ay) * (bx - ax) / (by - ay);
+                xl = Math.min(xl, x);
+                xr = Math.max(xr, x);
+            }
+            if ((by <= yc) != (cy <= yc)) {
+                float x = bx + (yc - by) * (cx - bx) / (cy - by);
+                xl = Math.min(xl, x);
+                xr = Math.max(xr, x);
+            }
+            if ((cy <= yc) != (ay <= yc)) {
+                float x = cx + (yc - cy) * (ax - cx) / (ay - cy);
+                xl = Math.min(xl, x);
+                xr = Math.max(xr, x);
+            }
+            int colFirst = Math.max(0, (int)Math.ceil(xl - 0.5f));
+            int colLast = Math.min(width - 1, (int)Math.ceil(xr - 0.5f) - 1);
+            int offset = row * width;
+            if (flat) {
+                for (int col = colFirst; col <= colLast; col++)
+                    plot(offset + col, ca);
+                continue;
+            }
+            for (int col = colFirst; col <= colLast; col++) {
+                float xc = col + 0.5f;
+                // Barycentric weights of the pixel centre.
+                float wa = ((bx - xc)*(cy - yc) - (by - yc)*(cx - xc)) / area;
+                float wb = ((cx - xc)*(ay - yc) - (cy - yc)*(ax - xc)) / area;
+                plot(offset + col, mix(ca, cb, cc, wa, wb, 1 - wa - wb));
+            }
+        }
+    }
+
+    private static int mix(int ca, int cb, int cc, float wa, float wb, float wc) {
+        int result = 0;
+        for (int shift = 0; shift < 32; shift += 8) {
+            float c = (ca >>> shift & 0xFF)*wa + (cb >>> shift & 0xFF)*wb + (cc >>> shift & 0xFF)*wc;
+            result |= Math.max(0, Math.min(255, Math.round(c))) << shift;
+        }
+        return result;
+    }
+
+    private void plot(int index, int argb) {
+        int alpha = argb >>> 24;
+        if (!blending || alpha == 255) {
+            pixels[index] = argb;
+            return;
+        }
+        if (alpha == 0)
+            return;
+        int dst = pixels[index], inverse = 255 - alpha;
+        int a = alpha + ((dst >>> 24) * inverse + 127) / 255;
+        int r = ((argb >>> 16 & 0xFF) * alpha + (dst >>> 16 & 0xFF) * inverse + 127) / 255;
+        int g = ((argb >>> 8 & 0xFF) * alpha + (dst >>> 8 & 0xFF) * inverse + 127) / 255;
+        int b = ((argb & 0xFF) * alpha + (dst & 0xFF) * inverse + 127) / 255;
+        pixels[index] = a << 24 | r << 16 | g << 8 | b;
+    }
+}
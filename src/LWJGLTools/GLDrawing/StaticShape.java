@@ -0,0 +1,448 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package LWJGLTools.GLDrawing;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import org.lwjgl.BufferUtils;
+import org.lwjgl.opengl.GL;
+import static org.lwjgl.opengl.GL11.*;
+import static org.lwjgl.opengl.GL15.*;
+
+/**
+ * A shape which is tessellated once, kept in a vertex buffer object, and then drawn
+ * any number of times at any position, rotation and scale.
+ * <p>
+ * Shapes are obtained from the static factory methods of this class, which mirror the
+ * primitives of {@link GLDrawHelper} without their position and rotation. The factory
+ * returns the same instance for the same parameters, so drawing many disks of one radius
+ * never holds more than one copy of their vertices. Each instance obtained from the factory
+ * should be handed back with {@link #release()} when it is no longer needed; once every
+ * holder has released it, its buffer object is deleted.
+ * <p>
+ * The shape is tessellated for the size it is created with. Drawing it at a large scale
+ * will make its segments visible, so it is best created at the largest size it will be drawn at.
+ * <p>
+ * Drawing with {@link #draw(float, float, float, float)} requires OpenGL 1.1, and uses
+ * a vertex buffer object when OpenGL 1.5 is available.
+ *
+ * @author Murdock Grewar
+ */
+public final class StaticShape {
+
+    private static final HashMap<Key, StaticShape> SHAPES = new HashMap<>();
+
+    private final Key key;
+    private final int mode;
+    // 8 bytes per vertex: the x and y coordinates as floats.
+    private final ByteBuffer vertices;
+    private final int vertexCount;
+    private int vbo = 0;
+    private int references = 0;
+
+    private StaticShape(Key key, int mode, ByteBuffer vertices, int vertexCount) {
+        this.key = key;
+        this.mode = mode;
+        this.vertices = vertices;
+        this.vertexCount = vertexCount;
+    }
+
+    /**
+     * Returns a filled disk centred on the origin.
+     *
+     * @param radius    Disk radius.
+     * @return          The shape.
+     * @see GLDrawHelper#disk(float, float, float)
+     */
+    public static StaticShape disk(float radius) {
+        return ellipseFillSector(radius,radius,0,(float)Shapes.TAU);
+    }
+
+    /**
+     * Returns a sector of a filled disk centred on the origin.
+     *
+     * @param radius            Disk radius.
+     * @param sectorStartAngle  Starting angle (in radians).
+     * @param sectorAngle       Subtended angle (in radians).
+     * @return                  The shape.
+     * @see GLDrawHelper#diskSector(float, float, float, float, float)
+     */
+    public static StaticShape diskSector(float radius, float sectorStartAngle, float sectorAngle) {
+        return ellipseFillSector(radius,radius,sectorStartAngle,sectorAngle);
+    }
+
+    /**
+     * Returns a circle (a hollow disk) centred on the origin.
+     *
+     * @param radius    Circle radius.
+     * @return          The shape.
+     * @see GLDrawHelper#circle(float, float, float)
+     */
+    public static StaticShape circle(float radius) {
+        return ellipse(radius,radius);
+    }
+
+    /**
+     * Returns a sector of a circle (a hollow disk) centred on the origin.
+     *
+     * @param radius            Circle radius.
+     * @param sectorStartAngle  Starting angle (in radians).
+     * @param sectorAngle       Subtended angle (in radians).
+     * @return                  The shape.
+     * @see GLDrawHelper#circleSector(float, float, float, float, float)
+     */
+    public static StaticShape circleSector(float radius, float sectorStartAngle, float sectorAngle) {
+        return ellipseSector(radius,radius,sectorStartAngle,sectorAngle);
+    }
+
+    /**
+     * Returns a filled ellipse centred on the origin, with its major axis along the x axis.
+     *
+     * @param mrad      Minor radius.
+     * @param Mrad      Major radius.
+     * @return          The shape.
+     * @see GLDrawHelper#ellipseFill(float, float, float, float, float)
+     */
+    public static StaticShape ellipseFill(float mrad, float Mrad) {
+        return ellipseFillSector(mrad,Mrad,0,(float)Shapes.TAU);
+    }
+
+    /**
+     * Returns a sector of a filled ellipse centred on the origin, with its major axis along the x axis.
+     *
+     * @param mrad              Minor radius.
+     * @param Mrad              Major radius.
+     * @param sectorStartAngle  Starting angle of sector.
+     * @param sectorAngle       Subtended angle of sector.
+     * @return                  The shape.
+     * @see GLDrawHelper#ellipseFillSector(float, float, float, float, float, float, float)
+     */
+    public static StaticShape ellipseFillSector(float mrad, float Mrad, float sectorStartAngle, float sectorAngle) {
+        Key key = new Key(Kind.ELLIPSE_FILL_SECTOR, mrad, Mrad, sectorStartAngle, sectorAngle);
+        StaticShape shape = lookup(key);
+        if (shape != null)
+            return shape;
+        Recorder r = new Recorder();
+        Shapes.ellipseFillSector(r,0,0,mrad,Mrad,0,sectorStartAngle,sectorAngle);
+        return register(key, r);
+    }
+
+    /**
+     * Returns the outline of an ellipse centred on the origin, with its major axis along the x axis.
+     *
+     * @param mrad      Minor radius.
+     * @param Mrad      Major radius.
+     * @return          The shape.
+     * @see GLDrawHelper#ellipse(float, float, float, float, float)
+     */
+    public static StaticShape ellipse(float mrad, float Mrad) {
+        Key key = new Key(Kind.ELLIPSE, mrad, Mrad);
+        StaticShape shape = lookup(key);
+        if (shape != null)
+            return shape;
+        Recorder r = new Recorder();
+        Shapes.ellipse(r,0,0,mrad,Mrad,0);
+        return register(key, r);
+    }
+
+    /**
+     * Returns the outline of a sector of an ellipse centred on the origin, with its major axis along the x axis.
+     *
+     * @param mrad              Minor radius.
+     * @param Mrad              Major radius.
+     * @param sectorStartAngle  Starting angle of sector.
+     * @param sectorAngle       Subtended angle of sector.
+     * @return                  The shape.
+     * @see GLDrawHelper#ellipseSector(float, float, float, float, float, float, float)
+     */
+    public static StaticShape ellipseSector(float mrad, float Mrad, float sectorStartAngle, float sectorAngle) {
+        Key key = new Key(Kind.ELLIPSE_SECTOR, mrad, Mrad, sectorStartAngle, sectorAngle);
+        StaticShape shape = lookup(key);
+        if (shape != null)
+            return shape;
+        Recorder r = new Recorder();
+        Shapes.ellipseSector(r,0,0,mrad,Mrad,0,sectorStartAngle,sectorAngle);
+        return register(key, r);
+    }
+
+    /**
+     * Returns the outline of an urchin centred on the origin, with its first trough along the x axis.
+     *
+     * @param sRad      Radius of the troughs between the spines.
+     * @param bRad      Radius of the tips of the spines.
+     * @param spines    Number of spines.
+     * @return          The shape.
+     * @see GLDrawHelper#urchin(float, float, float, float, int, float)
+     */
+    public static StaticShape urchin(float sRad, float bRad, int spines) {
+        Key key = new Key(Kind.URCHIN, sRad, bRad, spines);
+        StaticShape shape = lookup(key);
+        if (shape != null)
+            return shape;
+        Recorder r = new Recorder();
+        Shapes.urchin(r,0,0,sRad,bRad,spines,0);
+        return register(key, r);
+    }
+
+    /**
+     * Returns a filled urchin centred on the origin, with its first trough along the x axis.
+     *
+     * @param sRad      Radius of the troughs between the spines.
+     * @param bRad      Radius of the tips of the spines.
+     * @param spines    Number of spines.
+     * @return          The shape.
+     * @see GLDrawHelper#urchinFill(float, float, float, float, int, float)
+     */
+    public static StaticShape urchinFill(float sRad, float bRad, int spines) {
+        Key key = new Key(Kind.URCHIN_FILL, sRad, bRad, spines);
+        StaticShape shape = lookup(key);
+        if (shape != null)
+            return shape;
+        Recorder r = new Recorder();
+        Shapes.urchinFill(r,0,0,sRad,bRad,spines,0);
+        return register(key, r);
+    }
+
+    private static StaticShape lookup(Key key) {
+        synchronized (SHAPES) {
+            StaticShape shape = SHAPES.get(key);
+            if (shape != null)
+                shape.references++;
+            return shape;
+        }
+    }
+
+    private static StaticShape register(Key key, Recorder r) {
+        synchronized (SHAPES) {
+            // Another thread may have built the same shape in the meantime.
+            StaticShape shape = SHAPES.get(key);
+            if (shape == null) {
+                shape = new StaticShape(key, r.mode, r.vertices, r.vertexCount);
+                SHAPES.put(key, shape);
+            }
+            shape.references++;
+            return shape;
+        }
+    }
+
+    /**
+     * Returns the number of distinct shapes currently held by the factory.
+     *
+     * @return  The number of shapes.
+     */
+    public static int getShapeCount() {
+        synchronized (SHAPES) {
+            return SHAPES.size();
+        }
+    }
+
+    /**
+     * Releases every shape held by the factory and deletes their buffer objects,
+     * whether or not they have been released by their holders.
+     * Must be called with a current GL context if any shape has been drawn.
+     */
+    public static void releaseAll() {
+        ArrayList<StaticShape> shapes;
+        synchronized (SHAPES) {
+            shapes = new ArrayList<>(SHAPES.values());
+            SHAPES.clear();
+        }
+        for (StaticShape shape : shapes) {
+            shape.references = 0;
+            shape.deleteBuffer();
+        }
+    }
+
+    /**
+     * Hands this shape back to the factory. Once every holder of the shape has released it,
+     * the factory forgets it and its buffer object is deleted.
+     * Must be called with a current GL context if the shape has been drawn.
+     */
+    public void release() {
+        synchronized (SHAPES) {
+            if (references == 0)
+                return;
+            if (--references > 0)
+                return;
+            SHAPES.remove(key);
+        }
+        deleteBuffer();
+    }
+
+    private void deleteBuffer() {
+        if (vbo != 0) {
+            glDeleteBuffers(vbo);
+            vbo = 0;
+        }
+    }
+
+    /**
+     * Draws this shape with its origin at the given position.
+     *
+     * @param x         x coordinate of the origin of the shape.
+     * @param y         y coordinate of the origin of the shape.
+     */
+    public void draw(float x, float y) {
+        draw(x,y,0,1);
+    }
+
+    /**
+     * Draws this shape with its origin at the given position, rotated counter-clockwise
+     * about its origin and then scaled.
+     *
+     * @param x         x coordinate of the origin of the shape.
+     * @param y         y coordinate of the origin of the shape.
+     * @param angle     Angle of rotation (in radians).
+     * @param scale     Scale factor.
+     */
+    public void draw(float x, float y, float angle, float scale) {
+        glPushMatrix();
+            glTranslatef(x,y,0);
+            if (angle != 0)
+                glRotatef((float)Math.toDegrees(angle),0,0,1);
+            if (scale != 1)
+                glScalef(scale,scale,1);
+
+            glEnableClientState(GL_VERTEX_ARRAY);
+            if (bufferObject() != 0) {
+                glBindBuffer(GL_ARRAY_BUFFER, vbo);
+                glVertexPointer(2, GL_FLOAT, 8, 0L);
+                glDrawArrays(mode, 0, vertexCount);
+                glBindBuffer(GL_ARRAY_BUFFER, 0);
+            } else {
+                glVertexPointer(2, GL_FLOAT, 8, vertices);
+                glDrawArrays(mode, 0, vertexCount);
+            }
+            glDisableClientState(GL_VERTEX_ARRAY);
+        glPopMatrix();
+    }
+
+    /**
+     * Draws this shape into a {@link PrimitiveSink}, such as a {@link GLDrawBatch}, transforming
+     * its vertices on the CPU. No OpenGL calls are made.
+     *
+     * @param s         The sink to draw into.
+     * @param x         x coordinate of the origin of the shape.
+     * @param y         y coordinate of the origin of the shape.
+     * @param angle     Angle of rotation (in radians).
+     * @param scale     Scale factor.
+     */
+    public void draw(PrimitiveSink s, float x, float y, float angle, float scale) {
+        float cos = (float)Math.cos(angle)*scale, sin = (float)Math.sin(angle)*scale;
+        s.begin(mode);
+            for (int i = 0; i < vertexCount; i++) {
+                float vx = vertices.getFloat(i*8), vy = vertices.getFloat(i*8 + 4);
+                s.vertex(x + cos*vx - sin*vy, y + sin*vx + cos*vy);
+            }
+        s.end();
+    }
+
+    int bufferObject() {
+        if (vbo == 0 && GL.getCapabilities().OpenGL15) {
+            vbo = glGenBuffers();
+            glBindBuffer(GL_ARRAY_BUFFER, vbo);
+            glBufferData(GL_ARRAY_BUFFER, vertices, GL_STATIC_DRAW);
+            glBindBuffer(GL_ARRAY_BUFFER, 0);
+        }
+        return vbo;
+    }
+
+    /**
+     * Returns the primitive mode this shape is drawn with, as a {@link org.lwjgl.opengl.GL11} constant.
+     *
+     * @return  The primitive mode.
+     */
+    public int getMode() {
+        return mode;
+    }
+
+    /**
+     * Returns the number of vertices in this shape.
+     *
+     * @return  The vertex count.
+     */
+    public int getVertexCount() {
+        return vertexCount;
+    }
+
+    /**
+     * Returns a read-only view of the vertices of this shape, as pairs of x and y floats.
+     *
+     * @return  The vertex data.
+     */
+    public ByteBuffer getVertexData() {
+        return vertices.asReadOnlyBuffer().order(vertices.order());
+    }
+
+    private enum Kind {
+        ELLIPSE_FILL_SECTOR,
+        ELLIPSE,
+        ELLIPSE_SECTOR,
+        URCHIN,
+        URCHIN_FILL;
+    }
+
+    // The parameters a shape was created with, by which identical shapes are found.
+    private static final class Key {
+        private final Kind kind;
+        private final float[] params;
+
+        private Key(Kind kind, float... params) {
+            this.kind = kind;
+            this.params = params;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key))
+                return false;
+            Key k = (Key)o;
+            return kind == k.kind && Arrays.equals(params, k.params);
+        }
+
+        @Override
+        public int hashCode() {
+            return kind.hashCode() * 31 + Arrays.hashCode(params);
+        }
+    }
+
+    // Collects the single primitive described by Shapes into a direct buffer.
+    private static final class Recorder implements PrimitiveSink {
+        private int mode;
+        private ByteBuffer vertices = BufferUtils.createByteBuffer(64 * 8);
+        private int vertexCount = 0;
+
+        @Override
+        public void begin(int mode) {
+            this.mode = mode;
+        }
+
+        @Override
+        public void vertex(float x, float y) {
+            if ((vertexCount + 1) * 8 > vertices.capacity()) {
+                ByteBuffer larger = BufferUtils.createByteBuffer(vertices.capacity() * 2);
+                larger.put(vertices);
+                larger.clear();
+                vertices = larger;
+            }
+            vertices.putFloat(vertexCount*8, x);
+            vertices.putFloat(vertexCount*8 + 4, y);
+            vertexCount++;
+        }
+
+        @Override
+        public void end() {
+            // Trim the buffer down to the vertices it holds.
+            ByteBuffer trimmed = BufferUtils.createByteBuffer(vertexCount * 8);
+            vertices.limit(vertexCount * 8);
+            trimmed.put(vertices);
+            trimmed.clear();
+            vertices = trimmed;
+        }
+    }
+}
@@ -0,0 +1,414 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package LWJGLTools.GLDrawing;
+
+import java.util.Arrays;
+import static org.lwjgl.opengl.GL11.*;
+
+/**
+ * Turns lines into filled triangles of a given width, so that thick lines can be drawn
+ * without {@code glLineWidth}, which core profiles cap at a width of 1.
+ * <p>
+ * A stroker is a {@link PrimitiveSink} placed in front of another. Line primitives
+ * ({@link org.lwjgl.opengl.GL11#GL_LINES}, {@link org.lwjgl.opengl.GL11#GL_LINE_STRIP} and
+ * {@link org.lwjgl.opengl.GL11#GL_LINE_LOOP}) are collected, extruded on the CPU, and passed on
+ * as {@link org.lwjgl.opengl.GL11#GL_TRIANGLES}; any other primitive is passed on untouched.
+ * Polylines may also be given directly as coordinate arrays with {@link #polyline(float[], int, boolean)}.
+ * <p>
+ * Each segment becomes a quad, and the gap on the outside of every corner is filled according
+ * to the {@link Join}. The ends of open polylines are finished according to the {@link Cap}.
+ * As the quads of adjacent segments overlap slightly on the inside of corners,
+ * translucent strokes may appear a little darker there.
+ * <p>
+ * When the target is a {@link GLDrawBatch}, every stroke of every width lands in the same run of
+ * triangles, and so many polylines are drawn with a single draw call.
+ *
+ * @author Murdock Grewar
+ * @see GLDrawHelper#setExtrudedStrokes(boolean)
+ * @see GLDrawBatch#setExtrudedStrokes(boolean)
+ */
+public final class Stroker implements PrimitiveSink {
+
+    /**
+     * An enum of the ways the outside of a corner between two segments may be filled.
+     */
+    public enum Join {
+        /**
+         * Extends the outer edges of both segments until they meet, or falls back to
+         * {@link #BEVEL} if they would meet further out than the miter limit.
+         */
+        MITER,
+        /**
+         * Connects the outer corners of both segments with a straight edge.
+         */
+        BEVEL,
+        /**
+         * Connects the outer corners of both segments with a circular arc.
+         */
+        ROUND;
+    }
+
+    /**
+     * An enum of the ways the ends of an open polyline may be finished.
+     */
+    public enum Cap {
+        /**
+         * Ends the stroke flush with the end point.
+         */
+        BUTT,
+        /**
+         * Extends the stroke past the end point by half its width.
+         */
+        SQUARE,
+        /**
+         * Ends the stroke with a semicircle centred on the end point.
+         */
+        ROUND;
+    }
+
+    // Coincident points closer than this are merged, so that every segment has a direction.
+    private static final float EPSILON = 1e-6f;
+
+    private static final int NO_PRIMITIVE = -1;
+
+    private PrimitiveSink target;
+
+    private float width = 1;
+    private Join join = Join.MITER;
+    private Cap cap = Cap.BUTT;
+    private float miterLimit = 4;
+
+    // The line primitive being collected, or NO_PRIMITIVE if primitives are being passed on.
+    private int mode = NO_PRIMITIVE;
+    private boolean passing = false;
+    private float[] points = new float[64];
+    private int pointCount = 0;
+    // The indices of the points of the primitive being stroked which are kept, grown as needed.
+    private int[] kept = new int[32];
+
+    /**
+     * Returns a new stroker which passes its triangles on to the given sink.
+     *
+     * @param target    The sink to receive the triangles.
+     */
+    public Stroker(PrimitiveSink target) {
+        if (target == null)
+            throw new IllegalArgumentException("The target must not be null.");
+        this.target = target;
+    }
+
+    void setTarget(PrimitiveSink target) {
+        this.target = target;
+    }
+
+    /**
+     * Sets the width of subsequent strokes, in drawing coordinates.
+     *
+     * @param width     The stroke width.
+     */
+    public void setWidth(float width) {
+        if (!(width >= 0))
+            throw new IllegalArgumentException("The stroke width must not be negative.");
+        this.width = width;
+    }
+
+    /**
+     * Sets the way the corners of subsequent strokes are filled.
+     *
+     * @param join      The join style.
+     */
+    public void setJoin(Join join) {
+        if (join == null)
+            throw new IllegalArgumentException("The join must not be null.");
+        this.join = join;
+    }
+
+    /**
+     * Sets the way the ends of subsequent open strokes are finished.
+     *
+     * @param cap       The cap style.
+     */
+    public void setCap(Cap cap) {
+        if (cap == null)
+            throw new IllegalArgumentException("The cap must not be null.");
+        this.cap = cap;
+    }
+
+    /**
+     * Sets the furthest a {@link Join#MITER} join may reach from its corner,
+     * as a multiple of half the stroke width. The default is 4.
+     *
+     * @param limit     The miter limit, at least 1.
+     */
+    public void setMiterLimit(float limit) {
+        if (!(limit >= 1))
+            throw new IllegalArgumentException("The miter limit must be at least 1.");
+        this.miterLimit = limit;
+    }
+
+    /**
+     * Returns the width of subsequent strokes, in drawing coordinates.
+     *
+     * @return  The stroke width.
+     */
+    public float getWidth() {
+        return width;
+    }
+
+    /**
+     * Returns the way the corners of subsequent strokes are filled.
+     *
+     * @return  The join style.
+     */
+    public Join getJoin() {
+        return join;
+    }
+
+    /**
+     * Returns the way the ends of subsequent open strokes are finished.
+     *
+     * @return  The cap style.
+     */
+    public Cap getCap() {
+        return cap;
+    }
+
+    /**
+     * Returns the furthest a {@link Join#MITER} join may reach from its corner,
+     * as a multiple of half the stroke width.
+     *
+     * @return  The miter limit.
+     */
+    public float getMiterLimit() {
+        return miterLimit;
+    }
+
+    @Override
+    public void begin(int mode) {
+        if (this.mode != NO_PRIMITIVE || passing)
+            throw new IllegalStateException("begin() was called twice without a call to end().");
+        switch (mode) {
+            case GL_LINES:
+            case GL_LINE_STRIP:
+            case GL_LINE_LOOP:
+                this.mode = mode;
+                pointCount = 0;
+                break;
+            default:
+                passing = true;
+                target.begin(mode);
+        }
+    }
+
+    @Override
+    public void vertex(float x, float y) {
+        if (passing) {
+            target.vertex(x, y);
+            return;
+        }
+        if (mode == NO_PRIMITIVE)
+            throw new IllegalStateException("vertex() was called outside of begin() and end().");
+        if (pointCount * 2 == points.length)
+            points = Arrays.copyOf(points, points.length * 2);
+        points[pointCount * 2] = x;
+        points[pointCount * 2 + 1] = y;
+        pointCount++;
+    }
+
+    @Override
+    public void end() {
+        if (passing) {
+            passing = false;
+            target.end();
+            return;
+        }
+        int m = mode;
+        if (m == NO_PRIMITIVE)
+            throw new IllegalStateException("end() was called without a matching call to begin().");
+        mode = NO_PRIMITIVE;
+        if (m == GL_LINES) {
+            target.begin(GL_TRIANGLES);
+            for (int i = 0; i + 1 < pointCount; i += 2)
+                stroke(points, i, 2, false);
+            target.end();
+        } else {
+            polyline(points, pointCount, m == GL_LINE_LOOP);
+        }
+    }
+
+    /**
+     * Strokes a polyline given as consecutive x, y coordinate pairs.
+     *
+     * @param xy        The coordinates of the points.
+     * @param count     The number of points.
+     * @param closed    Whether the last point should be joined back to the first.
+     */
+    public void polyline(float[] xy, int count, boolean closed) {
+        if (xy.length < count * 2)
+            throw new IndexOutOfBoundsException("Fewer than " + count + " points were supplied.");
+        target.begin(GL_TRIANGLES);
+        stroke(xy, 0, count, closed);
+        target.end();
+    }
+
+    // Extrudes count points starting at the given point into triangles. Called between target.begin() and target.end().
+    private void stroke(float[] xy, int first, int count, boolean closed) {
+        float hw = width / 2;
+        if (hw == 0 || count < 2)
+            return;
+
+        // Drop repeated points, keeping the indices of the remaining ones.
+        int n = keepPoints(xy, first, count);
+        int[] kept = this.kept;
+        if (closed && n > 2 && near(xy, kept[0], kept[n - 1]))
+            n--;
+        if (n < 2) {
+            // A stroke of zero length still shows its caps, as a dot.
+            if (!closed && cap != Cap.BUTT)
+                dot(xy[kept[0]*2], xy[kept[0]*2 + 1], hw);
+            return;
+        }
+        if (n == 2)
+            closed = false;
+
+        int segments = closed ? n : n - 1;
+        for (int i = 0; i < segments; i++) {
+            int a = kept[i], b = kept[(i + 1) % n];
+            float ax = xy[a*2], ay = xy[a*2 + 1];
+            float bx = xy[b*2], by = xy[b*2 + 1];
+            float dx = bx - ax, dy = by - ay;
+            float len = (float)Math.sqrt(dx*dx + dy*dy);
+            dx /= len;
+            dy /= len;
+            float nx = -dy * hw, ny = dx * hw;
+
+            if (!closed && cap == Cap.SQUARE) {
+                // Push the open ends outwards by half the width.
+                if (i == 0) {
+                    ax -= dx * hw;
+                    ay -= dy * hw;
+                }
+                if (i == segments - 1) {
+                    bx += dx * hw;
+                    by += dy * hw;
+                }
+            }
+            quad(ax + nx, ay + ny, ax - nx, ay - ny, bx - nx, by - ny, bx + nx, by + ny);
+        }
+
+        int firstJoin = closed ? 0 : 1, lastJoin = closed ? n - 1 : n - 2;
+        for (int i = firstJoin; i <= lastJoin; i++)
+            join(xy, kept[(i + n - 1) % n], kept[i], kept[(i + 1) % n], hw);
+
+        if (!closed && cap == Cap.ROUND) {
+            roundCap(xy, kept[1], kept[0], hw);
+            roundCap(xy, kept[n - 2], kept[n - 1], hw);
+        }
+    }
+
+    // Stores the indices of the points that differ from their predecessor in kept, and returns their number.
+    private int keepPoints(float[] xy, int first, int count) {
+        if (kept.length < count)
+            kept = new int[Math.max(count, kept.length * 2)];
+        int n = 0;
+        for (int i = first; i < first + count; i++) {
+            if (n == 0 || !near(xy, kept[n - 1], i))
+                kept[n++] = i;
+        }
+        return n;
+    }
+
+    private static boolean near(float[] xy, int a, int b) {
+        return Math.abs(xy[a*2] - xy[b*2]) <= EPSILON && Math.abs(xy[a*2 + 1] - xy[b*2 + 1]) <= EPSILON;
+    }
+
+    // Fills the outside of the corner at point b, between the segments from a and to c.
+    private void join(float[] xy, int a, int b, int c, float hw) {
+        float bx = xy[b*2], by = xy[b*2 + 1];
+        float d0x = bx - xy[a*2], d0y = by - xy[a*2 + 1];
+        float d1x = xy[c*2] - bx, d1y = xy[c*2 + 1] - by;
+        float l0 = (float)Math.sqrt(d0x*d0x + d0y*d0y), l1 = (float)Math.sqrt(d1x*d1x + d1y*d1y);
+        d0x /= l0; d0y /= l0;
+        d1x /= l1; d1y /= l1;
+
+        float cross = d0x*d1y - d0y*d1x;
+        float dot = d0x*d1x + d0y*d1y;
+        if (Math.abs(cross) < EPSILON && dot > 0)
+            return; // Straight on; the quads already meet.
+
+        // The outside of a left turn is on the right, and vice versa.
+        float side = cross > 0 ? -1 : 1;
+        float p0x = bx - d0y*hw*side, p0y = by + d0x*hw*side;
+        float p1x = bx - d1y*hw*side, p1y = by + d1x*hw*side;
+
+        switch (join) {
+            case MITER:
+                // The tip lies along the bisector of the outer normals, at hw / cos(half the turn).
+                float mx = -(d0y + d1y)*side, my = (d0x + d1x)*side;
+                float mlen = (float)Math.sqrt(mx*mx + my*my);
+                float cosHalf = (float)Math.sqrt(Math.max(0, (1 + dot) / 2));
+                if (mlen > EPSILON && cosHalf * miterLimit >= 1) {
+                    float reach = hw / cosHalf / mlen;
+                    triangle(bx, by, p0x, p0y, bx + mx*reach, by + my*reach);
+                    triangle(bx, by, bx + mx*reach, by + my*reach, p1x, p1y);
+                    return;
+                }
+                triangle(bx, by, p0x, p0y, p1x, p1y);
+                return;
+            case BEVEL:
+                triangle(bx, by, p0x, p0y, p1x, p1y);
+                return;
+            case ROUND:
+                float turn = (float)Math.atan2(Math.abs(cross), dot);
+                fan(bx, by, p0x - bx, p0y - by, -side * turn, hw);
+                return;
+            default:
+                throw new IllegalStateException("Unknown join: " + join);
+        }
+    }
+
+    // Adds a semicircle to the end of the segment running from point a to point b.
+    private void roundCap(float[] xy, int a, int b, float hw) {
+        float bx = xy[b*2], by = xy[b*2 + 1];
+        float dx = bx - xy[a*2], dy = by - xy[a*2 + 1];
+        float len = (float)Math.sqrt(dx*dx + dy*dy);
+        // Sweep clockwise from the left side of the segment, round the front, to the right side.
+        fan(bx, by, -dy / len * hw, dx / len * hw, (float)-Math.PI, hw);
+    }
+
+    private void dot(float x, float y, float hw) {
+        if (cap == Cap.ROUND) {
+            fan(x, y, hw, 0, (float)Shapes.TAU, hw);
+        } else {
+            quad(x - hw, y - hw, x + hw, y - hw, x + hw, y + hw, x - hw, y + hw);
+        }
+    }
+
+    // Adds triangles about (cx, cy), sweeping the offset (ox, oy) through the given angle.
+    private void fan(float cx, float cy, float ox, float oy, float sweep, float radius) {
+        int slices = LevelOfDetail.sliceCount(radius, sweep);
+        double step = sweep / slices;
+        float cos = (float)Math.cos(step), sin = (float)Math.sin(step);
+        float px = ox, py = oy;
+        for (int i = 0; i < slices; i++) {
+            float qx = px*cos - py*sin, qy = px*sin + py*cos;
+            triangle(cx, cy, cx + px, cy + py, cx + qx, cy + qy);
+            px = qx;
+            py = qy;
+        }
+    }
+
+    private void quad(float x0, float y0, float x1, float y1, float x2, float y2, float x3, float y3) {
+        triangle(x0, y0, x1, y1, x2, y2);
+        triangle(x0, y0, x2, y2, x3, y3);
+    }
+
+    private void triangle(float x0, float y0, float x1, float y1, float x2, float y2) {
+        target.vertex(x0, y0);
+        target.vertex(x1, y1);
+        target.vertex(x2, y2);
+    }
+}
@@ -0,0 +1,254 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package LWJGLTools.GLDrawing;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The shared tessellation engine behind the ellipse, disk and urchin primitives.
+ * <p>
+ * Every point on an ellipse is the image of a point on the unit circle under a single
+ * 2x2 matrix, composed once per shape from the radii, the rotation of the ellipse and the
+ * starting angle of the sector. The unit circle points themselves come from tables of
+ * cosines and sines which are cached by slice count, so a full ellipse costs one table
+ * lookup and two multiply-adds per vertex instead of several trigonometric calls.
+ * The cache is read without locking, so that threads tessellating in parallel do not contend on it.
+ * Each exact slice count has its own table; in the adaptive mode, {@link LevelOfDetail} rounds the
+ * slice counts of whole turns to a few values, so that they share fewer tables.
+ * <p>
+ * A partial sector cannot share a table with anything else, so its unit circle points are
+ * produced by repeatedly rotating the previous one by the (precomputed) slice angle.
+ * <p>
+ * Evenly spaced angles suit circles, but waste vertices on the flat sides of an eccentric ellipse.
+ * Such ellipses are instead stepped along with an angle that adapts to the local curvature,
+ * so that every segment makes the same chord error as the segments at the sharp ends.
+ *
+ * @author Murdock Grewar
+ */
+final class Tessellator {
+
+    private static final double TAU = 2d * Math.PI;
+
+    // Ellipses whose minor radius is below this fraction of the major radius are tessellated by curvature.
+    private static final float ECCENTRIC_RATIO = 0.8f;
+
+    // The largest angle stepped at once when tessellating by curvature, small enough for the series below to be exact in floats.
+    private static final double MAX_CURVATURE_STEP = Math.PI / 8;
+
+    // The number of unit circle tables kept, as a power of two. Each slice count hashes to a single slot.
+    // The fixed mode gives every radius its own count, so there are enough slots for a scene of varied radii.
+    private static final int TABLE_BITS = 8;
+
+    // A table is identified by its length, which is (slices + 1) * 2. A racing thread may replace a
+    // table with an equal one, or with that of another slice count, which costs only a recomputation.
+    private static final AtomicReferenceArray<float[]> tables = new AtomicReferenceArray<>(1 << TABLE_BITS);
+
+    private Tessellator() {
+    }
+
+    /**
+     * Returns the cosines and sines of {@code i*TAU/slices} for {@code i} from 0 to {@code slices} inclusive,
+     * interleaved as {@code cos, sin, cos, sin, ...}. The returned array must not be modified.
+     */
+    static float[] unitCircle(int slices) {
+        int slot = (slices * 0x9E3779B9) >>> (32 - TABLE_BITS);
+        float[] table = tables.get(slot);
+        if (table != null && table.length == (slices + 1) * 2)
+            return table;
+
+        table = new float[(slices + 1) * 2];
+        for (int i = 0; i < slices; i++) {
+            double t = i * TAU / slices;
+            table[i*2] = (float)Math.cos(t);
+            table[i*2 + 1] = (float)Math.sin(t);
+        }
+        // Close the circle exactly.
+        table[slices*2] = 1;
+        table[slices*2 + 1] = 0;
+
+        tables.set(slot, table);
+        return table;
+    }
+
+    /**
+     * Emits the vertices along a sector of an ellipse, from its starting angle to its end,
+     * with as many as are needed to satisfy the current {@link LevelOfDetail}.
+     *
+     * @param s                 The sink to emit the vertices to.
+     * @param x                 Origin x coordinate.
+     * @param y                 Origin y coordinate.
+     * @param mrad              Minor radius.
+     * @param Mrad              Major radius.
+     * @param angle             Angle of rotation of the ellipse.
+     * @param sectorStartAngle  Starting angle of the sector, relative to the rotation of the ellipse.
+     * @param sectorAngle       Subtended angle of the sector. Negative angles run clockwise.
+     */
+    static void ellipse(PrimitiveSink s, float x, float y, float mrad, float Mrad, float angle,
+            float sectorStartAngle, float sectorAngle) {
+
+        float a = Math.abs(Mrad), b = Math.abs(mrad);
+        float largest = Math.max(a, b), smallest = Math.min(a, b);
+        // Vertices sent through a CPU transformation are stretched by it before they reach the screen.
+        float scale = (s instanceof Transform2D.Sink) ? ((Transform2D.Sink)s).scale() : 1;
+        if (smallest > 0 && smallest < ECCENTRIC_RATIO * largest) {
+            ellipseArcByCurvature(s,x,y,mrad,Mrad,angle,sectorStartAngle,sectorAngle,
+                    LevelOfDetail.chordError(largest,scale), LevelOfDetail.maxSlices());
+        } else {
+            ellipseArc(s,x,y,mrad,Mrad,angle,sectorStartAngle,sectorAngle,
+                    LevelOfDetail.sliceCount(largest,sectorAngle,scale));
+        }
+    }
+
+    /**
+     * Emits {@code sliceCount + 1} vertices along a sector of an ellipse, from its starting angle to its end.
+     *
+     * @param s                 The sink to emit the vertices to.
+     * @param x                 Origin x coordinate.
+     * @param y                 Origin y coordinate.
+     * @param mrad              Minor radius.
+     * @param Mrad              Major radius.
+     * @param angle             Angle of rotation of the ellipse.
+     * @param sectorStartAngle  Starting angle of the sector, relative to the rotation of the ellipse.
+     * @param sectorAngle       Subtended angle of the sector. Negative angles run clockwise.
+     * @param sliceCount        Number of straight segments to divide the sector into.
+     */
+    static void ellipseArc(PrimitiveSink s, float x, float y, float mrad, float Mrad, float angle,
+            float sectorStartAngle, float sectorAngle, int sliceCount) {
+
+        sliceCount = Math.max(sliceCount, 1);
+        double cosA = Math.cos(angle), sinA = Math.sin(angle);
+
+        if (Math.abs(Math.abs(sectorAngle) - TAU) < 1e-6) {
+            // Any whole turn can be read from a table, after rotating the start of the table to the start of the sector.
+            double cosS = Math.cos(sectorStartAngle), sinS = Math.sin(sectorStartAngle);
+            double flip = sectorAngle < 0 ? -1 : 1;
+            float m00 = (float)( Mrad*cosA*cosS - mrad*sinA*sinS);
+            float m01 = (float)((-Mrad*cosA*sinS - mrad*sinA*cosS)*flip);
+            float m10 = (float)( Mrad*sinA*cosS + mrad*cosA*sinS);
+            float m11 = (float)((-Mrad*sinA*sinS + mrad*cosA*cosS)*flip);
+
+            float[] table = unitCircle(sliceCount);
+            for (int i = 0; i <= sliceCount; i++) {
+                float c = table[i*2], sn = table[i*2 + 1];
+                s.vertex(x + m00*c + m01*sn, y + m10*c + m11*sn);
+            }
+            return;
+        }
+
+        float m00 = (float)( Mrad*cosA), m01 = (float)(-mrad*sinA);
+        float m10 = (float)( Mrad*sinA), m11 = (float)( mrad*cosA);
+
+        double step = (double)sectorAngle / sliceCount;
+        double cosStep = Math.cos(step), sinStep = Math.sin(step);
+        double c = Math.cos(sectorStartAngle), sn = Math.sin(sectorStartAngle);
+        for (int i = 0; i <= sliceCount; i++) {
+            s.vertex(x + m00*(float)c + m01*(float)sn, y + m10*(float)c + m11*(float)sn);
+            double next = c*cosStep - sn*sinStep;
+            sn = sn*cosStep + c*sinStep;
+            c = next;
+        }
+    }
+
+    /**
+     * Emits the vertices along a sector of an ellipse, from its starting angle to its end, spaced so that
+     * no segment strays further than {@code maxError} from the ellipse.
+     * <p>
+     * A chord spanning a small step {@code dt} of the parametric angle strays from an ellipse with radii
+     * {@code a} and {@code b} by about {@code a*b*dt*dt / (8*v)}, where {@code v = sqrt(a*a*sin(t)^2 + b*b*cos(t)^2)}
+     * is the speed of the parametrisation. Each step is chosen to make that error exactly {@code maxError}.
+     *
+     * @param s                 The sink to emit the vertices to.
+     * @param x                 Origin x coordinate.
+     * @param y                 Origin y coordinate.
+     * @param mrad              Minor radius.
+     * @param Mrad              Major radius.
+     * @param angle             Angle of rotation of the ellipse.
+     * @param sectorStartAngle  Starting angle of the sector, relative to the rotation of the ellipse.
+     * @param sectorAngle       Subtended angle of the sector. Negative angles run clockwise.
+     * @param maxError          The furthest a segment may stray from the ellipse.
+     * @param maxSlices         The greatest number of segments a whole turn may be divided into.
+     */
+    static void ellipseArcByCurvature(PrimitiveSink s, float x, float y, float mrad, float Mrad, float angle,
+            float sectorStartAngle, float sectorAngle, double maxError, int maxSlices) {
+
+        double cosA = Math.cos(angle), sinA = Math.sin(angle);
+        float m00 = (float)( Mrad*cosA), m01 = (float)(-mrad*sinA);
+        float m10 = (float)( Mrad*sinA), m11 = (float)( mrad*cosA);
+
+        double aa = (double)Mrad*Mrad, bb = (double)mrad*mrad;
+        double k = Math.sqrt(8 * maxError / Math.abs((double)Mrad*mrad));
+        double minStep = TAU / Math.max(maxSlices, 1);
+        double direction = sectorAngle < 0 ? -1 : 1;
+        double remaining = Math.abs((double)sectorAngle);
+
+        double c = Math.cos(sectorStartAngle), sn = Math.sin(sectorStartAngle);
+        s.vertex(x + m00*(float)c + m01*(float)sn, y + m10*(float)c + m11*(float)sn);
+
+        while (remaining > 0) {
+            double speed = Math.sqrt(aa*sn*sn + bb*c*c);
+            double step = Math.min(MAX_CURVATURE_STEP, k * Math.sqrt(speed));
+            // The error is set by the slowest, most curved, part of the step. The speed only changes direction where the
+            // sine or cosine passes through zero, so that is either the far end, or the end of the axis if the step crosses it.
+            double h = step * direction;
+            double ec = c - sn*h, es = sn + c*h;
+            double endSpeed = (es*sn < 0) ? Math.sqrt(bb) : Math.sqrt((aa*es*es + bb*ec*ec) / (ec*ec + es*es));
+            if (endSpeed < speed)
+                step = Math.min(step, k * Math.sqrt(endSpeed));
+            step = Math.max(minStep, step);
+            if (step >= remaining) {
+                // Land exactly on the end of the sector.
+                double end = sectorStartAngle + (double)sectorAngle;
+                c = Math.cos(end);
+                sn = Math.sin(end);
+                s.vertex(x + m00*(float)c + m01*(float)sn, y + m10*(float)c + m11*(float)sn);
+                break;
+            }
+            if (remaining - step < step / 4) {
+                // Split the remainder evenly rather than leave a sliver of a segment at the end.
+                step = remaining / 2;
+            }
+
+            // Rotate by the step using the Taylor series of its cosine and sine, then pull back onto the unit circle.
+            h = step * direction;
+            double h2 = h*h;
+            double cosH = 1 - h2/2*(1 - h2/12*(1 - h2/30));
+            double sinH = h*(1 - h2/6*(1 - h2/20*(1 - h2/42)));
+            double next = c*cosH - sn*sinH;
+            sn = sn*cosH + c*sinH;
+            c = next;
+            double norm = (3 - (c*c + sn*sn)) / 2;
+            c *= norm;
+            sn *= norm;
+
+            remaining -= step;
+            s.vertex(x + m00*(float)c + m01*(float)sn, y + m10*(float)c + m11*(float)sn);
+        }
+    }
+
+    /**
+     * Emits the {@code spines*2 + 1} vertices of an urchin, alternating between the trough
+     * and spine radii and finishing where it started.
+     *
+     * @param s         The sink to emit the vertices to.
+     * @param x         Origin x coordinate.
+     * @param y         Origin y coordinate.
+     * @param sRad      Radius of the troughs between the spines.
+     * @param bRad      Radius of the tips of the spines.
+     * @param spines    Number of spines.
+     * @param angle     Angle of rotation of the urchin.
+     */
+    static void star(PrimitiveSink s, float x, float y, float sRad, float bRad, int spines, float angle) {
+        int sliceCount = Math.max(spines*2, 1);
+        float cosA = (float)Math.cos(angle), sinA = (float)Math.sin(angle);
+
+        float[] table = unitCircle(sliceCount);
+        for (int i = 0; i <= sliceCount; i++) {
+            float rad = (i % 2 == 0) ? sRad : bRad;
+            float c = table[i*2]*rad, sn = table[i*2 + 1]*rad;
+            s.vertex(x + cosA*c - sinA*sn, y + sinA*c + cosA*sn);
+        }
+    }
+}
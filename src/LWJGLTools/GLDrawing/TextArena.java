@@ -0,0 +1,86 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package LWJGLTools.GLDrawing;
+
+import java.nio.ByteBuffer;
+import org.lwjgl.BufferUtils;
+import static org.lwjgl.stb.STBEasyFont.stb_easy_font_print;
+
+/**
+ * A per-thread, growable direct buffer which text is tessellated into.
+ * <p>
+ * Direct buffers are expensive to allocate and release, so each thread keeps one
+ * and only replaces it when a string needs more room than it has ever needed before.
+ * Once the largest string has been seen, printing allocates nothing.
+ *
+ * @author Murdock Grewar
+ */
+final class TextArena {
+
+    // Each quad written by stb_easy_font_print occupies four vertices of 16 bytes.
+    static final int BYTES_PER_QUAD = 64;
+
+    //270 bytes per character is the recommended amount. It is not enough.
+    private static final int BYTES_PER_CHAR = 540;
+
+    private static final ThreadLocal<TextArena> ARENA = new ThreadLocal<TextArena>() {
+        @Override
+        protected TextArena initialValue() {
+            return new TextArena();
+        }
+    };
+
+    private ByteBuffer buffer = BufferUtils.createByteBuffer(64 * BYTES_PER_CHAR);
+    private int quads;
+
+    private TextArena() {
+    }
+
+    /**
+     * Returns the arena belonging to the calling thread.
+     */
+    static TextArena get() {
+        return ARENA.get();
+    }
+
+    /**
+     * Tessellates the given text with its top-left corner at the origin, replacing the previous contents of this arena.
+     *
+     * @param text      The text to print.
+     * @return          The number of quads written.
+     */
+    int print(CharSequence text) {
+        ensureCapacity(text.length() * BYTES_PER_CHAR);
+        while (true) {
+            buffer.clear();
+            quads = stb_easy_font_print(0, 0, text, null, buffer);
+            // stb_easy_font silently stops once the buffer is full, so make sure that it was not.
+            if ((quads + 1) * BYTES_PER_QUAD <= buffer.capacity())
+                return quads;
+            ensureCapacity(buffer.capacity() * 2);
+        }
+    }
+
+    /**
+     * Returns the buffer holding the quads of the last call to {@link #print(java.lang.CharSequence)},
+     * at 16 bytes per vertex: x, y and z as floats, followed by four bytes of colour.
+     */
+    ByteBuffer buffer() {
+        return buffer;
+    }
+
+    /**
+     * Returns the number of quads written by the last call to {@link #print(java.lang.CharSequence)}.
+     */
+    int quads() {
+        return quads;
+    }
+
+    private void ensureCapacity(int bytes) {
+        if (buffer.capacity() < bytes)
+            buffer = BufferUtils.createByteBuffer(Math.max(bytes, buffer.capacity() * 2));
+    }
+}
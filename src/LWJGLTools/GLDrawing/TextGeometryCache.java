@@ -0,0 +1,280 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package LWJGLTools.GLDrawing;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import org.lwjgl.BufferUtils;
+import org.lwjgl.opengl.GL;
+import static org.lwjgl.opengl.GL15.*;
+
+/**
+ * A bounded, least-recently-used cache of the quad geometry produced for strings
+ * by {@link GLDrawHelper#drawString(float, float, java.lang.String, float)}.
+ * <p>
+ * Geometry is stored unscaled and untranslated, so a single entry serves a string
+ * drawn at any position and any scale. When OpenGL 1.5 is available, the geometry of an
+ * entry is uploaded into a vertex buffer object once it has been drawn immediately twice,
+ * and never sent again until the entry is evicted.
+ * <p>
+ * A string is only admitted the second time it is looked up within a short while. Strings which change
+ * every frame, such as counters and timers, are therefore drawn straight from the shared text buffer,
+ * without allocating anything or evicting the strings which do repeat.
+ * <p>
+ * The cache is limited both by its number of entries and by the number of bytes of geometry it holds.
+ * Strings whose geometry alone exceeds the byte limit are never cached.
+ * The hit, miss and eviction counters are provided to help choose these limits.
+ * <p>
+ * A cache is not thread-safe. It is intended to be used from the thread with the OpenGL context.
+ *
+ * @author Murdock Grewar
+ * @see GLDrawHelper#setTextCache(LWJGLTools.GLDrawing.TextGeometryCache)
+ */
+public final class TextGeometryCache {
+
+    /**
+     * The geometry of a single cached string.
+     */
+    static final class Entry {
+        // 8 bytes per vertex: the x and y coordinates as floats.
+        final ByteBuffer vertices;
+        final int vertexCount;
+        int vbo = 0;
+        int uses = 0;
+
+        private Entry(ByteBuffer vertices, int vertexCount) {
+            this.vertices = vertices;
+            this.vertexCount = vertexCount;
+        }
+
+        int bytes() {
+            return vertexCount * 8;
+        }
+    }
+
+    private final int maxEntries;
+    private final long maxBytes;
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes = 0;
+
+    private long hits = 0, misses = 0, evictions = 0;
+
+    // The hash codes of strings seen once and not yet admitted, each in the slot its hash selects.
+    // A slot is overwritten by the next string hashing to it, so strings seen once are forgotten over time.
+    private final int[] doorkeeper;
+    private final boolean[] doorkeeperUsed;
+
+    // Buffer objects of evicted entries, deleted the next time a GL context is known to be current.
+    private int[] deadBuffers = new int[16];
+    private int deadBufferCount = 0;
+
+    /**
+     * Returns a new, empty cache with the given limits.
+     *
+     * @param maxEntries    The maximum number of strings to hold.
+     * @param maxBytes      The maximum number of bytes of geometry to hold.
+     */
+    public TextGeometryCache(int maxEntries, long maxBytes) {
+        if (maxEntries < 1 || maxBytes < 1)
+            throw new IllegalArgumentException("The cache limits must be positive.");
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+        int slots = Integer.highestOneBit(Math.min(Math.max(maxEntries, 64), 1 << 20) * 2);
+        this.doorkeeper = new int[slots];
+        this.doorkeeperUsed = new boolean[slots];
+    }
+
+    /**
+     * Returns the geometry of the given string, tessellating and caching it first if necessary.
+     *
+     * @param text      The string.
+     * @return          Its geometry, or null if it is too large to be cached or has not been seen recently.
+     */
+    Entry get(String text) {
+        Entry e = entries.get(text);
+        if (e != null) {
+            hits++;
+            e.uses++;
+            return e;
+        }
+        misses++;
+
+        int hash = text.hashCode();
+        int slot = (hash * 0x9E3779B9) >>> (32 - Integer.numberOfTrailingZeros(doorkeeper.length));
+        if (!doorkeeperUsed[slot] || doorkeeper[slot] != hash) {
+            doorkeeper[slot] = hash;
+            doorkeeperUsed[slot] = true;
+            return null;
+        }
+        doorkeeperUsed[slot] = false;
+
+        TextArena arena = TextArena.get();
+        int vertexCount = arena.print(text) * 4;
+        if ((long)vertexCount * 8 > maxBytes)
+            return null;
+
+        // Keep only the x and y coordinates of the 16 byte vertices written by stb_easy_font.
+        ByteBuffer source = arena.buffer();
+        ByteBuffer vertices = BufferUtils.createByteBuffer(vertexCount * 8);
+        for (int i = 0; i < vertexCount; i++)
+            vertices.putLong(i*8, source.getLong(i*16));
+
+        e = new Entry(vertices, vertexCount);
+        e.uses = 1;
+        entries.put(text, e);
+        bytes += e.bytes();
+        trim();
+        return e;
+    }
+
+    /**
+     * Returns the buffer object holding the geometry of the given entry, uploading it if necessary.
+     * Must be called with a current GL context.
+     *
+     * @return  The buffer object, or 0 if the context does not support buffer objects
+     *          or the entry has not yet been drawn twice.
+     */
+    int bufferObject(Entry e) {
+        if (!GL.getCapabilities().OpenGL15)
+            return 0;
+        deleteDeadBuffers();
+        if (e.vbo == 0 && e.uses < 2)
+            return 0;
+        if (e.vbo == 0) {
+            e.vbo = glGenBuffers();
+            glBindBuffer(GL_ARRAY_BUFFER, e.vbo);
+            glBufferData(GL_ARRAY_BUFFER, e.vertices, GL_STATIC_DRAW);
+            glBindBuffer(GL_ARRAY_BUFFER, 0);
+        }
+        return e.vbo;
+    }
+
+    private void trim() {
+        Iterator<Entry> it = entries.values().iterator();
+        while ((entries.size() > maxEntries || bytes > maxBytes) && it.hasNext()) {
+            Entry eldest = it.next();
+            it.remove();
+            release(eldest);
+            evictions++;
+        }
+    }
+
+    private void release(Entry e) {
+        bytes -= e.bytes();
+        if (e.vbo != 0) {
+            if (deadBufferCount == deadBuffers.length)
+                deadBuffers = Arrays.copyOf(deadBuffers, deadBufferCount * 2);
+            deadBuffers[deadBufferCount++] = e.vbo;
+            e.vbo = 0;
+        }
+    }
+
+    private void deleteDeadBuffers() {
+        for (int i = 0; i < deadBufferCount; i++)
+            glDeleteBuffers(deadBuffers[i]);
+        deadBufferCount = 0;
+    }
+
+    /**
+     * Removes every entry from this cache. The statistics are kept.
+     * <p>
+     * Any buffer objects held by the entries are deleted the next time the cache draws.
+     */
+    public void clear() {
+        for (Entry e : entries.values())
+            release(e);
+        entries.clear();
+        Arrays.fill(doorkeeperUsed, false);
+    }
+
+    /**
+     * Removes every entry from this cache, and deletes every buffer object it holds straight away.
+     * The cache may still be used afterwards.
+     * <p>
+     * If the cache holds any buffer objects, this must be called with a current GL context.
+     */
+    public void dispose() {
+        clear();
+        if (deadBufferCount > 0)
+            deleteDeadBuffers();
+    }
+
+    /**
+     * Resets the hit, miss and eviction counters to zero.
+     */
+    public void resetStatistics() {
+        hits = 0;
+        misses = 0;
+        evictions = 0;
+    }
+
+    /**
+     * Returns the number of lookups which found their string already cached.
+     *
+     * @return  The hit count.
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of lookups which did not find their string cached,
+     * including those of strings which were not admitted.
+     *
+     * @return  The miss count.
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Returns the number of entries removed to respect the limits of this cache.
+     *
+     * @return  The eviction count.
+     */
+    public long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Returns the number of strings currently cached.
+     *
+     * @return  The number of entries.
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns the number of bytes of geometry currently cached.
+     *
+     * @return  The size of the cached geometry in bytes.
+     */
+    public long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * Returns the maximum number of strings this cache will hold.
+     *
+     * @return  The entry limit.
+     */
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    /**
+     * Returns the maximum number of bytes of geometry this cache will hold.
+     *
+     * @return  The byte limit.
+     */
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+}
@@ -0,0 +1,209 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package LWJGLTools.GLDrawing;
+
+import java.util.Arrays;
+
+/**
+ * A string broken into lines, with the width of each line measured.
+ * <p>
+ * A layout depends only on the text, the {@link TextMetrics} of its font and the greatest width of a line,
+ * all in font units, so the same layout serves the text drawn at any position and scale.
+ * Layouts are immutable; {@link TextLayoutCache} keeps them for strings which are laid out repeatedly,
+ * along with the strings of their lines, which are cut from the text only once.
+ *
+ * @author Murdock Grewar
+ * @see TextMetrics#layout(java.lang.String, float)
+ */
+public final class TextLayout {
+
+    private final String text;
+    private final float maxWidth;
+    private final int lineHeight, baseline;
+
+    private int[] starts = new int[4];
+    private int[] ends = new int[4];
+    private int[] widths = new int[4];
+    private int lineCount = 0;
+    private int width = 0;
+    // The text of each line, cut from the text the first time it is asked for.
+    private String[] lines = null;
+
+    TextLayout(TextMetrics metrics, String text, float maxWidth) {
+        this.text = text;
+        this.maxWidth = maxWidth;
+        this.lineHeight = metrics.getLineHeight();
+        this.baseline = metrics.getBaseline();
+
+        int space = metrics.advance(' ');
+        int start = 0, current = 0;
+        // The last space on the current line at which it may be broken, and the width of the line before it.
+        int breakAt = -1, widthAtBreak = 0;
+        int n = text.length();
+        for (int i = 0; i <= n; i++) {
+            if (i == n || text.charAt(i) == '\n') {
+                addLine(start, i, current);
+                start = i + 1;
+                current = 0;
+                breakAt = -1;
+                continue;
+            }
+            char c = text.charAt(i);
+            int advance = metrics.advance(c);
+            if (c == ' ') {
+                if (current + advance > maxWidth) {
+                    addLine(start, i, current);
+                    start = i + 1;
+                    current = 0;
+                    breakAt = -1;
+                    continue;
+                }
+                breakAt = i;
+                widthAtBreak = current;
+            } else if (current + advance > maxWidth && i > start) {
+                if (breakAt >= 0) {
+                    addLine(start, breakAt, widthAtBreak);
+                    current -= widthAtBreak + space;
+                    start = breakAt + 1;
+                    breakAt = -1;
+                }
+                // The word is wider than a line on its own.
+                if (current + advance > maxWidth && i > start) {
+                    addLine(start, i, current);
+                    start = i;
+                    current = 0;
+                }
+            }
+            current += advance;
+        }
+    }
+
+    private void addLine(int start, int end, int lineWidth) {
+        if (lineCount == starts.length) {
+            starts = Arrays.copyOf(starts, lineCount * 2);
+            ends = Arrays.copyOf(ends, lineCount * 2);
+            widths = Arrays.copyOf(widths, lineCount * 2);
+        }
+        starts[lineCount] = start;
+        ends[lineCount] = end;
+        widths[lineCount] = lineWidth;
+        lineCount++;
+        width = Math.max(width, lineWidth);
+    }
+
+    /**
+     * Returns the text which was laid out.
+     *
+     * @return  The text.
+     */
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * Returns the greatest width of a line that the text was laid out to.
+     *
+     * @return  The width, in font units, or {@link Float#POSITIVE_INFINITY} if the text was not wrapped.
+     */
+    public float getMaxWidth() {
+        return maxWidth;
+    }
+
+    /**
+     * Returns the number of lines.
+     *
+     * @return  The line count, at least 1.
+     */
+    public int getLineCount() {
+        return lineCount;
+    }
+
+    /**
+     * Returns the index in the text of the first character of a line.
+     *
+     * @param line      The line.
+     * @return          The index of its first character.
+     */
+    public int getLineStart(int line) {
+        return starts[line];
+    }
+
+    /**
+     * Returns the index in the text after the last character of a line.
+     *
+     * @param line      The line.
+     * @return          The index after its last character.
+     */
+    public int getLineEnd(int line) {
+        return ends[line];
+    }
+
+    /**
+     * Returns the text of a line, without the space or newline it was broken at.
+     * <p>
+     * The string is cut from the text the first time it is asked for, and the same string is returned afterwards,
+     * so a cached layout yields its lines without allocating.
+     *
+     * @param line      The line.
+     * @return          Its text.
+     */
+    public String getLine(int line) {
+        if (lines == null)
+            lines = new String[lineCount];
+        String s = lines[line];
+        if (s == null) {
+            s = (starts[line] == 0 && ends[line] == text.length()) ? text : text.substring(starts[line], ends[line]);
+            lines[line] = s;
+        }
+        return s;
+    }
+
+    /**
+     * Returns the width of a line.
+     *
+     * @param line      The line.
+     * @return          Its width, in font units.
+     */
+    public int getLineWidth(int line) {
+        return widths[line];
+    }
+
+    /**
+     * Returns the width of the longest line.
+     *
+     * @return  The width, in font units.
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Returns the height of the text: its number of lines times the line height.
+     *
+     * @return  The height, in font units.
+     */
+    public int getHeight() {
+        return lineCount * lineHeight;
+    }
+
+    /**
+     * Returns the distance between the tops of consecutive lines.
+     *
+     * @return  The line height, in font units.
+     */
+    public int getLineHeight() {
+        return lineHeight;
+    }
+
+    /**
+     * Returns the distance from the top of the first line down to its baseline.
+     *
+     * @return  The baseline, in font units.
+     */
+    public int getBaseline() {
+        return baseline;
+    }
+}
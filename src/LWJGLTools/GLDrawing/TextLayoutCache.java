@@ -0,0 +1,109 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package LWJGLTools.GLDrawing;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A bounded, least-recently-used cache of the {@link TextLayout} of strings.
+ * <p>
+ * Each string keeps a single layout, for the greatest line width it was last laid out to.
+ * Looking up a string which is laid out to the same width as before allocates nothing.
+ * <p>
+ * A cache is not thread-safe.
+ *
+ * @author Murdock Grewar
+ * @see GLDrawHelper#layoutText(java.lang.String, float, float)
+ */
+public final class TextLayoutCache {
+
+    private final TextMetrics metrics;
+    private final LinkedHashMap<String, TextLayout> entries;
+
+    private long hits = 0, misses = 0;
+
+    /**
+     * Returns a new, empty cache of layouts with the given metrics.
+     *
+     * @param metrics       The metrics of the font to lay text out with.
+     * @param maxEntries    The maximum number of strings to hold.
+     */
+    public TextLayoutCache(TextMetrics metrics, final int maxEntries) {
+        if (maxEntries < 1)
+            throw new IllegalArgumentException("The cache must hold at least one entry.");
+        this.metrics = metrics;
+        this.entries = new LinkedHashMap<String, TextLayout>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, TextLayout> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Returns the layout of the given text, laying it out first if it is not cached for the given width.
+     *
+     * @param text      The text.
+     * @param maxWidth  The greatest width of a line, in font units, or {@link Float#POSITIVE_INFINITY} not to wrap.
+     * @return          The layout.
+     * @see TextMetrics#layout(java.lang.String, float)
+     */
+    public TextLayout get(String text, float maxWidth) {
+        TextLayout layout = entries.get(text);
+        if (layout != null && Float.compare(layout.getMaxWidth(), maxWidth) == 0) {
+            hits++;
+            return layout;
+        }
+        misses++;
+        layout = metrics.layout(text, maxWidth);
+        entries.put(text, layout);
+        return layout;
+    }
+
+    /**
+     * Returns the metrics this cache lays text out with.
+     *
+     * @return  The metrics.
+     */
+    public TextMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Discards every cached layout.
+     */
+    public void clear() {
+        entries.clear();
+    }
+
+    /**
+     * Returns the number of strings currently cached.
+     *
+     * @return  The entry count.
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns the number of lookups which found a cached layout.
+     *
+     * @return  The hit count.
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of lookups which had to lay the text out.
+     *
+     * @return  The miss count.
+     */
+    public long getMisses() {
+        return misses;
+    }
+}
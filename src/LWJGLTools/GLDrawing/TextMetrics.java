@@ -0,0 +1,184 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package LWJGLTools.GLDrawing;
+
+import java.nio.ByteBuffer;
+import static org.lwjgl.stb.STBEasyFont.stb_easy_font_width;
+
+/**
+ * The advance of every glyph of a font, along with its line height and baseline,
+ * from which text can be measured and broken into lines without drawing it.
+ * <p>
+ * All measurements are in font units, and are multiplied by the scale at which the text is drawn.
+ * Measuring walks the text once, looking each character up in an array: it allocates nothing
+ * and makes no OpenGL calls. Instances are immutable, and may be shared between threads.
+ *
+ * @author Murdock Grewar
+ * @see TextLayout
+ */
+public final class TextMetrics {
+
+    private static final int EASY_FIRST = 32, EASY_COUNT = 95;
+    private static final int EASY_LINE_HEIGHT = 12;
+
+    private static volatile TextMetrics easyFont = null;
+
+    private final int firstChar;
+    private final int[] advances;
+    private final int lineHeight;
+    private final int baseline;
+
+    /**
+     * Returns the metrics of a font whose glyphs cover a contiguous range of characters.
+     * Characters outside of the range have no advance.
+     *
+     * @param firstChar     The first character of the font.
+     * @param advances      The advance of each character, in font units.
+     * @param lineHeight    The distance between the tops of consecutive lines.
+     * @param baseline      The distance from the top of a line down to its baseline.
+     */
+    public TextMetrics(int firstChar, int[] advances, int lineHeight, int baseline) {
+        if (lineHeight < 1)
+            throw new IllegalArgumentException("The line height must be positive.");
+        this.firstChar = firstChar;
+        this.advances = advances.clone();
+        this.lineHeight = lineHeight;
+        this.baseline = baseline;
+    }
+
+    /**
+     * Returns the metrics of stb_easy_font, the font used by {@link GLDrawHelper#drawString(float, float, java.lang.String, float)}.
+     * <p>
+     * They are read from the native STB library the first time this is called. No GL context is needed.
+     *
+     * @return  The metrics.
+     */
+    public static TextMetrics easyFont() {
+        TextMetrics m = easyFont;
+        if (m == null) {
+            int[] advances = new int[EASY_COUNT];
+            for (int i = 0; i < EASY_COUNT; i++)
+                advances[i] = stb_easy_font_width(String.valueOf((char)(EASY_FIRST + i)));
+
+            // The baseline is the bottom of a capital letter, which has no descender.
+            TextArena arena = TextArena.get();
+            int quads = arena.print("H");
+            ByteBuffer v = arena.buffer();
+            float bottom = 0;
+            for (int i = 0; i < quads * 4; i++)
+                bottom = Math.max(bottom, v.getFloat(i * 16 + 4));
+
+            m = new TextMetrics(EASY_FIRST, advances, EASY_LINE_HEIGHT, Math.round(bottom));
+            easyFont = m;
+        }
+        return m;
+    }
+
+    /**
+     * Returns the advance of a character: the distance from its left edge to that of the next character.
+     *
+     * @param c     The character.
+     * @return      Its advance, in font units, or 0 if the font has no glyph for it.
+     */
+    public int advance(char c) {
+        int i = c - firstChar;
+        return (i >= 0 && i < advances.length) ? advances[i] : 0;
+    }
+
+    /**
+     * Returns the width of a single line of text, ignoring line breaks.
+     *
+     * @param text      The text.
+     * @param start     The index of the first character to measure.
+     * @param end       The index after the last character to measure.
+     * @return          The sum of the advances of the characters, in font units.
+     */
+    public int lineWidth(CharSequence text, int start, int end) {
+        int width = 0;
+        for (int i = start; i < end; i++)
+            width += advance(text.charAt(i));
+        return width;
+    }
+
+    /**
+     * Returns the width of the longest line of the given text.
+     *
+     * @param text      The text, with lines separated by {@code '\n'}.
+     * @return          Its width, in font units.
+     */
+    public int width(CharSequence text) {
+        int longest = 0, current = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\n') {
+                current = 0;
+            } else {
+                current += advance(c);
+                longest = Math.max(longest, current);
+            }
+        }
+        return longest;
+    }
+
+    /**
+     * Returns the number of lines in the given text. Empty text has a single line.
+     *
+     * @param text      The text, with lines separated by {@code '\n'}.
+     * @return          The number of lines.
+     */
+    public int lineCount(CharSequence text) {
+        int lines = 1;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '\n')
+                lines++;
+        }
+        return lines;
+    }
+
+    /**
+     * Returns the height of the given text: its number of lines times the line height.
+     *
+     * @param text      The text, with lines separated by {@code '\n'}.
+     * @return          Its height, in font units.
+     */
+    public int height(CharSequence text) {
+        return lineCount(text) * lineHeight;
+    }
+
+    /**
+     * Breaks the given text into lines no wider than the given width, and measures them.
+     * <p>
+     * Lines are broken at every {@code '\n'}, and otherwise after the last space which keeps them within the width.
+     * The spaces at which lines are broken are dropped. A word wider than the width on its own is broken
+     * between characters.
+     *
+     * @param text      The text.
+     * @param maxWidth  The greatest width of a line, in font units, or {@link Float#POSITIVE_INFINITY} not to wrap.
+     * @return          The layout.
+     * @see TextLayoutCache
+     */
+    public TextLayout layout(String text, float maxWidth) {
+        return new TextLayout(this, text, maxWidth);
+    }
+
+    /**
+     * Returns the distance between the tops of consecutive lines.
+     *
+     * @return  The line height, in font units.
+     */
+    public int getLineHeight() {
+        return lineHeight;
+    }
+
+    /**
+     * Returns the distance from the top of a line down to its baseline.
+     *
+     * @return  The baseline, in font units.
+     */
+    public int getBaseline() {
+        return baseline;
+    }
+}
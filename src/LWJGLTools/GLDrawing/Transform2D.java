@@ -0,0 +1,256 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package LWJGLTools.GLDrawing;
+
+import java.util.Arrays;
+
+/**
+ * A stack of 2D affine transformations, applied to vertices on the CPU.
+ * <p>
+ * The current transformation maps a point (x, y) to
+ * ({@code a*x + c*y + e}, {@code b*x + d*y + f}). Like the OpenGL matrix stack, each of
+ * {@link #translate(float, float)}, {@link #rotate(float)} and {@link #scale(float, float)} applies
+ * its operation before the current transformation, so operations take effect in the reverse
+ * of the order they were called in.
+ * <p>
+ * The whole stack lives in a single float array, so {@link #push()} and {@link #pop()} allocate
+ * nothing unless the stack grows deeper than it has been before.
+ *
+ * @author Murdock Grewar
+ * @see GLDrawHelper#pushTransform()
+ */
+public final class Transform2D {
+
+    private static final int SIZE = 6;
+
+    // Each level holds a, b, c, d, e, f. The current transformation is the one at the top.
+    private float[] stack = new float[SIZE * 16];
+    private int top = 0;
+    private boolean identity = true;
+
+    /**
+     * Returns a new stack holding only the identity transformation.
+     */
+    public Transform2D() {
+        stack[0] = 1;
+        stack[3] = 1;
+    }
+
+    /**
+     * Saves a copy of the current transformation, to be restored by {@link #pop()}.
+     */
+    public void push() {
+        if (top + 2 * SIZE > stack.length)
+            stack = Arrays.copyOf(stack, stack.length * 2);
+        System.arraycopy(stack, top, stack, top + SIZE, SIZE);
+        top += SIZE;
+    }
+
+    /**
+     * Restores the transformation saved by the matching call to {@link #push()}.
+     */
+    public void pop() {
+        if (top == 0)
+            throw new IllegalStateException("pop() was called more times than push().");
+        top -= SIZE;
+        updateIdentity();
+    }
+
+    /**
+     * Returns the number of transformations saved by {@link #push()} and not yet restored.
+     *
+     * @return  The depth of the stack.
+     */
+    public int depth() {
+        return top / SIZE;
+    }
+
+    /**
+     * Replaces the current transformation with the identity.
+     */
+    public void loadIdentity() {
+        set(1, 0, 0, 1, 0, 0);
+    }
+
+    /**
+     * Replaces the current transformation.
+     *
+     * @param a     The x scale.
+     * @param b     The y shear.
+     * @param c     The x shear.
+     * @param d     The y scale.
+     * @param e     The x translation.
+     * @param f     The y translation.
+     */
+    public void set(float a, float b, float c, float d, float e, float f) {
+        float[] m = stack;
+        int t = top;
+        m[t] = a; m[t+1] = b; m[t+2] = c; m[t+3] = d; m[t+4] = e; m[t+5] = f;
+        updateIdentity();
+    }
+
+    /**
+     * Applies the given transformation before the current one.
+     *
+     * @param a     The x scale.
+     * @param b     The y shear.
+     * @param c     The x shear.
+     * @param d     The y scale.
+     * @param e     The x translation.
+     * @param f     The y translation.
+     */
+    public void multiply(float a, float b, float c, float d, float e, float f) {
+        float[] m = stack;
+        int t = top;
+        float ma = m[t], mb = m[t+1], mc = m[t+2], md = m[t+3];
+        m[t]   = ma*a + mc*b;
+        m[t+1] = mb*a + md*b;
+        m[t+2] = ma*c + mc*d;
+        m[t+3] = mb*c + md*d;
+        m[t+4] = ma*e + mc*f + m[t+4];
+        m[t+5] = mb*e + md*f + m[t+5];
+        updateIdentity();
+    }
+
+    /**
+     * Applies a translation before the current transformation.
+     *
+     * @param x     The x translation.
+     * @param y     The y translation.
+     */
+    public void translate(float x, float y) {
+        float[] m = stack;
+        int t = top;
+        m[t+4] += m[t]*x + m[t+2]*y;
+        m[t+5] += m[t+1]*x + m[t+3]*y;
+        updateIdentity();
+    }
+
+    /**
+     * Applies a counter-clockwise rotation about the origin before the current transformation.
+     *
+     * @param angle     The angle of rotation (in radians).
+     */
+    public void rotate(float angle) {
+        float cos = (float)Math.cos(angle), sin = (float)Math.sin(angle);
+        multiply(cos, sin, -sin, cos, 0, 0);
+    }
+
+    /**
+     * Applies a scaling about the origin before the current transformation.
+     *
+     * @param sx    The x scale factor.
+     * @param sy    The y scale factor.
+     */
+    public void scale(float sx, float sy) {
+        float[] m = stack;
+        int t = top;
+        m[t] *= sx; m[t+1] *= sx;
+        m[t+2] *= sy; m[t+3] *= sy;
+        updateIdentity();
+    }
+
+    private void updateIdentity() {
+        float[] m = stack;
+        int t = top;
+        identity = m[t] == 1 && m[t+1] == 0 && m[t+2] == 0 && m[t+3] == 1 && m[t+4] == 0 && m[t+5] == 0;
+    }
+
+    /**
+     * Returns whether the current transformation is the identity.
+     *
+     * @return  Whether points are left where they are.
+     */
+    public boolean isIdentity() {
+        return identity;
+    }
+
+    /**
+     * Returns the x coordinate of a point after the current transformation.
+     *
+     * @param x     x coordinate of the point.
+     * @param y     y coordinate of the point.
+     * @return      The transformed x coordinate.
+     */
+    public float transformX(float x, float y) {
+        return stack[top]*x + stack[top+2]*y + stack[top+4];
+    }
+
+    /**
+     * Returns the y coordinate of a point after the current transformation.
+     *
+     * @param x     x coordinate of the point.
+     * @param y     y coordinate of the point.
+     * @return      The transformed y coordinate.
+     */
+    public float transformY(float x, float y) {
+        return stack[top+1]*x + stack[top+3]*y + stack[top+5];
+    }
+
+    /**
+     * Returns the largest factor by which the current transformation stretches any direction.
+     *
+     * @return  The largest stretch.
+     */
+    public float maxScale() {
+        return LevelOfDetail.largestStretch(stack[top], stack[top+2], stack[top+1], stack[top+3]);
+    }
+
+    /**
+     * Copies the current transformation into the given array as a column-major 4x4 matrix,
+     * as accepted by {@code glMultMatrixf}.
+     *
+     * @param matrix    The array to fill, of at least 16 elements.
+     */
+    public void get4x4(float[] matrix) {
+        float[] m = stack;
+        int t = top;
+        Arrays.fill(matrix, 0, 16, 0);
+        matrix[0] = m[t];   matrix[1] = m[t+1];
+        matrix[4] = m[t+2]; matrix[5] = m[t+3];
+        matrix[10] = 1;
+        matrix[12] = m[t+4]; matrix[13] = m[t+5];
+        matrix[15] = 1;
+    }
+
+    /**
+     * A sink which transforms every vertex by the current transformation of a stack, then passes it on.
+     */
+    static final class Sink implements PrimitiveSink {
+        private final Transform2D transform;
+        private PrimitiveSink target;
+
+        Sink(Transform2D transform) {
+            this.transform = transform;
+        }
+
+        void setTarget(PrimitiveSink target) {
+            this.target = target;
+        }
+
+        // The largest factor by which lengths are stretched on their way to the target.
+        float scale() {
+            return transform.maxScale();
+        }
+
+        @Override
+        public void begin(int mode) {
+            target.begin(mode);
+        }
+
+        @Override
+        public void vertex(float x, float y) {
+            float[] m = transform.stack;
+            int t = transform.top;
+            target.vertex(m[t]*x + m[t+2]*y + m[t+4], m[t+1]*x + m[t+3]*y + m[t+5]);
+        }
+
+        @Override
+        public void end() {
+            target.end();
+        }
+    }
+}
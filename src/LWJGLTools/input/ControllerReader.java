@@ -9,8 +9,7 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.FloatBuffer;
-import java.util.HashMap;
-import java.util.Map.Entry;
+import java.util.Arrays;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.xml.parsers.*;
@@ -41,6 +40,11 @@ import org.xml.sax.SAXException;
  * An attempt to read a control which is not yet fully configured (i.e. attempting
  * to read from a {@link ControllerReader.Joystick} which has not yet been assigned a deadzone)
  * will result in a {@link ControllerReader.NotConfiguredException} to be thrown.
+ * <p>
+ * Controls are read from a {@link ControllerSnapshot}. Once {@link #poll()} has been called, typically once per frame
+ * just after {@link org.lwjgl.glfw.GLFW#glfwPollEvents()}, every query reads the states captured by the last poll,
+ * and makes no native calls. Until then, each query captures afresh either the axes or the buttons of the
+ * controller it reads from, with one native call.
  * 
  * @see ControllerReader.Axis
  * @see ControllerReader.Joystick
@@ -61,21 +65,67 @@ public final class ControllerReader {
         //Axis 6 - unused
         //Axis 7 - unused
     
-    HashMap<Joystick, Axis[]> JoystickAxes;
-    HashMap<Joystick, Float> JoystickDeadzones;
-    HashMap<Trigger, Axis> TriggerAxes;
-    HashMap<Button, ButtonContainer> Buttons;
+    // Configuration, indexed by the ordinals of the physical controls. Unset entries are null, or NaN for deadzones.
+    final Axis[][] JoystickAxes = new Axis[Joystick.values().length][];
+    final float[] JoystickDeadzones = new float[Joystick.values().length];
+    final Axis[] TriggerAxes = new Axis[Trigger.values().length];
+    final ButtonContainer[] Buttons = new ButtonContainer[Button.values().length];
+    
+    private final ControllerSnapshot snapshot;
+    private boolean polled = false;
+    private final JoystickFilteredState scratchState = new JoystickFilteredState(0, 0);
     
     /**
-     * Returns a new ControllerReader object with a blank configuration.
+     * Returns a new ControllerReader object with a blank configuration, reading controllers through GLFW.
      * 
      * @see         ControllerReader
      */
     public ControllerReader() {
-        JoystickAxes = new HashMap<>();
-        JoystickDeadzones = new HashMap<>();
-        TriggerAxes = new HashMap<>();
-        Buttons = new HashMap<>();
+        this(new ControllerSnapshot());
+    }
+    
+    /**
+     * Returns a new ControllerReader object with a blank configuration, reading controllers through the given snapshot.
+     * 
+     * @param snapshot  The snapshot to read controls from, which may read from a source other than GLFW.
+     * @see         ControllerSnapshot.Source
+     */
+    public ControllerReader(ControllerSnapshot snapshot) {
+        Arrays.fill(JoystickDeadzones, Float.NaN);
+        this.snapshot = snapshot;
+    }
+    
+    /**
+     * Captures the state of every controller. Every query afterwards reads the captured states, until the next poll.
+     * 
+     * @see ControllerSnapshot#poll()
+     */
+    public void poll() {
+        snapshot.poll();
+        polled = true;
+    }
+    
+    /**
+     * Returns the snapshot which this reader reads controls from.
+     * 
+     * @return      The snapshot.
+     */
+    public ControllerSnapshot getSnapshot() {
+        return snapshot;
+    }
+    
+    // The snapshot holding the axes of the given controller, capturing them first if this reader has never been polled.
+    ControllerSnapshot captureAxes(ControllerID cid) {
+        if (!polled)
+            snapshot.pollAxes(cid);
+        return snapshot;
+    }
+    
+    // The snapshot holding the buttons of the given controller, capturing them first if this reader has never been polled.
+    private ControllerSnapshot captureButtons(ControllerID cid) {
+        if (!polled)
+            snapshot.pollButtons(cid);
+        return snapshot;
     }
     
     /**
@@ -316,6 +366,8 @@ public final class ControllerReader {
         private AxisID id;
         private ControllerID controller;
         private float min, max;
+        // The reader this axis was last configured on, whose snapshot it is read from.
+        private ControllerReader reader = null;
         
         /**
          * Returns a new Axis object with the specified configuration.
@@ -349,6 +401,10 @@ public final class ControllerReader {
          * with the axis can not be found. A {@link ControllerReader.NoSuchAxisException} will be thrown
          * when the associated axis, specified by its {@link AxisID}, cannot be
          * found on the associated controller.
+         * <p>
+         * If this axis has been assigned to a joystick or trigger of a {@link ControllerReader}, it is read through
+         * the snapshot of the last such reader, and so makes no native call once that reader has been polled.
+         * Otherwise, it is read directly from GLFW.
          * 
          * @param outMin The output value to be returned if the raw value of the
          * axis is `min'.
@@ -361,9 +417,29 @@ public final class ControllerReader {
          * @see ControllerReader.Axis#ControllerReader.Axis(LWJGLTools.input.ControllerReader.ControllerID cid, LWJGLTools.input.ControllerReader.AxisID aid, float minValue, float maxValue)
          */
         public float value(float outMin, float outMax) throws NoControllerException, NoSuchAxisException {
+            if (reader != null)
+                return value(reader.captureAxes(controller), outMin, outMax);
+            return map(rawAxisValue(controller, this.id), outMin, outMax);
+        }
+        
+        /**
+         * Returns a float specifying the position of the axis captured by the given snapshot, mapped
+         * into the range [outMin, outMax].
+         * 
+         * @param snapshot  The snapshot to read the raw value of the axis from.
+         * @param outMin    The output value to be returned if the raw value of the axis is `min'.
+         * @param outMax    The output value to be returned if the raw value of the axis is `max'.
+         * @return The value of the axis mapped onto the range [outMin, outMax].
+         * @throws LWJGLTools.input.ControllerReader.NoControllerException
+         * @throws LWJGLTools.input.ControllerReader.NoSuchAxisException 
+         * @see #value(float, float)
+         */
+        public float value(ControllerSnapshot snapshot, float outMin, float outMax) throws NoControllerException, NoSuchAxisException {
+            return map(rawAxisValue(snapshot, controller, this.id), outMin, outMax);
+        }
+        
+        private float map(float rawVal, float outMin, float outMax) {
             float scale = (outMax - outMin) / (max - min);
-            float rawVal;
-            rawVal = rawAxisValue(controller, this.id);
             
             // Again, max is not actually the max.
             if (max > min) {
@@ -438,16 +514,30 @@ public final class ControllerReader {
      */
     public static float rawAxisValue(ControllerID cont, AxisID axis) throws NoControllerException, NoSuchAxisException {
         FloatBuffer fb = glfwGetJoystickAxes(cont.value());
-        if (fb == null) {
-            System.err.println("Could not find any joystick axes of the first controller.");
-            System.out.println("Aborting.");
-            throw new NoControllerException();
-        }
-        try {
-            return fb.get(axis.value());
-        } catch (NullPointerException e) {
+        if (fb == null)
+            throw new NoControllerException("Could not find the specified controller.");
+        if (axis.value() >= fb.remaining())
             throw new NoSuchAxisException("The specified axis could not be found on the specified controller.");
-        }
+        return fb.get(fb.position() + axis.value());
+    }
+    
+    /**
+     * Reads a raw axis value from a snapshot of the controllers.
+     * 
+     * @param snapshot  The snapshot to read from.
+     * @param cont      The controller to read from.
+     * @param axis      The axis to read from the given controller.
+     * @return          The raw axis value as yielded by {@link org.lwjgl.glfw.GLFW#glfwGetJoystickAxes(int)} when the snapshot was taken.
+     * @throws LWJGLTools.input.ControllerReader.NoControllerException
+     * @throws LWJGLTools.input.ControllerReader.NoSuchAxisException 
+     * @see #rawAxisValue(LWJGLTools.input.ControllerReader.ControllerID, LWJGLTools.input.ControllerReader.AxisID)
+     */
+    public static float rawAxisValue(ControllerSnapshot snapshot, ControllerID cont, AxisID axis) throws NoControllerException, NoSuchAxisException {
+        if (!snapshot.isConnected(cont))
+            throw new NoControllerException("Could not find the specified controller.");
+        if (axis.value() >= snapshot.getAxisCount(cont))
+            throw new NoSuchAxisException("The specified axis could not be found on the specified controller.");
+        return snapshot.getAxis(cont, axis.value());
     }
     
     /**
@@ -458,7 +548,7 @@ public final class ControllerReader {
      * @param bcont     Container for the controller and button ID.
      */
     public void setButton(Button b, ButtonContainer bcont) {
-        Buttons.put(b, bcont);
+        Buttons[b.ordinal()] = bcont;
     }
     
     /**
@@ -480,11 +570,93 @@ public final class ControllerReader {
      */
     public boolean isButtonPressed(Button b) throws NotConfiguredException, NoControllerException, NoSuchButtonException {
         
-        ButtonContainer bc = Buttons.get(b);
+        ButtonContainer bc = Buttons[b.ordinal()];
         if (bc == null)
             throw new NotConfiguredException();
         
-        return isRawButtonPressed(bc.getControllerID(), bc.getButtonID());
+        return isRawButtonPressed(captureButtons(bc.getControllerID()), bc.getControllerID(), bc.getButtonID());
+    }
+    
+    /**
+     * Checks whether a physical button was depressed, without throwing an exception if it cannot be read.
+     * 
+     * @param b         The physical button to check.
+     * @param fallback  The value to return if the button is not configured, or cannot be found.
+     * @return          Whether or not it was depressed, or the fallback.
+     * @see #getStatus(LWJGLTools.input.ControllerReader.Button)
+     */
+    public boolean isButtonPressed(Button b, boolean fallback) {
+        if (getStatus(b) != Status.OK)
+            return fallback;
+        ButtonContainer bc = Buttons[b.ordinal()];
+        return snapshot.isButtonPressed(bc.getControllerID(), bc.getButtonID().value());
+    }
+    
+    /**
+     * Returns whether a physical button can be read, or else why not. No exception is thrown,
+     * and nothing is printed: once this reader has been polled, this costs a few array reads.
+     * 
+     * @param b         The physical button.
+     * @return          {@link Status#OK} if the button can be read.
+     */
+    public Status getStatus(Button b) {
+        ButtonContainer bc = Buttons[b.ordinal()];
+        if (bc == null)
+            return Status.NOT_CONFIGURED;
+        ControllerSnapshot s = captureButtons(bc.getControllerID());
+        if (!s.isConnected(bc.getControllerID()))
+            return Status.NO_CONTROLLER;
+        if (bc.getButtonID().value() >= s.getButtonCount(bc.getControllerID()))
+            return Status.NO_SUCH_BUTTON;
+        return Status.OK;
+    }
+    
+    // Whether an axis can be read, capturing the axes of its controller first if this reader has never been polled.
+    private Status axisStatus(Axis a) {
+        if (a == null)
+            return Status.NOT_CONFIGURED;
+        captureAxes(a.getControllerID());
+        return capturedAxisStatus(a);
+    }
+    
+    // Whether an axis can be read from the snapshot as it stands.
+    private Status capturedAxisStatus(Axis a) {
+        if (!snapshot.isConnected(a.getControllerID()))
+            return Status.NO_CONTROLLER;
+        if (a.getAxisID().value() >= snapshot.getAxisCount(a.getControllerID()))
+            return Status.NO_SUCH_AXIS;
+        return Status.OK;
+    }
+    
+    /**
+     * Returns whether a controller was connected when it was last captured.
+     * Once this reader has been polled, this is an array read.
+     * 
+     * @param cid       The controller.
+     * @return          Whether it is connected.
+     */
+    public boolean isConnected(ControllerID cid) {
+        return captureAxes(cid).isConnected(cid);
+    }
+    
+    /**
+     * The outcome of reading a physical control without exceptions.
+     * 
+     * @see ControllerReader#readJoystick(LWJGLTools.input.ControllerReader.Joystick, LWJGLTools.input.ControllerReader.JoystickFilteredState)
+     * @see ControllerReader#readTrigger(LWJGLTools.input.ControllerReader.Trigger, LWJGLTools.input.ControllerReader.TriggerFilteredState)
+     * @see ControllerReader#getStatus(LWJGLTools.input.ControllerReader.Button)
+     */
+    public enum Status {
+        /** The control was read. */
+        OK,
+        /** The control has not been given all of its configuration. See {@link NotConfiguredException}. */
+        NOT_CONFIGURED,
+        /** The controller of the control is not connected. See {@link NoControllerException}. */
+        NO_CONTROLLER,
+        /** The controller has no axis of the configured index. See {@link NoSuchAxisException}. */
+        NO_SUCH_AXIS,
+        /** The controller has no button of the configured index. See {@link NoSuchButtonException}. */
+        NO_SUCH_BUTTON;
     }
     
     /**
@@ -505,20 +677,30 @@ public final class ControllerReader {
     public static boolean isRawButtonPressed(ControllerID cid, ButtonID bid) throws NoSuchButtonException, NoControllerException {
         
         ByteBuffer bb = glfwGetJoystickButtons(cid.value());
-        if (bb == null) {
+        if (bb == null)
             throw new NoControllerException("Could not find the specified controller.");
-        }
-        
-        boolean pressed;
-        try {
-            byte state = bb.get(bid.value());
-            pressed = (state == GLFW_PRESS);
-            
-        } catch (IndexOutOfBoundsException e) {
+        if (bid.value() >= bb.remaining())
             throw new NoSuchButtonException("The controller does not seem to have this many buttons.");
-        }
-        
-        return pressed;
+        return bb.get(bb.position() + bid.value()) == GLFW_PRESS;
+    }
+    
+    /**
+     * Checks whether a button was depressed in a snapshot of the controllers.
+     * 
+     * @param snapshot  The snapshot to read from.
+     * @param cid       The controller ID.
+     * @param bid       The button ID.
+     * @return          Whether or not it was depressed when the snapshot was taken.
+     * @throws LWJGLTools.input.ControllerReader.NoControllerException
+     * @throws LWJGLTools.input.ControllerReader.NoSuchButtonException 
+     * @see #isRawButtonPressed(LWJGLTools.input.ControllerReader.ControllerID, LWJGLTools.input.ControllerReader.ButtonID)
+     */
+    public static boolean isRawButtonPressed(ControllerSnapshot snapshot, ControllerID cid, ButtonID bid) throws NoSuchButtonException, NoControllerException {
+        if (!snapshot.isConnected(cid))
+            throw new NoControllerException("Could not find the specified controller.");
+        if (bid.value() >= snapshot.getButtonCount(cid))
+            throw new NoSuchButtonException("The controller does not seem to have this many buttons.");
+        return snapshot.isButtonPressed(cid, bid.value());
     }
     
     /**
@@ -532,8 +714,9 @@ public final class ControllerReader {
      * @see ControllerReader.Joystick
      */
     public void setJoystickAxes(Joystick js, Axis xAxis, Axis yAxis) {
-        Axis[] leftRightAxes = new Axis[]{xAxis, yAxis};
-        JoystickAxes.put(js, leftRightAxes);
+        JoystickAxes[js.ordinal()] = new Axis[]{xAxis, yAxis};
+        bind(xAxis);
+        bind(yAxis);
     }
     
     /**
@@ -546,7 +729,13 @@ public final class ControllerReader {
      * @see ControllerReader.Trigger
      */
     public void setTriggerAxis(Trigger trig, Axis axis) {
-        TriggerAxes.put(trig, axis);
+        TriggerAxes[trig.ordinal()] = axis;
+        bind(axis);
+    }
+    
+    private void bind(Axis axis) {
+        if (axis != null)
+            axis.reader = this;
     }
     
     /**
@@ -558,7 +747,7 @@ public final class ControllerReader {
      * @see ControllerReader.JoystickFilteredState
      */
     public void setJoystickDeadzone(Joystick js, float deadRadius) {
-        JoystickDeadzones.put(js, deadRadius);
+        JoystickDeadzones[js.ordinal()] = deadRadius;
     }
     
     /**
@@ -583,36 +772,105 @@ public final class ControllerReader {
      * @see ControllerReader.NoSuchAxisException
      */
     public JoystickFilteredState getJoystickState(Joystick js) throws NotConfiguredException, NoControllerException, NoSuchAxisException {
-        
-        float xstick, ystick, mag, angle;
-        
-        Axis xAxis, yAxis;
-        try {
-            xAxis = JoystickAxes.get(js)[0];
-            yAxis = JoystickAxes.get(js)[1];
-        } catch (NullPointerException e) {
-            throw new NotConfiguredException("Requested joystick is not properly configured.");
+        JoystickFilteredState state = new JoystickFilteredState(0, 0);
+        getJoystickState(js, state);
+        return state;
+    }
+    
+    /**
+     * Measures the state of the given {@link ControllerReader.Joystick} into an existing object, allocating nothing.
+     * 
+     * @param js        The physical joystick to measure.
+     * @param out       The object to store the filtered state of the joystick in.
+     * @throws LWJGLTools.input.ControllerReader.NotConfiguredException
+     * @throws LWJGLTools.input.ControllerReader.NoControllerException
+     * @throws LWJGLTools.input.ControllerReader.NoSuchAxisException 
+     * @see #getJoystickState(LWJGLTools.input.ControllerReader.Joystick)
+     * @see #newJoystickState()
+     */
+    public void getJoystickState(Joystick js, JoystickFilteredState out) throws NotConfiguredException, NoControllerException, NoSuchAxisException {
+        Status status = readJoystick(js, out);
+        switch (status) {
+            case OK:
+                return;
+            case NOT_CONFIGURED:
+                Axis[] axes = JoystickAxes[js.ordinal()];
+                if (axes == null || axes[0] == null || axes[1] == null)
+                    throw new NotConfiguredException("Requested joystick is not properly configured.");
+                throw new NotConfiguredException("No deadzone set for given joystick.");
+            case NO_CONTROLLER:
+                throw new NoControllerException("Could not find the specified controller.");
+            default:
+                throw new NoSuchAxisException("The specified axis could not be found on the specified controller.");
         }
+    }
+    
+    /**
+     * Measures the state of the given {@link ControllerReader.Joystick} into an existing object, without
+     * throwing an exception if it cannot be read. If it cannot, the state is set to rest.
+     * 
+     * @param js        The physical joystick to measure.
+     * @param out       The object to store the filtered state of the joystick in.
+     * @return          {@link Status#OK} if the joystick was read, or else why not.
+     */
+    public Status readJoystick(Joystick js, JoystickFilteredState out) {
+        out.mag = 0;
+        out.angle = 0;
+        Axis[] axes = JoystickAxes[js.ordinal()];
+        float deadRad = JoystickDeadzones[js.ordinal()];
+        if (axes == null || axes[0] == null || axes[1] == null || Float.isNaN(deadRad))
+            return Status.NOT_CONFIGURED;
+        // Capture each controller once, as both axes are usually on the same one.
+        captureAxes(axes[0].getControllerID());
+        if (axes[1].getControllerID() != axes[0].getControllerID())
+            captureAxes(axes[1].getControllerID());
+        Status status = capturedAxisStatus(axes[0]);
+        if (status == Status.OK)
+            status = capturedAxisStatus(axes[1]);
+        if (status != Status.OK)
+            return status;
         
-        xstick = xAxis.value(-1, 1);
-        ystick = yAxis.value(-1, 1);
+        float xstick = axes[0].map(snapshot.getAxis(axes[0].getControllerID(), axes[0].getAxisID().value()), -1, 1);
+        float ystick = axes[1].map(snapshot.getAxis(axes[1].getControllerID(), axes[1].getAxisID().value()), -1, 1);
         
-        mag = (float)Math.sqrt((xstick*xstick) + (ystick*ystick));
+        float mag = (float)Math.sqrt((xstick*xstick) + (ystick*ystick));
         // Deadzone
-        float deadRad, dilate;
-        try {
-            deadRad = JoystickDeadzones.get(js);
-        } catch (NullPointerException e) {
-            throw new NotConfiguredException("No deadzone set for given joystick.");
-        }
-        dilate = 1 / (1 - deadRad);
+        float dilate = 1 / (1 - deadRad);
         mag = (float)Math.max(mag-deadRad, 0)*dilate;
         // The actual range of the joystick is a SQUARE whose circumscribed circle has a radius of root 2.
         // To deal with this, I'll simply cap "mag" at 1.
         mag = (float)Math.min(mag, 1);
-        angle = (float)Math.atan2(ystick, xstick);
         
-        return new JoystickFilteredState(mag,angle);
+        out.mag = mag;
+        out.angle = (float)Math.atan2(ystick, xstick);
+        return Status.OK;
+    }
+    
+    /**
+     * Measures the state of the given {@link ControllerReader.Joystick} into an array, allocating nothing.
+     * 
+     * @param js        The physical joystick to measure.
+     * @param out       The array to store the state in: the magnitude at {@code offset}, as returned by
+     *                  {@link JoystickFilteredState#getMag()}, and the angle after it, as returned by {@link JoystickFilteredState#getAngle()}.
+     * @param offset    The index of the first element to store.
+     * @throws LWJGLTools.input.ControllerReader.NotConfiguredException
+     * @throws LWJGLTools.input.ControllerReader.NoControllerException
+     * @throws LWJGLTools.input.ControllerReader.NoSuchAxisException 
+     */
+    public void getJoystickState(Joystick js, float[] out, int offset) throws NotConfiguredException, NoControllerException, NoSuchAxisException {
+        JoystickFilteredState state = scratchState;
+        getJoystickState(js, state);
+        out[offset] = state.getMag();
+        out[offset + 1] = state.getAngle();
+    }
+    
+    /**
+     * Returns a new joystick state, to be filled by {@link #getJoystickState(LWJGLTools.input.ControllerReader.Joystick, LWJGLTools.input.ControllerReader.JoystickFilteredState)}.
+     * 
+     * @return      A state of a joystick at rest.
+     */
+    public JoystickFilteredState newJoystickState() {
+        return new JoystickFilteredState(0, 0);
     }
     
     /**
@@ -634,16 +892,77 @@ public final class ControllerReader {
      * @see ControllerReader.NoSuchAxisException
      */
     public TriggerFilteredState getTriggerState(Trigger t) throws NoControllerException, NotConfiguredException, NoSuchAxisException {
-        
-        Axis trigAxis;
-        
-        try {
-            trigAxis = TriggerAxes.get(t);
-        } catch (NullPointerException e) {
-            throw new NotConfiguredException("Requested joystick is not properly configured.");
-        }
-        
-        return new TriggerFilteredState(trigAxis.value(0, 1));
+        return new TriggerFilteredState(getTriggerValue(t));
+    }
+    
+    /**
+     * Measures the state of the given {@link ControllerReader.Trigger} into an existing object, allocating nothing.
+     * 
+     * @param t         The physical trigger button to measure.
+     * @param out       The object to store the filtered state of the trigger button in.
+     * @throws LWJGLTools.input.ControllerReader.NoControllerException
+     * @throws LWJGLTools.input.ControllerReader.NotConfiguredException
+     * @throws LWJGLTools.input.ControllerReader.NoSuchAxisException 
+     * @see #newTriggerState()
+     */
+    public void getTriggerState(Trigger t, TriggerFilteredState out) throws NoControllerException, NotConfiguredException, NoSuchAxisException {
+        out.value = getTriggerValue(t);
+    }
+    
+    /**
+     * Measures the value of the given {@link ControllerReader.Trigger}, allocating nothing.
+     * 
+     * @param t         The physical trigger button to measure.
+     * @return          The value of the trigger, as returned by {@link TriggerFilteredState#getValue()}.
+     * @throws LWJGLTools.input.ControllerReader.NoControllerException
+     * @throws LWJGLTools.input.ControllerReader.NotConfiguredException
+     * @throws LWJGLTools.input.ControllerReader.NoSuchAxisException 
+     */
+    public float getTriggerValue(Trigger t) throws NoControllerException, NotConfiguredException, NoSuchAxisException {
+        Axis trigAxis = TriggerAxes[t.ordinal()];
+        if (trigAxis == null)
+            throw new NotConfiguredException("Requested trigger is not properly configured.");
+        return trigAxis.value(captureAxes(trigAxis.getControllerID()), 0, 1);
+    }
+    
+    /**
+     * Measures the value of the given {@link ControllerReader.Trigger}, without throwing an exception if it cannot be read.
+     * 
+     * @param t         The physical trigger button to measure.
+     * @param fallback  The value to return if the trigger cannot be read.
+     * @return          The value of the trigger, as returned by {@link TriggerFilteredState#getValue()}, or the fallback.
+     */
+    public float getTriggerValue(Trigger t, float fallback) {
+        Axis trigAxis = TriggerAxes[t.ordinal()];
+        if (axisStatus(trigAxis) != Status.OK)
+            return fallback;
+        return trigAxis.map(snapshot.getAxis(trigAxis.getControllerID(), trigAxis.getAxisID().value()), 0, 1);
+    }
+    
+    /**
+     * Measures the state of the given {@link ControllerReader.Trigger} into an existing object, without
+     * throwing an exception if it cannot be read. If it cannot, the value is set to 0.
+     * 
+     * @param t         The physical trigger button to measure.
+     * @param out       The object to store the filtered state of the trigger button in.
+     * @return          {@link Status#OK} if the trigger was read, or else why not.
+     */
+    public Status readTrigger(Trigger t, TriggerFilteredState out) {
+        Axis trigAxis = TriggerAxes[t.ordinal()];
+        Status status = axisStatus(trigAxis);
+        out.value = (status == Status.OK)
+                ? trigAxis.map(snapshot.getAxis(trigAxis.getControllerID(), trigAxis.getAxisID().value()), 0, 1)
+                : 0;
+        return status;
+    }
+    
+    /**
+     * Returns a new trigger state, to be filled by {@link #getTriggerState(LWJGLTools.input.ControllerReader.Trigger, LWJGLTools.input.ControllerReader.TriggerFilteredState)}.
+     * 
+     * @return      A state of an untouched trigger.
+     */
+    public TriggerFilteredState newTriggerState() {
+        return new TriggerFilteredState(0);
     }
     
     /**
@@ -689,11 +1008,11 @@ public final class ControllerReader {
                     joyEl.setAttribute("which", js.name());
                     
                     // Adding the axes
-                    if (JoystickAxes.containsKey(js)) {
+                    if (JoystickAxes[js.ordinal()] != null) {
                         
                         Axis xAxis, yAxis;
-                        xAxis = JoystickAxes.get(js)[0];
-                        yAxis = JoystickAxes.get(js)[1];
+                        xAxis = JoystickAxes[js.ordinal()][0];
+                        yAxis = JoystickAxes[js.ordinal()][1];
                         
                         xAxisEl = xAxis.getXMLNode(doc);
                         xAxisEl.setAttribute("which", "x");
@@ -706,8 +1025,8 @@ public final class ControllerReader {
                     }
                     
                     // Adding the deadzone
-                    if (JoystickDeadzones.containsKey(js)) {
-                        float val = JoystickDeadzones.get(js);
+                    if (!Float.isNaN(JoystickDeadzones[js.ordinal()])) {
+                        float val = JoystickDeadzones[js.ordinal()];
                         deadzoneEl = doc.createElement("deadzone");
                         deadzoneEl.setTextContent(String.valueOf(val));
                         
@@ -724,12 +1043,12 @@ public final class ControllerReader {
                 
                 for (Trigger trig : Trigger.values()) {
                     
-                    if (TriggerAxes.containsKey(trig)) {
+                    if (TriggerAxes[trig.ordinal()] != null) {
                         
                         trigEl = doc.createElement("trigger");
                         trigEl.setAttribute("which", trig.name());
 
-                        axisEl = TriggerAxes.get(trig).getXMLNode(doc);
+                        axisEl = TriggerAxes[trig.ordinal()].getXMLNode(doc);
                         trigEl.appendChild(axisEl);
 
                         rootElement.appendChild(trigEl);
@@ -737,12 +1056,16 @@ public final class ControllerReader {
                     
                 }
                 
-                for (Entry<Button,ButtonContainer> bent : Buttons.entrySet()) {
+                for (Button b : Button.values()) {
+                    
+                    ButtonContainer bc = Buttons[b.ordinal()];
+                    if (bc == null)
+                        continue;
                     
                     Element butEl = doc.createElement("button");
-                    butEl.setAttribute("which", bent.getKey().name());
-                    butEl.setAttribute("bid", String.valueOf(bent.getValue().getButtonID().name()));
-                    butEl.setAttribute("cid", String.valueOf(bent.getValue().getControllerID().name()));
+                    butEl.setAttribute("which", b.name());
+                    butEl.setAttribute("bid", String.valueOf(bc.getButtonID().name()));
+                    butEl.setAttribute("cid", String.valueOf(bc.getControllerID().name()));
                     
                     rootElement.appendChild(butEl);
                     
@@ -879,7 +1202,7 @@ public final class ControllerReader {
      * @see ControllerReader.TriggerFilteredState#getValue()
      */
     public final class TriggerFilteredState {
-        private float value;
+        float value;
         /**
          * Returns the current value of the trigger.
          * <p>
@@ -909,8 +1232,8 @@ public final class ControllerReader {
      */
     public final class JoystickFilteredState {
         private static final float TAU = (float)Math.PI*2;
-        private float mag;
-        private float angle;
+        float mag;
+        float angle;
         /**
          * Returns the magnitude of the joystick displacement from its resting position.
          * 0 corresponds to resting position, and 1 to fully pushed in any direction.
@@ -0,0 +1,313 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package LWJGLTools.input;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+import LWJGLTools.input.ControllerReader.ControllerID;
+import org.lwjgl.glfw.GLFWJoystickCallback;
+import static org.lwjgl.glfw.GLFW.*;
+
+/**
+ * The state of every axis and button of every controller, captured at one moment.
+ * <p>
+ * Each call to {@link #poll()} reads the axes and buttons of every {@link ControllerReader.ControllerID}
+ * once, with two native calls per controller, and copies them into arrays. Every query afterwards is
+ * an array read, until the next poll. The axes or the buttons of a single controller may also be captured
+ * alone, with {@link #pollAxes(LWJGLTools.input.ControllerReader.ControllerID)} and
+ * {@link #pollButtons(LWJGLTools.input.ControllerReader.ControllerID)}. Polling is best done once per frame, just after
+ * {@link org.lwjgl.glfw.GLFW#glfwPollEvents()}.
+ * <p>
+ * The states are read through a {@link ControllerSnapshot.Source}, which by default is GLFW.
+ * Another source may be supplied, for instance to replay recorded input or to run without a window.
+ * <p>
+ * Once {@link #trackConnections()} has been called, controllers which are known to be disconnected
+ * are not read at all: a poll of a missing controller costs a branch, until GLFW reports it connected.
+ *
+ * @author Murdock Grewar
+ * @see ControllerReader#poll()
+ */
+public final class ControllerSnapshot {
+
+    /**
+     * Where the raw states of controllers are read from.
+     */
+    public interface Source {
+
+        /**
+         * Returns the values of the axes of a controller, as {@link org.lwjgl.glfw.GLFW#glfwGetJoystickAxes(int)} does.
+         *
+         * @param joystick  The GLFW joystick index of the controller.
+         * @return          One value per axis between the position and limit of the buffer, or null if there is no such controller.
+         */
+        FloatBuffer axes(int joystick);
+
+        /**
+         * Returns the states of the buttons of a controller, as {@link org.lwjgl.glfw.GLFW#glfwGetJoystickButtons(int)} does.
+         *
+         * @param joystick  The GLFW joystick index of the controller.
+         * @return          {@link org.lwjgl.glfw.GLFW#GLFW_PRESS} or {@link org.lwjgl.glfw.GLFW#GLFW_RELEASE} per button
+         *                  between the position and limit of the buffer, or null if there is no such controller.
+         */
+        ByteBuffer buttons(int joystick);
+    }
+
+    /**
+     * The source which reads controllers through GLFW.
+     */
+    public static final Source GLFW_SOURCE = new Source() {
+        @Override
+        public FloatBuffer axes(int joystick) {
+            return glfwGetJoystickAxes(joystick);
+        }
+
+        @Override
+        public ByteBuffer buttons(int joystick) {
+            return glfwGetJoystickButtons(joystick);
+        }
+    };
+
+    private static final ControllerID[] CONTROLLERS = ControllerID.values();
+
+    private final Source source;
+
+    private final boolean[] connected = new boolean[CONTROLLERS.length];
+    private final float[][] axes = new float[CONTROLLERS.length][8];
+    private final int[] axisCounts = new int[CONTROLLERS.length];
+    private final boolean[][] buttons = new boolean[CONTROLLERS.length][16];
+    private final int[] buttonCounts = new int[CONTROLLERS.length];
+    private long pollCount = 0;
+
+    // Whether each controller may be connected. Only consulted while connections are tracked.
+    private final boolean[] present = new boolean[CONTROLLERS.length];
+    private boolean tracking = false;
+    private GLFWJoystickCallback joystickCallback = null;
+
+    /**
+     * Returns a new snapshot reading controllers through GLFW. It holds no controllers until it is polled.
+     */
+    public ControllerSnapshot() {
+        this(GLFW_SOURCE);
+    }
+
+    /**
+     * Returns a new snapshot reading controllers from the given source. It holds no controllers until it is polled.
+     *
+     * @param source    The source of controller states.
+     */
+    public ControllerSnapshot(Source source) {
+        if (source == null)
+            throw new IllegalArgumentException("The source must not be null.");
+        this.source = source;
+    }
+
+    /**
+     * Captures the current state of every controller, replacing the previous one.
+     */
+    public void poll() {
+        for (ControllerID cid : CONTROLLERS)
+            poll(cid);
+        pollCount++;
+    }
+
+    /**
+     * Captures the current state of a single controller, replacing its previous one.
+     *
+     * @param cid   The controller to capture.
+     */
+    public void poll(ControllerID cid) {
+        if (pollAxes(cid))
+            pollButtons(cid);
+    }
+
+    /**
+     * Captures the current values of the axes of a single controller, with one native call, replacing their previous ones.
+     * The buttons keep their previous states, unless the controller is found to be disconnected.
+     *
+     * @param cid   The controller to capture.
+     * @return      Whether the controller was connected.
+     */
+    public boolean pollAxes(ControllerID cid) {
+        int c = cid.ordinal();
+        FloatBuffer fb = (tracking && !present[c]) ? null : source.axes(cid.value());
+        if (fb == null)
+            return disconnected(c);
+        connected[c] = true;
+
+        int n = fb.remaining();
+        if (axes[c].length < n)
+            axes[c] = Arrays.copyOf(axes[c], n);
+        for (int i = 0; i < n; i++)
+            axes[c][i] = fb.get(fb.position() + i);
+        axisCounts[c] = n;
+        return true;
+    }
+
+    /**
+     * Captures the current states of the buttons of a single controller, with one native call, replacing their previous ones.
+     * The axes keep their previous values, unless the controller is found to be disconnected.
+     *
+     * @param cid   The controller to capture.
+     * @return      Whether the controller was connected.
+     */
+    public boolean pollButtons(ControllerID cid) {
+        int c = cid.ordinal();
+        ByteBuffer bb = (tracking && !present[c]) ? null : source.buttons(cid.value());
+        if (bb == null)
+            return disconnected(c);
+        connected[c] = true;
+
+        int n = bb.remaining();
+        if (buttons[c].length < n)
+            buttons[c] = Arrays.copyOf(buttons[c], n);
+        for (int i = 0; i < n; i++)
+            buttons[c][i] = bb.get(bb.position() + i) == GLFW_PRESS;
+        buttonCounts[c] = n;
+        return true;
+    }
+
+    private boolean disconnected(int c) {
+        connected[c] = false;
+        axisCounts[c] = 0;
+        buttonCounts[c] = 0;
+        return false;
+    }
+
+    /**
+     * Starts caching which controllers are connected, so that polls skip the ones which are not.
+     * The cache starts from whether each controller is connected now, and is kept up to date by
+     * a GLFW joystick callback, which replaces any other joystick callback.
+     * Call {@link #dispose()} to remove it.
+     * <p>
+     * If this snapshot reads from a source other than GLFW, no callback is installed; call
+     * {@link #joystickEvent(int, int)} instead when controllers are connected or disconnected.
+     */
+    public void trackConnections() {
+        for (ControllerID cid : CONTROLLERS) {
+            poll(cid);
+            present[cid.ordinal()] = connected[cid.ordinal()];
+        }
+        tracking = true;
+        if (source == GLFW_SOURCE && joystickCallback == null) {
+            joystickCallback = new GLFWJoystickCallback() {
+                @Override
+                public void invoke(int joy, int event) {
+                    joystickEvent(joy, event);
+                }
+            };
+            glfwSetJoystickCallback(joystickCallback);
+        }
+    }
+
+    /**
+     * Returns whether connections are being cached.
+     *
+     * @return  Whether {@link #trackConnections()} has been called since the last {@link #dispose()}.
+     */
+    public boolean isTrackingConnections() {
+        return tracking;
+    }
+
+    /**
+     * Records that a controller was connected or disconnected. The controller is read again from
+     * the next poll if it was connected. Events for joysticks which are not a {@link ControllerReader.ControllerID}
+     * are ignored.
+     *
+     * @param joystick  The GLFW joystick index of the controller.
+     * @param event     {@link org.lwjgl.glfw.GLFW#GLFW_CONNECTED} or {@link org.lwjgl.glfw.GLFW#GLFW_DISCONNECTED}.
+     */
+    public void joystickEvent(int joystick, int event) {
+        for (ControllerID cid : CONTROLLERS) {
+            if (cid.value() != joystick)
+                continue;
+            if (event == GLFW_CONNECTED)
+                present[cid.ordinal()] = true;
+            else if (event == GLFW_DISCONNECTED)
+                present[cid.ordinal()] = false;
+        }
+    }
+
+    /**
+     * Stops caching connections, and removes the joystick callback if one was installed.
+     * Every controller is read by polls again.
+     */
+    public void dispose() {
+        tracking = false;
+        if (joystickCallback != null) {
+            glfwSetJoystickCallback(null);
+            joystickCallback.free();
+            joystickCallback = null;
+        }
+    }
+
+    /**
+     * Returns the number of times {@link #poll()} has been called.
+     *
+     * @return  The poll count.
+     */
+    public long getPollCount() {
+        return pollCount;
+    }
+
+    /**
+     * Returns whether a controller was connected when it was last captured.
+     *
+     * @param cid   The controller.
+     * @return      Whether it was connected.
+     */
+    public boolean isConnected(ControllerID cid) {
+        return connected[cid.ordinal()];
+    }
+
+    /**
+     * Returns the number of axes of a controller, or 0 if it was not connected.
+     *
+     * @param cid   The controller.
+     * @return      The number of axes.
+     */
+    public int getAxisCount(ControllerID cid) {
+        return axisCounts[cid.ordinal()];
+    }
+
+    /**
+     * Returns the raw value of an axis, as read by {@link org.lwjgl.glfw.GLFW#glfwGetJoystickAxes(int)}.
+     *
+     * @param cid   The controller.
+     * @param axis  The index of the axis, less than {@link #getAxisCount(LWJGLTools.input.ControllerReader.ControllerID)}.
+     * @return      The raw value of the axis.
+     */
+    public float getAxis(ControllerID cid, int axis) {
+        int c = cid.ordinal();
+        if (axis < 0 || axis >= axisCounts[c])
+            throw new IndexOutOfBoundsException("Axis " + axis + " of controller " + cid + " was not captured.");
+        return axes[c][axis];
+    }
+
+    /**
+     * Returns the number of buttons of a controller, or 0 if it was not connected.
+     *
+     * @param cid   The controller.
+     * @return      The number of buttons.
+     */
+    public int getButtonCount(ControllerID cid) {
+        return buttonCounts[cid.ordinal()];
+    }
+
+    /**
+     * Returns whether a button was pressed.
+     *
+     * @param cid       The controller.
+     * @param button    The index of the button, less than {@link #getButtonCount(LWJGLTools.input.ControllerReader.ControllerID)}.
+     * @return          Whether the button was pressed.
+     */
+    public boolean isButtonPressed(ControllerID cid, int button) {
+        int c = cid.ordinal();
+        if (button < 0 || button >= buttonCounts[c])
+            throw new IndexOutOfBoundsException("Button " + button + " of controller " + cid + " was not captured.");
+        return buttons[c][button];
+    }
+}
@@ -0,0 +1,337 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package LWJGLTools.input;
+
+import java.util.HashMap;
+import org.lwjgl.glfw.GLFWJoystickCallback;
+import org.lwjgl.glfw.GLFWKeyCallback;
+import static org.lwjgl.glfw.GLFW.*;
+
+/**
+ * A bounded queue of timestamped input events, filled by GLFW callbacks and drained by game code.
+ * <p>
+ * Unlike {@link KeyboardReader#isPressed(long, int)} and {@link KeyTracker}, which sample the state of a key
+ * when asked, the queue records every press and release as it happens, so taps shorter than a frame are not lost.
+ * <p>
+ * Events are held in a ring of primitive arrays, and neither posting nor reading an event allocates anything.
+ * The queue has a single producer and a single consumer, which may be different threads: the producer is
+ * normally the thread calling {@link org.lwjgl.glfw.GLFW#glfwPollEvents()}, and the consumer the thread which
+ * calls {@link #next()} or {@link #drain(InputEventQueue.Handler)} once per frame or tick.
+ * If the queue is full, new events are dropped and counted, rather than blocking the producer.
+ * <p>
+ * Synthetic events may be posted with {@link #post(int, long, int, int, int, int, long)}, for instance to replay
+ * input or to drive game code without a window, but only from the producer thread.
+ *
+ * @author Murdock Grewar
+ * @see #install(long)
+ */
+public final class InputEventQueue {
+
+    /** The type of an event from a {@link org.lwjgl.glfw.GLFWKeyCallback}. */
+    public static final int KEY = 1;
+    /** The type of an event from a {@link org.lwjgl.glfw.GLFWJoystickCallback}: a controller was connected or disconnected. */
+    public static final int JOYSTICK = 2;
+
+    /**
+     * Receives the events drained from a queue.
+     */
+    public interface Handler {
+
+        /**
+         * Handles a single event. The arguments are those returned by the getters of the queue.
+         *
+         * @param type      {@link #KEY} or {@link #JOYSTICK}, or a type of a synthetic event.
+         * @param window    The window handle, or 0 for joystick events.
+         * @param code      The GLFW key, or the GLFW joystick index.
+         * @param scancode  The platform scancode of the key, or 0.
+         * @param action    {@link org.lwjgl.glfw.GLFW#GLFW_PRESS}, {@link org.lwjgl.glfw.GLFW#GLFW_RELEASE} or
+         *                  {@link org.lwjgl.glfw.GLFW#GLFW_REPEAT} for keys; {@link org.lwjgl.glfw.GLFW#GLFW_CONNECTED} or
+         *                  {@link org.lwjgl.glfw.GLFW#GLFW_DISCONNECTED} for joysticks.
+         * @param mods      The GLFW modifier bits of a key event, or 0.
+         * @param nanos     When the event was posted, as read by {@link System#nanoTime()}.
+         */
+        void event(int type, long window, int code, int scancode, int action, int mods, long nanos);
+    }
+
+    private final int mask;
+    private final int[] types, codes, scancodes, actions, mods;
+    private final long[] windows, times;
+
+    // Written only by the producer and the consumer respectively; volatile so that each publishes its slots to the other.
+    private volatile long tail = 0;
+    private volatile long head = 0;
+    // Plain copies read by the thread which owns each index.
+    private long producerTail = 0, consumerHead = 0;
+    private long dropped = 0;
+
+    private int type, code, scancode, action, mod;
+    private long window, time;
+
+    // One key callback per window, so that disposing one window cannot free a callback another still calls.
+    private final HashMap<Long, GLFWKeyCallback> keyCallbacks = new HashMap<>();
+    private GLFWJoystickCallback joystickCallback = null;
+
+    /**
+     * Returns a new, empty queue holding at least the given number of events.
+     *
+     * @param capacity  The least number of events the queue can hold before dropping them. It is rounded up to a power of two.
+     */
+    public InputEventQueue(int capacity) {
+        if (capacity < 1 || capacity > (1 << 30))
+            throw new IllegalArgumentException("The capacity must be between 1 and 2^30.");
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity)
+            size <<= 1;
+        mask = size - 1;
+        types = new int[size];
+        codes = new int[size];
+        scancodes = new int[size];
+        actions = new int[size];
+        mods = new int[size];
+        windows = new long[size];
+        times = new long[size];
+    }
+
+    /**
+     * Installs a key callback on the given window and a joystick callback, both posting to this queue.
+     * The queue may be installed on several windows; each gets its own key callback, and they share the joystick callback.
+     * They replace any key callback of the window and any joystick callback;
+     * in particular, {@link ControllerSnapshot#trackConnections()} should not be used as well. Instead,
+     * pass drained {@link #JOYSTICK} events to {@link ControllerSnapshot#joystickEvent(int, int)}.
+     * <p>
+     * The callbacks are invoked by {@link org.lwjgl.glfw.GLFW#glfwPollEvents()}, which makes its thread the producer.
+     *
+     * @param window    The window handle.
+     * @see #dispose(long)
+     */
+    public void install(long window) {
+        GLFWKeyCallback keyCallback = keyCallbacks.get(window);
+        if (keyCallback == null) {
+            keyCallback = new GLFWKeyCallback() {
+                @Override
+                public void invoke(long window, int key, int scancode, int action, int mods) {
+                    post(KEY, window, key, scancode, action, mods, System.nanoTime());
+                }
+            };
+            keyCallbacks.put(window, keyCallback);
+        }
+        glfwSetKeyCallback(window, keyCallback);
+        if (joystickCallback == null) {
+            joystickCallback = new GLFWJoystickCallback() {
+                @Override
+                public void invoke(int joy, int event) {
+                    post(JOYSTICK, 0, joy, 0, event, 0, System.nanoTime());
+                }
+            };
+            glfwSetJoystickCallback(joystickCallback);
+        }
+    }
+
+    /**
+     * Removes the key callback of the given window, if this queue installed one, and frees it.
+     * Once no window is left, the joystick callback is removed and freed as well.
+     * Events already queued may still be read.
+     *
+     * @param window    The window handle passed to {@link #install(long)}.
+     */
+    public void dispose(long window) {
+        GLFWKeyCallback keyCallback = keyCallbacks.remove(window);
+        if (keyCallback != null) {
+            glfwSetKeyCallback(window, null);
+            keyCallback.free();
+        }
+        if (keyCallbacks.isEmpty() && joystickCallback != null) {
+            glfwSetJoystickCallback(null);
+            joystickCallback.free();
+            joystickCallback = null;
+        }
+    }
+
+    /**
+     * Adds an event to the queue, or drops it if the queue is full. This must only be called by the producer thread.
+     *
+     * @param type      The type of the event; {@link #KEY}, {@link #JOYSTICK} or any other for synthetic events.
+     * @param window    The window handle, or 0.
+     * @param code      The GLFW key or joystick index.
+     * @param scancode  The platform scancode, or 0.
+     * @param action    The GLFW action or joystick event.
+     * @param mods      The GLFW modifier bits, or 0.
+     * @param nanos     The time of the event, as read by {@link System#nanoTime()}.
+     * @return          Whether the event was queued.
+     */
+    public boolean post(int type, long window, int code, int scancode, int action, int mods, long nanos) {
+        long t = producerTail;
+        if (t - head > mask) {
+            dropped++;
+            return false;
+        }
+        int i = (int)t & mask;
+        types[i] = type;
+        windows[i] = window;
+        codes[i] = code;
+        scancodes[i] = scancode;
+        actions[i] = action;
+        this.mods[i] = mods;
+        times[i] = nanos;
+        producerTail = t + 1;
+        tail = t + 1;
+        return true;
+    }
+
+    /**
+     * Adds a synthetic key event, timestamped now. This must only be called by the producer thread.
+     *
+     * @param window    The window handle.
+     * @param key       The GLFW key.
+     * @param action    {@link org.lwjgl.glfw.GLFW#GLFW_PRESS}, {@link org.lwjgl.glfw.GLFW#GLFW_RELEASE} or {@link org.lwjgl.glfw.GLFW#GLFW_REPEAT}.
+     * @return          Whether the event was queued.
+     */
+    public boolean postKey(long window, int key, int action) {
+        return post(KEY, window, key, 0, action, 0, System.nanoTime());
+    }
+
+    /**
+     * Moves to the next event in the queue, removing it. Its fields are then read with the getters,
+     * until the next call. This must only be called by the consumer thread.
+     *
+     * @return  Whether there was an event.
+     */
+    public boolean next() {
+        long h = consumerHead;
+        if (h == tail)
+            return false;
+        int i = (int)h & mask;
+        type = types[i];
+        window = windows[i];
+        code = codes[i];
+        scancode = scancodes[i];
+        action = actions[i];
+        mod = mods[i];
+        time = times[i];
+        consumerHead = h + 1;
+        head = h + 1;
+        return true;
+    }
+
+    /**
+     * Removes every event currently in the queue, passing each to the handler in the order they were posted.
+     * This must only be called by the consumer thread.
+     *
+     * @param handler   The handler of the events.
+     * @return          The number of events handled.
+     */
+    public int drain(Handler handler) {
+        int n = 0;
+        // Events posted while draining are left for the next drain, so that a frame sees a fixed set.
+        long end = tail;
+        while (consumerHead != end && next()) {
+            handler.event(type, window, code, scancode, action, mod, time);
+            n++;
+        }
+        return n;
+    }
+
+    /**
+     * Removes every event currently in the queue without reading them. This must only be called by the consumer thread.
+     */
+    public void clear() {
+        consumerHead = tail;
+        head = consumerHead;
+    }
+
+    /**
+     * Returns the number of events in the queue. It is exact only if the producer is not posting.
+     *
+     * @return  The number of events waiting to be read.
+     */
+    public int size() {
+        return (int)(tail - head);
+    }
+
+    /**
+     * Returns the greatest number of events the queue holds.
+     *
+     * @return  The capacity.
+     */
+    public int getCapacity() {
+        return mask + 1;
+    }
+
+    /**
+     * Returns the number of events dropped because the queue was full. It is read without synchronisation.
+     *
+     * @return  The dropped count.
+     */
+    public long getDroppedCount() {
+        return dropped;
+    }
+
+    /**
+     * Returns the type of the current event.
+     *
+     * @return  {@link #KEY}, {@link #JOYSTICK}, or the type of a synthetic event.
+     * @see #next()
+     */
+    public int getType() {
+        return type;
+    }
+
+    /**
+     * Returns the window of the current event.
+     *
+     * @return  The window handle, or 0 for joystick events.
+     */
+    public long getWindow() {
+        return window;
+    }
+
+    /**
+     * Returns the key or joystick of the current event.
+     *
+     * @return  The GLFW key, or the GLFW joystick index.
+     */
+    public int getCode() {
+        return code;
+    }
+
+    /**
+     * Returns the platform scancode of the current event.
+     *
+     * @return  The scancode, or 0.
+     */
+    public int getScancode() {
+        return scancode;
+    }
+
+    /**
+     * Returns the action of the current event.
+     *
+     * @return  {@link org.lwjgl.glfw.GLFW#GLFW_PRESS}, {@link org.lwjgl.glfw.GLFW#GLFW_RELEASE} or
+     *          {@link org.lwjgl.glfw.GLFW#GLFW_REPEAT} for keys; {@link org.lwjgl.glfw.GLFW#GLFW_CONNECTED} or
+     *          {@link org.lwjgl.glfw.GLFW#GLFW_DISCONNECTED} for joysticks.
+     */
+    public int getAction() {
+        return action;
+    }
+
+    /**
+     * Returns the modifier bits of the current event.
+     *
+     * @return  The GLFW modifier bits, or 0.
+     */
+    public int getMods() {
+        return mod;
+    }
+
+    /**
+     * Returns the time of the current event.
+     *
+     * @return  The time, as read by {@link System#nanoTime()}.
+     */
+    public long getNanos() {
+        return time;
+    }
+}
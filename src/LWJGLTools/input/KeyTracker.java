@@ -7,6 +7,7 @@ package LWJGLTools.input;
 
 /**
  * A class used to monitor a particular key on a particular window.
+ * To monitor many keys, a single {@link KeyboardState} is cheaper.
  * <p>
  * Note that key states will not be updated until a call to {@link org.lwjgl.glfw.GLFW#glfwPollEvents()} is made.
  * <p>
@@ -20,6 +21,7 @@ package LWJGLTools.input;
  * @author Murdock Grewar
  * @see org.lwjgl.glfw.GLFW
  * @see org.lwjgl.glfw.GLFW#glfwPollEvents()
+ * @see KeyboardState
  */
 public class KeyTracker {
     
@@ -0,0 +1,249 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package LWJGLTools.input;
+
+import java.util.Arrays;
+import static org.lwjgl.glfw.GLFW.*;
+
+/**
+ * The state of every key on a particular window, kept as bitsets indexed by GLFW key code.
+ * <p>
+ * One instance replaces a {@link KeyTracker} per key. It is brought up to date once per frame, in one of two ways:
+ * <ul>
+ * <li>{@link #poll()} reads every key with {@link org.lwjgl.glfw.GLFW#glfwGetKey(long, int)}, after
+ *     {@link org.lwjgl.glfw.GLFW#glfwPollEvents()}.</li>
+ * <li>{@link #beginFrame()}, followed by {@link InputEventQueue#drain(InputEventQueue.Handler)} with this
+ *     state as the handler, or calls to {@link #keyEvent(int, int)}. This way, a key which was pressed and
+ *     released within one frame still counts as freshly pressed and freshly released.</li>
+ * </ul>
+ * Between updates, every query is a few bit operations, and nothing is allocated.
+ * <p>
+ * Wherever a `window handle' is referred to as a long, it should be one returned by
+ * {@link org.lwjgl.glfw.GLFW#glfwCreateWindow(int, int, java.lang.CharSequence, long, long)}.
+ * Wherever a `key' is referred to as an int, it should be one of the key constants found in
+ * {@link org.lwjgl.glfw.GLFW}; {@link org.lwjgl.glfw.GLFW#GLFW_KEY_UNKNOWN} is never pressed.
+ *
+ * @author Murdock Grewar
+ * @see KeyTracker
+ * @see InputEventQueue
+ */
+public final class KeyboardState implements InputEventQueue.Handler {
+
+    private static final int WORDS = (GLFW_KEY_LAST >> 6) + 1;
+
+    // Every key code that glfwGetKey accepts; the codes between them are unassigned.
+    private static final int[] KEYS = keys(
+            GLFW_KEY_SPACE, GLFW_KEY_SPACE,
+            GLFW_KEY_APOSTROPHE, GLFW_KEY_APOSTROPHE,
+            GLFW_KEY_COMMA, GLFW_KEY_9,
+            GLFW_KEY_SEMICOLON, GLFW_KEY_SEMICOLON,
+            GLFW_KEY_EQUAL, GLFW_KEY_EQUAL,
+            GLFW_KEY_A, GLFW_KEY_RIGHT_BRACKET,
+            GLFW_KEY_GRAVE_ACCENT, GLFW_KEY_GRAVE_ACCENT,
+            GLFW_KEY_WORLD_1, GLFW_KEY_WORLD_2,
+            GLFW_KEY_ESCAPE, GLFW_KEY_END,
+            GLFW_KEY_CAPS_LOCK, GLFW_KEY_PAUSE,
+            GLFW_KEY_F1, GLFW_KEY_F25,
+            GLFW_KEY_KP_0, GLFW_KEY_KP_EQUAL,
+            GLFW_KEY_LEFT_SHIFT, GLFW_KEY_MENU);
+
+    private static int[] keys(int... ranges) {
+        int n = 0;
+        for (int i = 0; i < ranges.length; i += 2)
+            n += ranges[i+1] - ranges[i] + 1;
+        int[] keys = new int[n];
+        n = 0;
+        for (int i = 0; i < ranges.length; i += 2)
+            for (int k = ranges[i]; k <= ranges[i+1]; k++)
+                keys[n++] = k;
+        return keys;
+    }
+
+    private final long window;
+
+    private final long[] down = new long[WORDS];
+    private final long[] previous = new long[WORDS];
+    private final long[] pressed = new long[WORDS];
+    private final long[] released = new long[WORDS];
+
+    /**
+     * Returns a new state for the given window, with no key pressed.
+     *
+     * @param window    The window handle.
+     */
+    public KeyboardState(long window) {
+        this.window = window;
+    }
+
+    /**
+     * Returns the window whose keys this state holds.
+     *
+     * @return  The window handle.
+     */
+    public long getWindow() {
+        return window;
+    }
+
+    /**
+     * Reads the state of every key of the window, making the current states the previous ones.
+     * Presses and releases in between two polls are not seen.
+     */
+    public void poll() {
+        System.arraycopy(down, 0, previous, 0, WORDS);
+        Arrays.fill(down, 0);
+        for (int key : KEYS) {
+            if (glfwGetKey(window, key) == GLFW_PRESS)
+                down[key >> 6] |= 1L << key;
+        }
+        for (int w = 0; w < WORDS; w++) {
+            pressed[w] = down[w] & ~previous[w];
+            released[w] = previous[w] & ~down[w];
+        }
+    }
+
+    /**
+     * Starts a new frame of key events, making the current states the previous ones.
+     * Call this before passing the events of the frame to {@link #keyEvent(int, int)}.
+     */
+    public void beginFrame() {
+        System.arraycopy(down, 0, previous, 0, WORDS);
+        Arrays.fill(pressed, 0);
+        Arrays.fill(released, 0);
+    }
+
+    /**
+     * Records that a key was pressed or released during the current frame.
+     * Repeats, and keys outside the range of GLFW key codes, are ignored.
+     *
+     * @param key       The key.
+     * @param action    {@link org.lwjgl.glfw.GLFW#GLFW_PRESS}, {@link org.lwjgl.glfw.GLFW#GLFW_RELEASE} or {@link org.lwjgl.glfw.GLFW#GLFW_REPEAT}.
+     */
+    public void keyEvent(int key, int action) {
+        if (key < 0 || key > GLFW_KEY_LAST)
+            return;
+        long bit = 1L << key;
+        int w = key >> 6;
+        if (action == GLFW_PRESS) {
+            down[w] |= bit;
+            pressed[w] |= bit;
+        } else if (action == GLFW_RELEASE) {
+            down[w] &= ~bit;
+            released[w] |= bit;
+        }
+    }
+
+    /**
+     * Passes the {@link InputEventQueue#KEY} events of this window to {@link #keyEvent(int, int)}, ignoring all others.
+     */
+    @Override
+    public void event(int type, long window, int code, int scancode, int action, int mods, long nanos) {
+        if (type == InputEventQueue.KEY && window == this.window)
+            keyEvent(code, action);
+    }
+
+    /**
+     * Releases every key, as though the window lost focus, without counting them as freshly released.
+     */
+    public void clear() {
+        Arrays.fill(down, 0);
+        Arrays.fill(previous, 0);
+        Arrays.fill(pressed, 0);
+        Arrays.fill(released, 0);
+    }
+
+    private static boolean get(long[] bits, int key) {
+        return key >= 0 && key <= GLFW_KEY_LAST && (bits[key >> 6] & (1L << key)) != 0;
+    }
+
+    private static boolean any(long[] bits) {
+        long or = 0;
+        for (long word : bits)
+            or |= word;
+        return or != 0;
+    }
+
+    /**
+     * Returns whether a key is currently depressed.
+     *
+     * @param key   The key.
+     * @return      Whether it is depressed.
+     */
+    public boolean isPressed(int key) {
+        return get(down, key);
+    }
+
+    /**
+     * Returns whether a key was depressed before the current frame.
+     *
+     * @param key   The key.
+     * @return      Whether it was depressed.
+     */
+    public boolean wasPressed(int key) {
+        return get(previous, key);
+    }
+
+    /**
+     * Returns whether a key was freshly pressed during the current frame.
+     * <p>
+     * In this case, a `fresh press' is considered to be the process of a key transitioning
+     * from a non-depressed state to the depressed state.
+     *
+     * @param key   The key.
+     * @return      Whether it was freshly pressed.
+     */
+    public boolean isFreshlyPressed(int key) {
+        return get(pressed, key);
+    }
+
+    /**
+     * Returns whether a key was freshly released during the current frame.
+     *
+     * @param key   The key.
+     * @return      Whether it transitioned from the depressed state to a non-depressed state.
+     */
+    public boolean isFreshlyReleased(int key) {
+        return get(released, key);
+    }
+
+    /**
+     * Returns whether any key is currently depressed.
+     *
+     * @return  Whether any key is depressed.
+     */
+    public boolean isAnyPressed() {
+        return any(down);
+    }
+
+    /**
+     * Returns whether any key was freshly pressed during the current frame.
+     *
+     * @return  Whether any key was freshly pressed.
+     */
+    public boolean isAnyFreshlyPressed() {
+        return any(pressed);
+    }
+
+    /**
+     * Returns whether any key was freshly released during the current frame.
+     *
+     * @return  Whether any key was freshly released.
+     */
+    public boolean isAnyFreshlyReleased() {
+        return any(released);
+    }
+
+    /**
+     * Returns the number of keys currently depressed.
+     *
+     * @return  The number of keys.
+     */
+    public int getPressedCount() {
+        int n = 0;
+        for (long word : down)
+            n += Long.bitCount(word);
+        return n;
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package LWJGLTools.GLDrawing;
+
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import static org.lwjgl.opengl.GL11.*;
+
+/**
+ * Checks that {@link DrawCommandList#sortByState()} groups commands by state without changing the picture.
+ * Nothing here needs a GL context.
+ *
+ * @author Murdock Grewar
+ */
+public class DrawCommandListTest {
+
+    private static final int RED = 0xFF0000FF, GREEN = 0x00FF00FF, BLUE = 0x0000FFFF;
+
+    private DrawCommandList list;
+    private GLDrawBatch batch;
+
+    @Before
+    public void setUp() {
+        list = new DrawCommandList();
+        batch = new GLDrawBatch();
+    }
+
+    // Records a scene of fills and lines of two widths, scattered so that some of them overlap.
+    private static void scene(DrawCommandList l) {
+        for (int i = 0; i < 60; i++) {
+            float x = (i * 37) % 200 - 100, y = (i * 53) % 200 - 100;
+            l.setColorRGBA(0x10000080 + i * 0x04030200);
+            switch (i % 3) {
+                case 0:
+                    l.disk(x, y, 6 + i % 5);
+                    break;
+                case 1:
+                    l.setStrokeWidth(1 + i % 2);
+                    l.line(x, y, x + 15, y - 10);
+                    break;
+                default:
+                    l.urchinFill(x, y, 4, 9, 5, i);
+            }
+        }
+    }
+
+    @Test
+    public void separateShapesAreGroupedByState() {
+        list.setColorRGBA(RED);
+        list.disk(0, 0, 1);
+        list.line(10, 10, 11, 11);
+        list.setColorRGBA(GREEN);
+        list.disk(20, 20, 1);
+        list.line(30, 30, 31, 31);
+
+        assertEquals(2, list.sortByState());
+        list.replay(batch);
+        assertEquals(2, batch.getRunCount());
+        assertEquals(GL_TRIANGLES, batch.getRunMode(0));
+        assertEquals(GL_LINES, batch.getRunMode(1));
+        // The disks keep their own colours, in their recorded order.
+        assertEquals(RED, batch.getVertexColor(0));
+        assertEquals(GREEN, batch.getVertexColor(batch.getRunVertexCount(0) - 1));
+    }
+
+    @Test
+    public void overlappingShapesKeepTheirOrder() {
+        list.setColorRGBA(RED);
+        list.disk(0, 0, 5);
+        list.setColorRGBA(BLUE);
+        list.line(-5, 0, 5, 0);
+        list.setColorRGBA(GREEN);
+        list.disk(0, 0, 2);
+
+        assertEquals(3, list.sortByState());
+        list.replay(batch);
+        assertEquals(3, batch.getRunCount());
+        assertEquals(RED, batch.getVertexColor(batch.getRunFirst(0)));
+        assertEquals(BLUE, batch.getVertexColor(batch.getRunFirst(1)));
+        assertEquals(GREEN, batch.getVertexColor(batch.getRunFirst(2)));
+    }
+
+    @Test
+    public void strokeWidthsFormSeparateGroups() {
+        list.setStrokeWidth(1);
+        list.line(0, 0, 1, 0);
+        list.setStrokeWidth(3);
+        list.line(10, 0, 11, 0);
+        list.setStrokeWidth(1);
+        list.line(20, 0, 21, 0);
+
+        assertEquals(2, list.sortByState());
+        list.replay(batch);
+        assertEquals(2, batch.getRunCount());
+        assertEquals(1, batch.getRunStrokeWidth(0), 0);
+        assertEquals(3, batch.getRunStrokeWidth(1), 0);
+        assertEquals(4, batch.getRunVertexCount(0));
+    }
+
+    @Test
+    public void sortingLeavesThePictureUnchanged() {
+        DrawCommandList sorted = new DrawCommandList();
+        scene(list);
+        scene(sorted);
+        int groups = sorted.sortByState();
+        assertEquals(60, sorted.size());
+        assertTrue(groups + " groups", groups < 60);
+
+        SoftwareRenderer before = new SoftwareRenderer(128, 128), after = new SoftwareRenderer(128, 128);
+        for (SoftwareRenderer r : new SoftwareRenderer[]{before, after}) {
+            r.setOrtho(-110, 110, -110, 110);
+            r.clear(0x000000FF);
+        }
+        GLDrawBatch b = new GLDrawBatch();
+        list.replay(b);
+        before.submit(b);
+        sorted.replay(b);
+        after.submit(b);
+        assertArrayEquals(before.getPixels(), after.getPixels());
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package LWJGLTools.GLDrawing;
+
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import static org.lwjgl.opengl.GL11.*;
+
+/**
+ * Checks that {@link GLDrawBatch} converts every primitive into independent triangles or lines.
+ * Nothing here needs a GL context.
+ *
+ * @author Murdock Grewar
+ */
+public class GLDrawBatchTest {
+
+    private GLDrawBatch batch;
+
+    @Before
+    public void setUp() {
+        batch = new GLDrawBatch();
+    }
+
+    // Adds a primitive of the given mode through the vertices (i, 10*i) for i from 0 to count - 1.
+    private void add(int mode, int count) {
+        batch.begin(mode);
+        for (int i = 0; i < count; i++)
+            batch.vertex(i, 10 * i);
+        batch.end();
+    }
+
+    // Asserts that the vertices of the batch are those of the given indices into the primitive added by add().
+    private void assertVertices(int... indices) {
+        assertEquals(indices.length, batch.getVertexCount());
+        for (int i = 0; i < indices.length; i++) {
+            assertEquals("x of vertex " + i, indices[i], batch.getVertexX(i), 0);
+            assertEquals("y of vertex " + i, 10 * indices[i], batch.getVertexY(i), 0);
+        }
+    }
+
+    private void assertSingleRun(int mode) {
+        assertEquals(1, batch.getRunCount());
+        assertEquals(mode, batch.getRunMode(0));
+        assertEquals(0, batch.getRunFirst(0));
+        assertEquals(batch.getVertexCount(), batch.getRunVertexCount(0));
+    }
+
+    @Test
+    public void fanBecomesTrianglesAboutItsFirstVertex() {
+        add(GL_TRIANGLE_FAN, 5);
+        assertVertices(0,1,2, 0,2,3, 0,3,4);
+        assertSingleRun(GL_TRIANGLES);
+    }
+
+    @Test
+    public void stripKeepsItsWinding() {
+        add(GL_TRIANGLE_STRIP, 5);
+        assertVertices(0,1,2, 2,1,3, 2,3,4);
+        assertSingleRun(GL_TRIANGLES);
+    }
+
+    @Test
+    public void quadsBecomeTwoTrianglesEach() {
+        add(GL_QUADS, 8);
+        assertVertices(0,1,2, 0,2,3, 4,5,6, 4,6,7);
+        assertSingleRun(GL_TRIANGLES);
+    }
+
+    @Test
+    public void loopIsClosed() {
+        add(GL_LINE_LOOP, 4);
+        assertVertices(0,1, 1,2, 2,3, 3,0);
+        assertSingleRun(GL_LINES);
+    }
+
+    @Test
+    public void stripOfLinesBecomesSegments() {
+        add(GL_LINE_STRIP, 3);
+        assertVertices(0,1, 1,2);
+        assertSingleRun(GL_LINES);
+    }
+
+    @Test
+    public void incompleteTrianglesAreDropped() {
+        add(GL_TRIANGLES, 5);
+        assertVertices(0,1,2);
+    }
+
+    @Test
+    public void primitivesOfOneKindShareARun() {
+        add(GL_TRIANGLE_FAN, 3);
+        add(GL_QUADS, 4);
+        add(GL_LINE_LOOP, 3);
+        add(GL_LINE_STRIP, 2);
+        add(GL_TRIANGLES, 3);
+        assertEquals(3, batch.getRunCount());
+        assertEquals(GL_TRIANGLES, batch.getRunMode(0));
+        assertEquals(3 + 6, batch.getRunVertexCount(0));
+        assertEquals(GL_LINES, batch.getRunMode(1));
+        assertEquals(6 + 2, batch.getRunVertexCount(1));
+        assertEquals(GL_TRIANGLES, batch.getRunMode(2));
+        assertEquals(3, batch.getRunVertexCount(2));
+    }
+
+    @Test
+    public void verticesKeepTheColourCurrentWhenAdded() {
+        batch.setColorRGBA(0x11223344);
+        batch.begin(GL_TRIANGLE_FAN);
+            batch.vertex(0, 0);
+            batch.vertex(1, 0);
+            batch.setColorRGBA(0xAABBCCDD);
+            batch.vertex(1, 1);
+        batch.end();
+        assertEquals(0x11223344, batch.getVertexColor(0));
+        assertEquals(0x11223344, batch.getVertexColor(1));
+        assertEquals(0xAABBCCDD, batch.getVertexColor(2));
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package LWJGLTools.GLDrawing;
+
+import org.junit.After;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Checks the slice counts chosen by {@link LevelOfDetail} in both of its modes.
+ * Nothing here needs a GL context.
+ *
+ * @author Murdock Grewar
+ */
+public class LevelOfDetailTest {
+
+    private static final float TAU = (float)(2 * Math.PI);
+
+    @After
+    public void tearDown() {
+        LevelOfDetail.setFixed();
+        LevelOfDetail.setPixelScale(1);
+    }
+
+    @Test
+    public void fixedCountsAreUnrounded() {
+        LevelOfDetail.setFixed();
+        assertEquals(340, LevelOfDetail.sliceCount(200, TAU));
+        assertEquals(2, LevelOfDetail.sliceCount(1, TAU));
+        assertEquals(170, LevelOfDetail.sliceCount(200, TAU / 2));
+        assertEquals(1, LevelOfDetail.sliceCount(0, TAU));
+    }
+
+    @Test
+    public void fixedCountsIgnoreTheScale() {
+        LevelOfDetail.setFixed();
+        assertEquals(LevelOfDetail.sliceCount(200, TAU), LevelOfDetail.sliceCount(200, TAU, 10));
+    }
+
+    @Test
+    public void adaptiveCountsStayWithinTheirBounds() {
+        LevelOfDetail.setAdaptive(0.5f, 3, 100);
+        for (float radius = 0; radius < 100000; radius = radius * 1.1f + 0.01f) {
+            int slices = LevelOfDetail.sliceCount(radius, TAU);
+            assertTrue("r = " + radius + " gives " + slices, slices >= 3 && slices <= 100);
+        }
+        assertEquals(3, LevelOfDetail.sliceCount(0.1f, TAU));
+        assertEquals(100, LevelOfDetail.sliceCount(100000, TAU));
+    }
+
+    @Test
+    public void adaptiveCountsReachTheirMinimum() {
+        LevelOfDetail.setAdaptive(0.5f, 20, 4096);
+        assertEquals(LevelOfDetail.quantise(20), LevelOfDetail.sliceCount(0.1f, TAU));
+        for (float radius = 0; radius < 100000; radius = radius * 1.1f + 0.01f)
+            assertTrue(LevelOfDetail.sliceCount(radius, TAU) >= 20);
+    }
+
+    @Test
+    public void adaptiveCountsMeetTheChordError() {
+        LevelOfDetail.setAdaptive(0.5f, 3, 1 << 20);
+        for (float radius = 1; radius < 100000; radius *= 1.3f) {
+            int slices = LevelOfDetail.sliceCount(radius, TAU);
+            double error = radius * (1 - Math.cos(Math.PI / slices));
+            assertTrue("r = " + radius + " strays by " + error, error <= 0.5 + 1e-6);
+        }
+    }
+
+    @Test
+    public void adaptiveCountsFollowTheScale() {
+        LevelOfDetail.setAdaptive(0.5f, 3, 4096);
+        LevelOfDetail.setPixelScale(4);
+        assertEquals(LevelOfDetail.sliceCount(400, TAU, 1), LevelOfDetail.sliceCount(100, TAU, 4));
+    }
+
+    @Test
+    public void quantisedCountsArePowersOfTwoOrThreeHalvesOfOne() {
+        assertEquals(5, LevelOfDetail.quantise(5));
+        assertEquals(8, LevelOfDetail.quantise(8));
+        assertEquals(12, LevelOfDetail.quantise(9));
+        assertEquals(16, LevelOfDetail.quantise(13));
+        assertEquals(24, LevelOfDetail.quantise(24));
+        assertEquals(32, LevelOfDetail.quantise(25));
+        assertEquals(384, LevelOfDetail.quantise(340));
+    }
+}
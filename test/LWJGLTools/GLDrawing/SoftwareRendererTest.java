@@ -0,0 +1,161 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package LWJGLTools.GLDrawing;
+
+import java.util.concurrent.ForkJoinPool;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import static org.lwjgl.opengl.GL11.*;
+
+/**
+ * Checks which pixels {@link SoftwareRenderer} covers, and how it blends them.
+ * Drawing coordinates are mapped one to one onto pixels, with y growing downwards.
+ *
+ * @author Murdock Grewar
+ */
+public class SoftwareRendererTest {
+
+    private static final int RED = 0xFF0000FF, BLUE = 0x0000FFFF;
+
+    private SoftwareRenderer renderer;
+
+    @Before
+    public void setUp() {
+        renderer = new SoftwareRenderer(64, 64);
+        renderer.setOrtho(0, 64, 64, 0);
+    }
+
+    private void rectangle(float x0, float y0, float x1, float y1) {
+        renderer.begin(GL_QUADS);
+        renderer.vertex(x0, y0);
+        renderer.vertex(x1, y0);
+        renderer.vertex(x1, y1);
+        renderer.vertex(x0, y1);
+        renderer.end();
+    }
+
+    private void disk(float cx, float cy, float radius, int slices) {
+        renderer.begin(GL_TRIANGLE_FAN);
+        renderer.vertex(cx, cy);
+        for (int i = 0; i <= slices; i++) {
+            double t = 2 * Math.PI * i / slices;
+            renderer.vertex(cx + radius * (float)Math.cos(t), cy + radius * (float)Math.sin(t));
+        }
+        renderer.end();
+    }
+
+    private int covered() {
+        int n = 0;
+        for (int argb : renderer.getPixels())
+            if (argb != 0)
+                n++;
+        return n;
+    }
+
+    @Test
+    public void rectangleCoversThePixelsWhoseCentresItContains() {
+        renderer.setColorRGBA(RED);
+        rectangle(2, 3, 10, 7);
+        renderer.flush();
+        for (int y = 0; y < 64; y++) {
+            for (int x = 0; x < 64; x++) {
+                boolean inside = x >= 2 && x < 10 && y >= 3 && y < 7;
+                assertEquals("Pixel (" + x + ", " + y + ")", inside ? 0xFFFF0000 : 0, renderer.getPixel(x, y));
+            }
+        }
+    }
+
+    @Test
+    public void adjacentRectanglesNeitherOverlapNorLeaveGaps() {
+        renderer.setColorRGBA(RED);
+        rectangle(0, 0, 5.5f, 4);
+        rectangle(5.5f, 0, 12, 4);
+        renderer.flush();
+        assertEquals(12 * 4, covered());
+    }
+
+    @Test
+    public void translucentTrianglesSharingAnEdgeBlendOnce() {
+        renderer.clear(BLUE);
+        renderer.setColorRGBA(0xFF000080);
+        rectangle(1.3f, 2.7f, 40.2f, 30.9f);
+        renderer.flush();
+        int blended = renderer.getPixel(20, 15);
+        assertNotEquals(0xFF0000FF, blended);
+        for (int y = 3; y < 31; y++)
+            for (int x = 1; x < 40; x++)
+                assertEquals("Pixel (" + x + ", " + y + ")", blended, renderer.getPixel(x, y));
+    }
+
+    @Test
+    public void diskCoversItsInteriorOnly() {
+        renderer.setColorRGBA(RED);
+        disk(32, 32, 20, 256);
+        renderer.flush();
+        for (int y = 0; y < 64; y++) {
+            for (int x = 0; x < 64; x++) {
+                double d = Math.hypot(x + 0.5 - 32, y + 0.5 - 32);
+                if (d < 19.9)
+                    assertEquals("Pixel (" + x + ", " + y + ")", 0xFFFF0000, renderer.getPixel(x, y));
+                else if (d > 20)
+                    assertEquals("Pixel (" + x + ", " + y + ")", 0, renderer.getPixel(x, y));
+            }
+        }
+        assertEquals(Math.PI * 400, covered(), 40);
+    }
+
+    @Test
+    public void blendingMixesByAlpha() {
+        renderer.clear(BLUE);
+        renderer.setColorRGBA(0xFF000080);
+        rectangle(0, 0, 1, 1);
+        renderer.flush();
+        assertEquals(0xFF80007F, renderer.getPixel(0, 0));
+
+        renderer.setBlending(false);
+        rectangle(0, 0, 1, 1);
+        renderer.flush();
+        assertEquals(0x80FF0000, renderer.getPixel(0, 0));
+    }
+
+    @Test
+    public void linesAreFilledToTheirWidth() {
+        renderer.setColorRGBA(RED);
+        renderer.setLineWidth(4);
+        renderer.begin(GL_LINES);
+        renderer.vertex(10, 20);
+        renderer.vertex(30, 20);
+        renderer.end();
+        renderer.flush();
+        assertEquals(20 * 4, covered());
+        assertEquals(0xFFFF0000, renderer.getPixel(10, 18));
+        assertEquals(0, renderer.getPixel(10, 22));
+    }
+
+    @Test
+    public void parallelBandsMatchASingleThread() {
+        SoftwareRenderer serial = new SoftwareRenderer(512, 512);
+        SoftwareRenderer parallel = new SoftwareRenderer(512, 512);
+        serial.setPool(new ForkJoinPool(1));
+        ForkJoinPool pool = new ForkJoinPool(4);
+        parallel.setPool(pool);
+        for (SoftwareRenderer r : new SoftwareRenderer[]{serial, parallel}) {
+            r.setOrtho(0, 512, 512, 0);
+            r.begin(GL_TRIANGLES);
+            for (int i = 0; i < 400; i++) {
+                r.setColorRGBA(0x10203080 + i * 0x01030500);
+                r.vertex((i * 37) % 512, (i * 91) % 512);
+                r.vertex((i * 53 + 100) % 512, (i * 17) % 512);
+                r.vertex((i * 29) % 512, (i * 71 + 200) % 512);
+            }
+            r.end();
+            r.flush();
+        }
+        pool.shutdown();
+        assertArrayEquals(serial.getPixels(), parallel.getPixels());
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package LWJGLTools.GLDrawing;
+
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import static org.lwjgl.opengl.GL11.*;
+
+/**
+ * Checks the triangles {@link Stroker} extrudes from lines, collected in a {@link GLDrawBatch}.
+ * Nothing here needs a GL context.
+ *
+ * @author Murdock Grewar
+ */
+public class StrokerTest {
+
+    private GLDrawBatch batch;
+    private Stroker stroker;
+
+    @Before
+    public void setUp() {
+        batch = new GLDrawBatch();
+        stroker = new Stroker(batch);
+        stroker.setWidth(2);
+    }
+
+    // The total area of the triangles in the batch, counting overlaps twice.
+    private float area() {
+        float sum = 0;
+        for (int i = 0; i + 2 < batch.getVertexCount(); i += 3) {
+            float ax = batch.getVertexX(i+1) - batch.getVertexX(i), ay = batch.getVertexY(i+1) - batch.getVertexY(i);
+            float bx = batch.getVertexX(i+2) - batch.getVertexX(i), by = batch.getVertexY(i+2) - batch.getVertexY(i);
+            sum += Math.abs(ax*by - ay*bx) / 2;
+        }
+        return sum;
+    }
+
+    private boolean hasVertex(float x, float y) {
+        for (int i = 0; i < batch.getVertexCount(); i++) {
+            if (Math.abs(batch.getVertexX(i) - x) < 1e-4f && Math.abs(batch.getVertexY(i) - y) < 1e-4f)
+                return true;
+        }
+        return false;
+    }
+
+    private void assertBounds(float minX, float minY, float maxX, float maxY) {
+        for (int i = 0; i < batch.getVertexCount(); i++) {
+            float x = batch.getVertexX(i), y = batch.getVertexY(i);
+            assertTrue("(" + x + ", " + y + ") is out of bounds.",
+                    x >= minX - 1e-4f && x <= maxX + 1e-4f && y >= minY - 1e-4f && y <= maxY + 1e-4f);
+        }
+    }
+
+    @Test
+    public void segmentBecomesAQuad() {
+        stroker.polyline(new float[]{0,0, 10,0}, 2, false);
+        assertEquals(6, batch.getVertexCount());
+        assertEquals(GL_TRIANGLES, batch.getRunMode(0));
+        assertEquals(20, area(), 1e-4f);
+        assertBounds(0, -1, 10, 1);
+    }
+
+    @Test
+    public void squareCapsExtendTheEnds() {
+        stroker.setCap(Stroker.Cap.SQUARE);
+        stroker.polyline(new float[]{0,0, 10,0}, 2, false);
+        assertEquals(24, area(), 1e-4f);
+        assertBounds(-1, -1, 11, 1);
+    }
+
+    @Test
+    public void roundCapsStayWithinHalfTheWidth() {
+        stroker.setWidth(20);
+        stroker.setCap(Stroker.Cap.ROUND);
+        stroker.polyline(new float[]{0,0, 100,0}, 2, false);
+        assertBounds(-10, -10, 110, 10);
+        float minX = 0;
+        for (int i = 0; i < batch.getVertexCount(); i++)
+            minX = Math.min(minX, batch.getVertexX(i));
+        assertTrue("The caps should be round, reaching out by almost half the width.", minX < -9);
+        assertEquals(2000 + (float)Math.PI * 100, area(), 10);
+    }
+
+    @Test
+    public void repeatedPointsAreDropped() {
+        stroker.polyline(new float[]{0,0, 0,0, 10,0, 10,0}, 4, false);
+        assertEquals(6, batch.getVertexCount());
+        assertEquals(20, area(), 1e-4f);
+    }
+
+    @Test
+    public void zeroLengthStrokesShowOnlyTheirCaps() {
+        stroker.polyline(new float[]{5,5, 5,5}, 2, false);
+        assertEquals(0, batch.getVertexCount());
+        stroker.setCap(Stroker.Cap.SQUARE);
+        stroker.polyline(new float[]{5,5, 5,5}, 2, false);
+        assertEquals(4, area(), 1e-4f);
+        assertBounds(4, 4, 6, 6);
+    }
+
+    @Test
+    public void miterJoinsReachTheCornerAndBevelsCutIt() {
+        float[] corner = {0,0, 10,0, 10,10};
+        stroker.polyline(corner, 3, false);
+        assertTrue(hasVertex(11, -1));
+        float miter = area();
+
+        batch.clear();
+        stroker.setJoin(Stroker.Join.BEVEL);
+        stroker.polyline(corner, 3, false);
+        assertFalse(hasVertex(11, -1));
+        assertEquals(miter - 0.5f, area(), 1e-4f);
+
+        batch.clear();
+        stroker.setJoin(Stroker.Join.MITER);
+        stroker.setMiterLimit(1);
+        stroker.polyline(corner, 3, false);
+        assertEquals("A miter beyond the limit becomes a bevel.", miter - 0.5f, area(), 1e-4f);
+    }
+
+    @Test
+    public void closedPolylinesAreJoinedAllRound() {
+        stroker.polyline(new float[]{0,0, 10,0, 10,10, 0,10}, 4, true);
+        assertBounds(-1, -1, 11, 11);
+        assertTrue(hasVertex(-1, -1) && hasVertex(11, -1) && hasVertex(11, 11) && hasVertex(-1, 11));
+    }
+
+    @Test
+    public void linesAreStrokedInPairs() {
+        stroker.begin(GL_LINES);
+        stroker.vertex(0, 0);
+        stroker.vertex(10, 0);
+        stroker.vertex(0, 5);
+        stroker.vertex(0, 15);
+        stroker.end();
+        assertEquals(12, batch.getVertexCount());
+        assertEquals(40, area(), 1e-4f);
+    }
+
+    @Test
+    public void otherPrimitivesPassThrough() {
+        stroker.begin(GL_TRIANGLES);
+        stroker.vertex(0, 0);
+        stroker.vertex(1, 0);
+        stroker.vertex(0, 1);
+        stroker.end();
+        assertEquals(3, batch.getVertexCount());
+        assertEquals(1, batch.getVertexX(1), 0);
+        assertEquals(1, batch.getVertexY(2), 0);
+    }
+
+    @Test
+    public void zeroWidthStrokesNothing() {
+        stroker.setWidth(0);
+        stroker.polyline(new float[]{0,0, 10,0}, 2, false);
+        assertEquals(0, batch.getVertexCount());
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package LWJGLTools.GLDrawing;
+
+import java.util.Arrays;
+import org.junit.After;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Checks the vertices {@link Tessellator} emits for ellipses and urchins.
+ * Nothing here needs a GL context.
+ *
+ * @author Murdock Grewar
+ */
+public class TessellatorTest {
+
+    private static final float TAU = (float)(2 * Math.PI);
+
+    // Records the vertices it receives.
+    private static final class Points implements PrimitiveSink {
+        float[] xs = new float[64], ys = new float[64];
+        int count = 0;
+
+        @Override
+        public void begin(int mode) {
+        }
+
+        @Override
+        public void vertex(float x, float y) {
+            if (count == xs.length) {
+                xs = Arrays.copyOf(xs, count * 2);
+                ys = Arrays.copyOf(ys, count * 2);
+            }
+            xs[count] = x;
+            ys[count] = y;
+            count++;
+        }
+
+        @Override
+        public void end() {
+        }
+    }
+
+    private final Points points = new Points();
+
+    @After
+    public void tearDown() {
+        LevelOfDetail.setFixed();
+    }
+
+    // Asserts that every point lies on the ellipse with the given radii, centred on (x, y) and unrotated.
+    private void assertOnEllipse(float x, float y, float a, float b) {
+        for (int i = 0; i < points.count; i++) {
+            float u = (points.xs[i] - x) / a, v = (points.ys[i] - y) / b;
+            assertEquals("Point " + i, 1, u*u + v*v, 1e-4f);
+        }
+    }
+
+    @Test
+    public void unitCircleTablesHoldCosinesAndSines() {
+        float[] table = Tessellator.unitCircle(12);
+        assertEquals(26, table.length);
+        for (int i = 0; i < 12; i++) {
+            assertEquals(Math.cos(i * TAU / 12), table[i*2], 1e-6);
+            assertEquals(Math.sin(i * TAU / 12), table[i*2 + 1], 1e-6);
+        }
+        assertEquals("The table closes exactly.", 1, table[24], 0);
+        assertEquals(0, table[25], 0);
+    }
+
+    @Test
+    public void unitCircleTablesAreCachedPerExactCount() {
+        float[] table = Tessellator.unitCircle(340);
+        assertSame(table, Tessellator.unitCircle(340));
+        assertEquals(2 * 341, table.length);
+        assertEquals(2 * 342, Tessellator.unitCircle(341).length);
+    }
+
+    @Test
+    public void wholeEllipseClosesOnItsFirstVertex() {
+        Tessellator.ellipseArc(points, 5, -3, 2, 4, 0, 0.3f, TAU, 40);
+        assertEquals(41, points.count);
+        assertEquals(points.xs[0], points.xs[40], 0);
+        assertEquals(points.ys[0], points.ys[40], 0);
+        assertOnEllipse(5, -3, 4, 2);
+        assertEquals(5 + 4 * (float)Math.cos(0.3), points.xs[0], 1e-5f);
+        assertEquals(-3 + 2 * (float)Math.sin(0.3), points.ys[0], 1e-5f);
+    }
+
+    @Test
+    public void negativeWholeTurnRunsClockwise() {
+        Tessellator.ellipseArc(points, 0, 0, 1, 1, 0, 0, -TAU, 8);
+        assertEquals(1, points.xs[0], 1e-6f);
+        assertEquals(-Math.sqrt(0.5), points.ys[1], 1e-6f);
+    }
+
+    @Test
+    public void fixedCirclesUseTheBaselineCount() {
+        Tessellator.ellipse(points, 0, 0, 200, 200, 0, 0, TAU);
+        assertEquals(341, points.count);
+        assertOnEllipse(0, 0, 200, 200);
+    }
+
+    // The furthest the unrotated ellipse strays from any chord between consecutive points.
+    private double chordError(float a, float b) {
+        double worst = 0;
+        for (int i = 0; i + 1 < points.count; i++) {
+            double x0 = points.xs[i], y0 = points.ys[i], x1 = points.xs[i+1], y1 = points.ys[i+1];
+            double t0 = Math.atan2(y0 / b, x0 / a), t1 = Math.atan2(y1 / b, x1 / a);
+            double dt = Math.IEEEremainder(t1 - t0, 2 * Math.PI);
+            double length = Math.hypot(x1 - x0, y1 - y0);
+            for (int k = 1; k < 16; k++) {
+                double t = t0 + dt * k / 16;
+                double px = a * Math.cos(t), py = b * Math.sin(t);
+                worst = Math.max(worst, Math.abs((x1 - x0)*(py - y0) - (y1 - y0)*(px - x0)) / length);
+            }
+        }
+        return worst;
+    }
+
+    @Test
+    public void sectorsRunFromTheirStartToTheirEnd() {
+        Tessellator.ellipseArc(points, 0, 0, 2, 2, 0, 1, -2.5f, 7);
+        assertEquals(8, points.count);
+        assertEquals(2 * Math.cos(1), points.xs[0], 1e-5);
+        assertEquals(2 * Math.sin(1), points.ys[0], 1e-5);
+        assertEquals(2 * Math.cos(1 - 2.5), points.xs[7], 1e-5);
+        assertEquals(2 * Math.sin(1 - 2.5), points.ys[7], 1e-5);
+        assertOnEllipse(0, 0, 2, 2);
+    }
+
+    @Test
+    public void eccentricEllipsesMeetTheChordError() {
+        Tessellator.ellipseArcByCurvature(points, 0, 0, 10, 100, 0, 0, TAU, 0.5, 4096);
+        assertOnEllipse(0, 0, 100, 10);
+        assertTrue("Error " + chordError(100, 10), chordError(100, 10) <= 0.5 * 1.05);
+        assertEquals(points.xs[0], points.xs[points.count - 1], 1e-4f);
+        assertEquals(points.ys[0], points.ys[points.count - 1], 1e-4f);
+
+        // A circle of the major radius needs this many segments for the same error.
+        int uniform = (int)Math.ceil(Math.PI / Math.acos(1 - 0.5 / 100));
+        assertTrue(points.count - 1 + " segments", points.count - 1 < uniform * 3 / 4);
+    }
+
+    @Test
+    public void eccentricSectorsLandOnTheirEnd() {
+        LevelOfDetail.setAdaptive(0.25f, 8, 4096);
+        Tessellator.ellipse(points, 0, 0, 5, 50, 0, 0.5f, 2f);
+        assertOnEllipse(0, 0, 50, 5);
+        assertEquals(50 * Math.cos(2.5), points.xs[points.count - 1], 1e-4);
+        assertEquals(5 * Math.sin(2.5), points.ys[points.count - 1], 1e-4);
+        assertTrue(chordError(50, 5) <= 0.25 * 1.05);
+    }
+
+    @Test
+    public void urchinsAlternateBetweenTheirRadii() {
+        Tessellator.star(points, 0, 0, 1, 3, 5, 0);
+        assertEquals(11, points.count);
+        for (int i = 0; i < points.count; i++) {
+            double r = Math.hypot(points.xs[i], points.ys[i]);
+            assertEquals("Point " + i, i % 2 == 0 ? 1 : 3, r, 1e-5);
+        }
+    }
+}
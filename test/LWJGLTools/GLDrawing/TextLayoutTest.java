@@ -0,0 +1,90 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package LWJGLTools.GLDrawing;
+
+import java.util.Arrays;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Checks how {@link TextLayout} breaks text into lines, using a fixed-width font in which
+ * every printable character advances by 6 units.
+ *
+ * @author Murdock Grewar
+ */
+public class TextLayoutTest {
+
+    private TextMetrics metrics;
+
+    @Before
+    public void setUp() {
+        int[] advances = new int[95];
+        Arrays.fill(advances, 6);
+        metrics = new TextMetrics(32, advances, 12, 10);
+    }
+
+    private void assertLines(TextLayout layout, String... lines) {
+        assertEquals(lines.length, layout.getLineCount());
+        for (int i = 0; i < lines.length; i++) {
+            assertEquals("Line " + i, lines[i], layout.getLine(i));
+            assertEquals("Width of line " + i, lines[i].length() * 6, layout.getLineWidth(i));
+        }
+        assertEquals(lines.length * 12, layout.getHeight());
+    }
+
+    @Test
+    public void unboundedTextIsNotWrapped() {
+        TextLayout layout = metrics.layout("hello world", Float.POSITIVE_INFINITY);
+        assertLines(layout, "hello world");
+        assertEquals(66, layout.getWidth());
+        assertSame("A single line is the text itself.", layout.getText(), layout.getLine(0));
+    }
+
+    @Test
+    public void linesBreakAtTheLastSpaceThatFits() {
+        TextLayout layout = metrics.layout("the quick brown fox jumps", 60);
+        assertLines(layout, "the quick", "brown fox", "jumps");
+        assertEquals(54, layout.getWidth());
+        assertEquals(10, layout.getLineStart(1));
+        assertEquals(19, layout.getLineEnd(1));
+    }
+
+    @Test
+    public void lineThatFitsExactlyIsKept() {
+        assertLines(metrics.layout("abcde fghij", 30), "abcde", "fghij");
+        assertLines(metrics.layout("abcde", 30), "abcde");
+    }
+
+    @Test
+    public void newlinesAlwaysBreak() {
+        assertLines(metrics.layout("one\n\ntwo three", 1000), "one", "", "two three");
+        assertLines(metrics.layout("", 10), "");
+        assertLines(metrics.layout("end\n", 100), "end", "");
+    }
+
+    @Test
+    public void longWordsBreakBetweenCharacters() {
+        assertLines(metrics.layout("abcdefghij", 24), "abcd", "efgh", "ij");
+        assertLines(metrics.layout("to abcdefghij", 24), "to", "abcd", "efgh", "ij");
+    }
+
+    @Test
+    public void linesAreCutOnce() {
+        TextLayout layout = metrics.layout("alpha beta gamma", 40);
+        assertSame(layout.getLine(1), layout.getLine(1));
+    }
+
+    @Test
+    public void cacheReturnsTheSameLayout() {
+        TextLayoutCache cache = new TextLayoutCache(metrics, 4);
+        TextLayout layout = cache.get("alpha beta", 30);
+        assertSame(layout, cache.get("alpha beta", 30));
+        assertNotSame(layout, cache.get("alpha beta", 60));
+        assertEquals(1, cache.getHits());
+        assertEquals(2, cache.getMisses());
+    }
+}
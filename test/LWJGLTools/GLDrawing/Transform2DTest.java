@@ -0,0 +1,119 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package LWJGLTools.GLDrawing;
+
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import static org.lwjgl.opengl.GL11.GL_LINES;
+
+/**
+ * Checks the order of operations, the stack and the sink of {@link Transform2D}.
+ *
+ * @author Murdock Grewar
+ */
+public class Transform2DTest {
+
+    private static final float EPSILON = 1e-5f;
+
+    private Transform2D transform;
+
+    @Before
+    public void setUp() {
+        transform = new Transform2D();
+    }
+
+    private void assertMaps(float x, float y, float toX, float toY) {
+        assertEquals(toX, transform.transformX(x, y), EPSILON);
+        assertEquals(toY, transform.transformY(x, y), EPSILON);
+    }
+
+    @Test
+    public void startsAsTheIdentity() {
+        assertTrue(transform.isIdentity());
+        assertEquals(0, transform.depth());
+        assertMaps(3, -4, 3, -4);
+    }
+
+    @Test
+    public void operationsApplyInReverseOrder() {
+        // As with glTranslatef then glRotatef: the point is rotated first, then translated.
+        transform.translate(10, 0);
+        transform.rotate((float)(Math.PI / 2));
+        assertMaps(1, 0, 10, 1);
+
+        transform.loadIdentity();
+        transform.rotate((float)(Math.PI / 2));
+        transform.translate(10, 0);
+        assertMaps(1, 0, 0, 11);
+    }
+
+    @Test
+    public void scaleStretchesEachAxis() {
+        transform.translate(1, 2);
+        transform.scale(3, -2);
+        assertMaps(1, 1, 4, 0);
+        assertFalse(transform.isIdentity());
+        assertEquals(3, transform.maxScale(), EPSILON);
+    }
+
+    @Test
+    public void multiplyMatchesTheEquivalentOperations() {
+        transform.multiply(2, 0, 0, 2, 5, 6);
+        assertMaps(1, 1, 7, 8);
+        transform.multiply(0, 1, -1, 0, 0, 0);
+        assertMaps(1, 0, 5, 8);
+    }
+
+    @Test
+    public void popRestoresWhatPushSaved() {
+        transform.translate(1, 1);
+        for (int i = 0; i < 40; i++) {
+            transform.push();
+            transform.scale(2, 2);
+        }
+        assertEquals(40, transform.depth());
+        for (int i = 0; i < 40; i++)
+            transform.pop();
+        assertEquals(0, transform.depth());
+        assertMaps(0, 0, 1, 1);
+        assertMaps(1, 0, 2, 1);
+
+        transform.translate(-1, -1);
+        assertTrue("Undoing every operation gives the identity again.", transform.isIdentity());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void popBelowTheBottomThrows() {
+        transform.pop();
+    }
+
+    @Test
+    public void matrixIsColumnMajor() {
+        transform.translate(5, 6);
+        transform.scale(2, 3);
+        float[] m = new float[16];
+        transform.get4x4(m);
+        assertArrayEquals(new float[]{2,0,0,0, 0,3,0,0, 0,0,1,0, 5,6,0,1}, m, 0);
+    }
+
+    @Test
+    public void sinkTransformsVerticesOnTheirWay() {
+        GLDrawBatch batch = new GLDrawBatch();
+        Transform2D.Sink sink = new Transform2D.Sink(transform);
+        sink.setTarget(batch);
+        transform.translate(1, 0);
+        transform.scale(4, 4);
+        sink.begin(GL_LINES);
+        sink.vertex(0, 0);
+        sink.vertex(1, 2);
+        sink.end();
+        assertEquals(1, batch.getVertexX(0), EPSILON);
+        assertEquals(5, batch.getVertexX(1), EPSILON);
+        assertEquals(8, batch.getVertexY(1), EPSILON);
+        assertEquals(4, sink.scale(), EPSILON);
+    }
+}
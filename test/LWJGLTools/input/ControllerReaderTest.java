@@ -0,0 +1,215 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package LWJGLTools.input;
+
+import LWJGLTools.input.ControllerReader.Axis;
+import LWJGLTools.input.ControllerReader.AxisID;
+import LWJGLTools.input.ControllerReader.Button;
+import LWJGLTools.input.ControllerReader.ButtonContainer;
+import LWJGLTools.input.ControllerReader.ButtonID;
+import LWJGLTools.input.ControllerReader.ControllerID;
+import LWJGLTools.input.ControllerReader.Joystick;
+import LWJGLTools.input.ControllerReader.NoControllerException;
+import LWJGLTools.input.ControllerReader.NoSuchAxisException;
+import LWJGLTools.input.ControllerReader.NotConfiguredException;
+import LWJGLTools.input.ControllerReader.Status;
+import LWJGLTools.input.ControllerReader.Trigger;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import static org.lwjgl.glfw.GLFW.*;
+
+/**
+ * Drives {@link ControllerReader} from a fake {@link ControllerSnapshot.Source}, without GLFW.
+ *
+ * @author Murdock Grewar
+ */
+public class ControllerReaderTest {
+
+    // A single controller in the first slot, with four axes and two buttons, which can be unplugged.
+    // The buffers are wrapped once, so that reading the source allocates nothing, as with GLFW.
+    private static final class FakeSource implements ControllerSnapshot.Source {
+        final float[] axes = new float[4];
+        final byte[] buttons = new byte[2];
+        final FloatBuffer axisBuffer = FloatBuffer.wrap(axes);
+        final ByteBuffer buttonBuffer = ByteBuffer.wrap(buttons);
+        boolean connected = true;
+        int calls = 0;
+
+        @Override
+        public FloatBuffer axes(int joystick) {
+            calls++;
+            return (connected && joystick == GLFW_JOYSTICK_1) ? axisBuffer : null;
+        }
+
+        @Override
+        public ByteBuffer buttons(int joystick) {
+            calls++;
+            return (connected && joystick == GLFW_JOYSTICK_1) ? buttonBuffer : null;
+        }
+    }
+
+    private FakeSource source;
+    private ControllerSnapshot snapshot;
+    private ControllerReader reader;
+
+    @Before
+    public void setUp() {
+        source = new FakeSource();
+        snapshot = new ControllerSnapshot(source);
+        reader = new ControllerReader(snapshot);
+        reader.setJoystickAxes(Joystick.LEFT,
+                new Axis(ControllerID.ONE, AxisID.ZERO, -1, 1),
+                new Axis(ControllerID.ONE, AxisID.ONE, -1, 1));
+        reader.setJoystickDeadzone(Joystick.LEFT, 0.2f);
+        reader.setTriggerAxis(Trigger.LEFT, new Axis(ControllerID.ONE, AxisID.TWO, -1, 1));
+        reader.setButton(Button.A, new ButtonContainer(ControllerID.ONE, ButtonID.ONE));
+    }
+
+    @Test
+    public void readsConfiguredControls() throws Exception {
+        source.axes[0] = 1;
+        source.axes[2] = 0;
+        source.buttons[1] = GLFW_PRESS;
+        reader.poll();
+
+        ControllerReader.JoystickFilteredState js = reader.newJoystickState();
+        assertEquals(Status.OK, reader.readJoystick(Joystick.LEFT, js));
+        assertEquals(1, js.getMag(), 1e-6);
+        assertEquals(0, js.getAngle(), 1e-6);
+        assertEquals(0.5f, reader.getTriggerValue(Trigger.LEFT), 1e-6);
+        assertTrue(reader.isButtonPressed(Button.A));
+        assertEquals(Status.OK, reader.getStatus(Button.A));
+    }
+
+    @Test
+    public void unconfiguredControlsReportStatusAndThrow() {
+        ControllerReader.TriggerFilteredState ts = reader.newTriggerState();
+        assertEquals(Status.NOT_CONFIGURED, reader.readTrigger(Trigger.RIGHT, ts));
+        assertEquals(0, ts.getValue(), 0);
+        assertEquals(-1, reader.getTriggerValue(Trigger.RIGHT, -1), 0);
+        assertEquals(Status.NOT_CONFIGURED, reader.getStatus(Button.B));
+        assertTrue(reader.isButtonPressed(Button.B, true));
+        try {
+            reader.getTriggerValue(Trigger.RIGHT);
+            fail("Expected a NotConfiguredException.");
+        } catch (NotConfiguredException e) {
+            // Expected.
+        } catch (Exception e) {
+            fail("Expected a NotConfiguredException, not " + e);
+        }
+    }
+
+    @Test
+    public void missingAxisReportsStatusAndThrows() {
+        reader.setTriggerAxis(Trigger.RIGHT, new Axis(ControllerID.ONE, AxisID.FIVE, -1, 1));
+        reader.poll();
+        assertEquals(Status.NO_SUCH_AXIS, reader.readTrigger(Trigger.RIGHT, reader.newTriggerState()));
+        try {
+            reader.getTriggerValue(Trigger.RIGHT);
+            fail("Expected a NoSuchAxisException.");
+        } catch (NoSuchAxisException e) {
+            // Expected.
+        } catch (Exception e) {
+            fail("Expected a NoSuchAxisException, not " + e);
+        }
+    }
+
+    @Test
+    public void disconnectWhileTrackedSkipsTheSource() {
+        snapshot.trackConnections();
+        reader.poll();
+        assertTrue(reader.isConnected(ControllerID.ONE));
+
+        source.connected = false;
+        snapshot.joystickEvent(GLFW_JOYSTICK_1, GLFW_DISCONNECTED);
+        int before = source.calls;
+        reader.poll();
+        assertEquals("A controller known to be missing should not be read.", before, source.calls);
+
+        ControllerReader.JoystickFilteredState js = reader.newJoystickState();
+        assertEquals(Status.NO_CONTROLLER, reader.readJoystick(Joystick.LEFT, js));
+        assertEquals(0, js.getMag(), 0);
+        assertFalse(reader.isButtonPressed(Button.A, false));
+        try {
+            reader.getJoystickState(Joystick.LEFT, js);
+            fail("Expected a NoControllerException.");
+        } catch (NoControllerException e) {
+            // Expected.
+        } catch (Exception e) {
+            fail("Expected a NoControllerException, not " + e);
+        }
+
+        source.connected = true;
+        snapshot.joystickEvent(GLFW_JOYSTICK_1, GLFW_CONNECTED);
+        reader.poll();
+        assertEquals(Status.OK, reader.readJoystick(Joystick.LEFT, js));
+    }
+
+    @Test
+    public void unpolledReadsCaptureOnlyWhatTheyNeed() throws Exception {
+        reader.readJoystick(Joystick.LEFT, reader.newJoystickState());
+        assertEquals("A joystick reads the axes of its controller once.", 1, source.calls);
+        reader.getTriggerValue(Trigger.LEFT, 0);
+        assertEquals("A trigger reads only the axes.", 2, source.calls);
+        reader.isButtonPressed(Button.A);
+        assertEquals("A button reads only the buttons.", 3, source.calls);
+        reader.isButtonPressed(Button.A, false);
+        assertEquals(4, source.calls);
+    }
+
+    @Test
+    public void configuredAxisIsReadThroughTheSnapshot() throws Exception {
+        Axis trigger = new Axis(ControllerID.ONE, AxisID.THREE, -1, 1);
+        reader.setTriggerAxis(Trigger.RIGHT, trigger);
+        source.axes[3] = 1;
+        reader.poll();
+        int before = source.calls;
+        source.axes[3] = -1;
+        assertEquals(1, trigger.value(0, 1), 0);
+        assertEquals("A polled reader makes no further reads.", before, source.calls);
+    }
+
+    // Polls and reads every configured control, the work of one frame.
+    private float frame(ControllerReader.JoystickFilteredState js, ControllerReader.TriggerFilteredState ts) {
+        reader.poll();
+        reader.readJoystick(Joystick.LEFT, js);
+        reader.readTrigger(Trigger.LEFT, ts);
+        reader.readTrigger(Trigger.RIGHT, ts);
+        return js.getMag() + ts.getValue() + (reader.isButtonPressed(Button.A, false) ? 1 : 0);
+    }
+
+    @Test
+    public void pollingAndReadingAllocateNothing() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean)bean;
+        Assume.assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled());
+        long thread = Thread.currentThread().getId();
+
+        ControllerReader.JoystickFilteredState js = reader.newJoystickState();
+        ControllerReader.TriggerFilteredState ts = reader.newTriggerState();
+        source.axes[0] = 0.7f;
+        source.axes[1] = -0.4f;
+        float sum = 0;
+        for (int i = 0; i < 20000; i++)
+            sum += frame(js, ts);
+
+        // The cost of measuring itself, if any, is taken from an empty interval.
+        long start = threads.getThreadAllocatedBytes(thread);
+        long overhead = threads.getThreadAllocatedBytes(thread) - start;
+        start = threads.getThreadAllocatedBytes(thread);
+        for (int i = 0; i < 1000; i++)
+            sum += frame(js, ts);
+        long allocated = threads.getThreadAllocatedBytes(thread) - start - overhead;
+        assertTrue(sum > 0);
+        assertEquals("Bytes allocated by 1000 frames", 0, allocated);
+    }
+}
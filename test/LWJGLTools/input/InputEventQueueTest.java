@@ -0,0 +1,111 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package LWJGLTools.input;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+import static org.lwjgl.glfw.GLFW.*;
+
+/**
+ * Checks the ring of {@link InputEventQueue} with synthetic events, without GLFW.
+ *
+ * @author Murdock Grewar
+ */
+public class InputEventQueueTest {
+
+    @Test
+    public void capacityIsRoundedUpToAPowerOfTwo() {
+        assertEquals(8, new InputEventQueue(5).getCapacity());
+        assertEquals(8, new InputEventQueue(8).getCapacity());
+        assertEquals(1, new InputEventQueue(1).getCapacity());
+    }
+
+    @Test
+    public void fullQueueDropsAndCounts() {
+        InputEventQueue q = new InputEventQueue(4);
+        for (int i = 0; i < 6; i++)
+            assertEquals(i < 4, q.postKey(1, GLFW_KEY_A + i, GLFW_PRESS));
+        assertEquals(4, q.size());
+        assertEquals(2, q.getDroppedCount());
+
+        // The oldest events are kept, in order.
+        for (int i = 0; i < 4; i++) {
+            assertTrue(q.next());
+            assertEquals(GLFW_KEY_A + i, q.getCode());
+        }
+        assertFalse(q.next());
+    }
+
+    @Test
+    public void wrapsAroundInOrder() {
+        InputEventQueue q = new InputEventQueue(4);
+        int posted = 0, read = 0;
+        // Keep the queue part full while its indices pass the end of the ring many times over.
+        for (int round = 0; round < 100; round++) {
+            for (int i = 0; i < 3; i++)
+                assertTrue(q.post(InputEventQueue.KEY, 7, posted, 0, GLFW_PRESS, 0, posted++));
+            for (int i = 0; i < 3; i++) {
+                assertTrue(q.next());
+                assertEquals(read, q.getCode());
+                assertEquals(read, q.getNanos());
+                assertEquals(7, q.getWindow());
+                read++;
+            }
+        }
+        assertEquals(0, q.size());
+        assertEquals(0, q.getDroppedCount());
+    }
+
+    @Test
+    public void drainPassesEveryEventOnce() {
+        InputEventQueue q = new InputEventQueue(16);
+        q.postKey(1, GLFW_KEY_A, GLFW_PRESS);
+        q.post(InputEventQueue.JOYSTICK, 0, GLFW_JOYSTICK_2, 0, GLFW_CONNECTED, 0, 5);
+        final int[] seen = new int[3];
+        int n = q.drain(new InputEventQueue.Handler() {
+            @Override
+            public void event(int type, long window, int code, int scancode, int action, int mods, long nanos) {
+                seen[type]++;
+                if (type == InputEventQueue.JOYSTICK) {
+                    assertEquals(GLFW_JOYSTICK_2, code);
+                    assertEquals(GLFW_CONNECTED, action);
+                }
+            }
+        });
+        assertEquals(2, n);
+        assertEquals(1, seen[InputEventQueue.KEY]);
+        assertEquals(1, seen[InputEventQueue.JOYSTICK]);
+        assertEquals(0, q.size());
+    }
+
+    @Test
+    public void producerAndConsumerOnDifferentThreads() throws InterruptedException {
+        final InputEventQueue q = new InputEventQueue(64);
+        final int count = 20000;
+        Thread producer = new Thread() {
+            @Override
+            public void run() {
+                for (int i = 0; i < count; ) {
+                    if (q.post(InputEventQueue.KEY, 0, i, 0, GLFW_PRESS, 0, i))
+                        i++;
+                    else
+                        Thread.yield();
+                }
+            }
+        };
+        producer.start();
+        for (int i = 0; i < count; ) {
+            if (q.next()) {
+                assertEquals(i, q.getCode());
+                i++;
+            } else {
+                Thread.yield();
+            }
+        }
+        producer.join();
+        assertEquals(0, q.size());
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package LWJGLTools.input;
+
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import static org.lwjgl.glfw.GLFW.*;
+
+/**
+ * Feeds {@link KeyboardState} with synthetic events through an {@link InputEventQueue}, without GLFW.
+ *
+ * @author Murdock Grewar
+ */
+public class KeyboardStateTest {
+
+    private static final long WINDOW = 42;
+
+    private InputEventQueue queue;
+    private KeyboardState keys;
+
+    @Before
+    public void setUp() {
+        queue = new InputEventQueue(64);
+        keys = new KeyboardState(WINDOW);
+    }
+
+    private void frame() {
+        keys.beginFrame();
+        queue.drain(keys);
+    }
+
+    @Test
+    public void tapWithinAFrameIsPressedAndReleased() {
+        queue.postKey(WINDOW, GLFW_KEY_SPACE, GLFW_PRESS);
+        queue.postKey(WINDOW, GLFW_KEY_SPACE, GLFW_RELEASE);
+        frame();
+        assertFalse(keys.isPressed(GLFW_KEY_SPACE));
+        assertTrue(keys.isFreshlyPressed(GLFW_KEY_SPACE));
+        assertTrue(keys.isFreshlyReleased(GLFW_KEY_SPACE));
+        assertTrue(keys.isAnyFreshlyPressed());
+        assertFalse(keys.isAnyPressed());
+
+        frame();
+        assertFalse(keys.isFreshlyPressed(GLFW_KEY_SPACE));
+        assertFalse(keys.isFreshlyReleased(GLFW_KEY_SPACE));
+        assertFalse(keys.isAnyFreshlyPressed());
+    }
+
+    @Test
+    public void heldKeyIsFreshOnlyInItsFirstFrame() {
+        queue.postKey(WINDOW, GLFW_KEY_MENU, GLFW_PRESS);
+        frame();
+        assertTrue(keys.isPressed(GLFW_KEY_MENU));
+        assertTrue(keys.isFreshlyPressed(GLFW_KEY_MENU));
+        assertFalse(keys.wasPressed(GLFW_KEY_MENU));
+
+        queue.postKey(WINDOW, GLFW_KEY_MENU, GLFW_REPEAT);
+        frame();
+        assertTrue(keys.isPressed(GLFW_KEY_MENU));
+        assertTrue(keys.wasPressed(GLFW_KEY_MENU));
+        assertFalse(keys.isFreshlyPressed(GLFW_KEY_MENU));
+        assertEquals(1, keys.getPressedCount());
+
+        queue.postKey(WINDOW, GLFW_KEY_MENU, GLFW_RELEASE);
+        frame();
+        assertFalse(keys.isPressed(GLFW_KEY_MENU));
+        assertTrue(keys.isFreshlyReleased(GLFW_KEY_MENU));
+        assertTrue(keys.isAnyFreshlyReleased());
+    }
+
+    @Test
+    public void ignoresOtherWindowsAndUnknownKeys() {
+        queue.postKey(WINDOW + 1, GLFW_KEY_A, GLFW_PRESS);
+        queue.postKey(WINDOW, GLFW_KEY_UNKNOWN, GLFW_PRESS);
+        queue.post(InputEventQueue.JOYSTICK, 0, GLFW_JOYSTICK_1, 0, GLFW_CONNECTED, 0, 0);
+        frame();
+        assertFalse(keys.isAnyPressed());
+        assertFalse(keys.isPressed(GLFW_KEY_UNKNOWN));
+        assertEquals(0, keys.getPressedCount());
+    }
+}